@@ -11,8 +11,8 @@ import io.vertx.protobuf.schema.Field;
 
 public enum FieldLiteral implements Field {
 
-  SimpleMessage_string_field(1, false, false, false, false, false, "string_field", "stringField"),
-  SimpleMessage_long_field(2, false, false, false, false, false, "long_field", "longField");
+  SimpleMessage_string_field(1, false, false, false, false, false, "string_field", "stringField", 10),
+  SimpleMessage_long_field(2, false, false, false, false, false, "long_field", "longField", 16);
   private MessageLiteral owner;
   private io.vertx.protobuf.schema.Type type;
   private final int number;
@@ -23,7 +23,8 @@ public enum FieldLiteral implements Field {
   private final boolean packed;
   private final String name;
   private final String jsonName;
-  FieldLiteral(int number, boolean map, boolean mapKey, boolean mapValue, boolean repeated, boolean packed, String name, String jsonName) {
+  private final int tag;
+  FieldLiteral(int number, boolean map, boolean mapKey, boolean mapValue, boolean repeated, boolean packed, String name, String jsonName, int tag) {
     this.number = number;
     this.map = map;
     this.mapKey = mapKey;
@@ -32,6 +33,7 @@ public enum FieldLiteral implements Field {
     this.packed = packed;
     this.name = name;
     this.jsonName = jsonName;
+    this.tag = tag;
   }
   public MessageType owner() {
     return owner;
@@ -39,6 +41,9 @@ public enum FieldLiteral implements Field {
   public int number() {
     return number;
   }
+  public int tag() {
+    return tag;
+  }
   public String jsonName() {
     return jsonName;
   }
@@ -13,17 +13,26 @@ public enum MessageLiteral implements MessageType, java.util.function.Function<O
 
   SimpleMessage("SimpleMessage");
   private static final java.util.List<java.util.function.Function<?, io.vertx.protobuf.ProtoStream>> streamFactories = new java.util.ArrayList<>();
-  final java.util.Map<Integer, FieldLiteral> byNumber;
-  final java.util.Map<String, FieldLiteral> byJsonName;
-  final java.util.Map<String, FieldLiteral> byName;
+  final io.vertx.protobuf.schema.FieldTable<FieldLiteral> byNumber;
+  final io.vertx.protobuf.schema.FieldNameTable<FieldLiteral> byJsonName;
+  final io.vertx.protobuf.schema.FieldNameTable<FieldLiteral> byName;
+  private io.vertx.protobuf.schema.FieldSequence fieldSequence;
   MessageLiteral(String name) {
-    this.byNumber = new java.util.HashMap<>();
-    this.byJsonName = new java.util.HashMap<>();
-    this.byName = new java.util.HashMap<>();
+    this.byNumber = new io.vertx.protobuf.schema.FieldTable<>();
+    this.byJsonName = new io.vertx.protobuf.schema.FieldNameTable<>();
+    this.byName = new io.vertx.protobuf.schema.FieldNameTable<>();
   }
   public Field field(int number) {
     return byNumber.get(number);
   }
+  public io.vertx.protobuf.schema.FieldSequence fieldSequence() {
+    io.vertx.protobuf.schema.FieldSequence sequence = fieldSequence;
+    if (sequence == null) {
+      sequence = io.vertx.protobuf.schema.FieldSequence.of(byNumber.fields());
+      fieldSequence = sequence;
+    }
+    return sequence;
+  }
   public Field fieldByJsonName(String name) {
     return byJsonName.get(name);
   }
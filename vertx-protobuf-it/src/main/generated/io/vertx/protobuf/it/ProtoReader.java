@@ -37,6 +37,26 @@ public class ProtoReader implements ProtoVisitor {
     }
   }
 
+  public void visitBytes(Field field, byte[] value) {
+    if (field instanceof FieldLiteral || field.isUnknown()) {
+      visitBytes(field, io.vertx.core.buffer.Buffer.buffer(value));
+    } else if (next != null) {
+      next.visitBytes(field, value);
+    } else {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  public void visitUnknownFields(MessageType type, io.vertx.core.buffer.Buffer bytes) {
+    if (type instanceof MessageLiteral) {
+      ((io.vertx.protobuf.lang.MessageBase)stack.peek()).appendUnknownFields(type, bytes);
+    } else if (next != null) {
+      next.visitUnknownFields(type, bytes);
+    } else {
+      throw new UnsupportedOperationException();
+    }
+  }
+
   public void visitString(Field field, String value) {
     if (field instanceof FieldLiteral) {
       FieldLiteral fieldLiteral = (FieldLiteral)field;
@@ -55,7 +75,7 @@ public class ProtoReader implements ProtoVisitor {
     }
   }
 
-  public void visitBytes(Field field, byte[] value) {
+  public void visitBytes(Field field, io.vertx.core.buffer.Buffer value) {
     if (field instanceof FieldLiteral) {
       FieldLiteral fieldLiteral = (FieldLiteral)field;
       switch (fieldLiteral) {
@@ -64,7 +84,7 @@ public class ProtoReader implements ProtoVisitor {
       }
     } else if (field.isUnknown()) {
       io.vertx.protobuf.lang.MessageBase base = (io.vertx.protobuf.lang.MessageBase)stack.peek();
-      base.unknownField(field).add(io.vertx.core.buffer.Buffer.buffer(value));
+      base.appendUnknownField(field, value);
     } else if (next != null) {
       next.visitBytes(field, value);
     } else {
@@ -81,7 +101,7 @@ public class ProtoReader implements ProtoVisitor {
       }
     } else if (field.isUnknown()) {
       io.vertx.protobuf.lang.MessageBase base = (io.vertx.protobuf.lang.MessageBase)stack.peek();
-      base.unknownField(field).add(value);
+      base.appendUnknownField(field, value);
     } else if (next != null) {
       next.visitFixed32(field, value);
     } else {
@@ -98,7 +118,7 @@ public class ProtoReader implements ProtoVisitor {
       }
     } else if (field.isUnknown()) {
       io.vertx.protobuf.lang.MessageBase base = (io.vertx.protobuf.lang.MessageBase)stack.peek();
-      base.unknownField(field).add(value);
+      base.appendUnknownField(field, value);
     } else if (next != null) {
       next.visitFixed64(field, value);
     } else {
@@ -245,7 +265,7 @@ public class ProtoReader implements ProtoVisitor {
       }
     } else if (field.isUnknown()) {
       io.vertx.protobuf.lang.MessageBase base = (io.vertx.protobuf.lang.MessageBase)stack.peek();
-      base.unknownField(field).add(value);
+      base.appendUnknownField(field, value);
     } else if (next != null) {
       next.visitInt64(field, value);
     } else {
@@ -20,30 +20,12 @@ public class ProtoWriter {
       visitor.visitString(FieldLiteral.SimpleMessage_string_field, v);
     }
     if (value.getLongField() != 0L) {
-      java.lang.Long v = value.getLongField();
+      long v = value.getLongField();
       visitor.visitInt64(FieldLiteral.SimpleMessage_long_field, v);
     }
-    java.lang.Iterable<java.util.Map.Entry<io.vertx.protobuf.schema.Field, java.util.List<Object>>> unknownFields = value.unknownFields();
+    io.vertx.core.buffer.Buffer unknownFields = value.unknownFieldsBytes();
     if (unknownFields != null) {
-      for (java.util.Map.Entry<io.vertx.protobuf.schema.Field, java.util.List<Object>> unknownField : unknownFields) {
-        for (Object o : unknownField.getValue()) {
-          io.vertx.protobuf.schema.Field field = unknownField.getKey();
-          switch (field.type().wireType()) {
-            case LEN:
-              visitor.visitBytes(field, ((io.vertx.core.buffer.Buffer)o).getBytes());
-              break;
-            case I32:
-              visitor.visitFixed32(field, (Integer)o);
-              break;
-            case I64:
-              visitor.visitFixed64(field, (Long)o);
-              break;
-            case VARINT:
-              visitor.visitInt64(field, (Long)o);
-              break;
-          }
-        }
-      }
+      visitor.visitUnknownFields(value.unknownFieldsType(), unknownFields);
     }
   }
 }
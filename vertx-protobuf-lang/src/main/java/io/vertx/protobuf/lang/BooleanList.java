@@ -0,0 +1,114 @@
+package io.vertx.protobuf.lang;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code boolean} values.
+ */
+public final class BooleanList extends PrimitiveList<Boolean> {
+
+  private static final boolean[] EMPTY = new boolean[0];
+
+  private boolean[] values;
+
+  public BooleanList() {
+    values = EMPTY;
+  }
+
+  public BooleanList(int capacity) {
+    values = capacity == 0 ? EMPTY : new boolean[capacity];
+  }
+
+  /**
+   * @return a list of a copy of {@code values}
+   */
+  public static BooleanList of(boolean... values) {
+    BooleanList list = new BooleanList();
+    list.values = values.clone();
+    list.size = values.length;
+    return list;
+  }
+
+  @Override
+  public void ensureCapacity(int capacity) {
+    if (capacity > values.length) {
+      values = Arrays.copyOf(values, newCapacity(values.length, capacity));
+    }
+  }
+
+  public boolean getBoolean(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  /**
+   * @return the previous value at {@code index}
+   */
+  public boolean setBoolean(int index, boolean value) {
+    checkIndex(index);
+    boolean prev = values[index];
+    values[index] = value;
+    return prev;
+  }
+
+  public boolean add(boolean value) {
+    if (size == values.length) {
+      ensureCapacity(size + 1);
+    }
+    values[size++] = value;
+    modCount++;
+    return true;
+  }
+
+  /**
+   * Append {@code length} values of {@code src} starting at {@code offset}, the list grows at most once.
+   */
+  public void addAll(boolean[] src, int offset, int length) {
+    checkRange(src.length, offset, length);
+    ensureCapacity(size + length);
+    System.arraycopy(src, offset, values, size, length);
+    size += length;
+    modCount++;
+  }
+
+  /**
+   * @return the backing array, valid up to {@link #size()} and until the list is modified
+   */
+  public boolean[] array() {
+    return values;
+  }
+
+  public boolean[] toBooleanArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+  @Override
+  public Boolean get(int index) {
+    return getBoolean(index);
+  }
+
+  @Override
+  public Boolean set(int index, Boolean element) {
+    return setBoolean(index, element);
+  }
+
+  @Override
+  public void add(int index, Boolean element) {
+    checkPositionIndex(index);
+    ensureCapacity(size + 1);
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = element;
+    size++;
+    modCount++;
+  }
+
+  @Override
+  public Boolean remove(int index) {
+    checkIndex(index);
+    boolean prev = values[index];
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    size--;
+    modCount++;
+    return prev;
+  }
+}
@@ -0,0 +1,114 @@
+package io.vertx.protobuf.lang;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code double} values.
+ */
+public final class DoubleList extends PrimitiveList<Double> {
+
+  private static final double[] EMPTY = new double[0];
+
+  private double[] values;
+
+  public DoubleList() {
+    values = EMPTY;
+  }
+
+  public DoubleList(int capacity) {
+    values = capacity == 0 ? EMPTY : new double[capacity];
+  }
+
+  /**
+   * @return a list of a copy of {@code values}
+   */
+  public static DoubleList of(double... values) {
+    DoubleList list = new DoubleList();
+    list.values = values.clone();
+    list.size = values.length;
+    return list;
+  }
+
+  @Override
+  public void ensureCapacity(int capacity) {
+    if (capacity > values.length) {
+      values = Arrays.copyOf(values, newCapacity(values.length, capacity));
+    }
+  }
+
+  public double getDouble(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  /**
+   * @return the previous value at {@code index}
+   */
+  public double setDouble(int index, double value) {
+    checkIndex(index);
+    double prev = values[index];
+    values[index] = value;
+    return prev;
+  }
+
+  public boolean add(double value) {
+    if (size == values.length) {
+      ensureCapacity(size + 1);
+    }
+    values[size++] = value;
+    modCount++;
+    return true;
+  }
+
+  /**
+   * Append {@code length} values of {@code src} starting at {@code offset}, the list grows at most once.
+   */
+  public void addAll(double[] src, int offset, int length) {
+    checkRange(src.length, offset, length);
+    ensureCapacity(size + length);
+    System.arraycopy(src, offset, values, size, length);
+    size += length;
+    modCount++;
+  }
+
+  /**
+   * @return the backing array, valid up to {@link #size()} and until the list is modified
+   */
+  public double[] array() {
+    return values;
+  }
+
+  public double[] toDoubleArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+  @Override
+  public Double get(int index) {
+    return getDouble(index);
+  }
+
+  @Override
+  public Double set(int index, Double element) {
+    return setDouble(index, element);
+  }
+
+  @Override
+  public void add(int index, Double element) {
+    checkPositionIndex(index);
+    ensureCapacity(size + 1);
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = element;
+    size++;
+    modCount++;
+  }
+
+  @Override
+  public Double remove(int index) {
+    checkIndex(index);
+    double prev = values[index];
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    size--;
+    modCount++;
+    return prev;
+  }
+}
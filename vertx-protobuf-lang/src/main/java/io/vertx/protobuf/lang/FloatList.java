@@ -0,0 +1,114 @@
+package io.vertx.protobuf.lang;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code float} values.
+ */
+public final class FloatList extends PrimitiveList<Float> {
+
+  private static final float[] EMPTY = new float[0];
+
+  private float[] values;
+
+  public FloatList() {
+    values = EMPTY;
+  }
+
+  public FloatList(int capacity) {
+    values = capacity == 0 ? EMPTY : new float[capacity];
+  }
+
+  /**
+   * @return a list of a copy of {@code values}
+   */
+  public static FloatList of(float... values) {
+    FloatList list = new FloatList();
+    list.values = values.clone();
+    list.size = values.length;
+    return list;
+  }
+
+  @Override
+  public void ensureCapacity(int capacity) {
+    if (capacity > values.length) {
+      values = Arrays.copyOf(values, newCapacity(values.length, capacity));
+    }
+  }
+
+  public float getFloat(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  /**
+   * @return the previous value at {@code index}
+   */
+  public float setFloat(int index, float value) {
+    checkIndex(index);
+    float prev = values[index];
+    values[index] = value;
+    return prev;
+  }
+
+  public boolean add(float value) {
+    if (size == values.length) {
+      ensureCapacity(size + 1);
+    }
+    values[size++] = value;
+    modCount++;
+    return true;
+  }
+
+  /**
+   * Append {@code length} values of {@code src} starting at {@code offset}, the list grows at most once.
+   */
+  public void addAll(float[] src, int offset, int length) {
+    checkRange(src.length, offset, length);
+    ensureCapacity(size + length);
+    System.arraycopy(src, offset, values, size, length);
+    size += length;
+    modCount++;
+  }
+
+  /**
+   * @return the backing array, valid up to {@link #size()} and until the list is modified
+   */
+  public float[] array() {
+    return values;
+  }
+
+  public float[] toFloatArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+  @Override
+  public Float get(int index) {
+    return getFloat(index);
+  }
+
+  @Override
+  public Float set(int index, Float element) {
+    return setFloat(index, element);
+  }
+
+  @Override
+  public void add(int index, Float element) {
+    checkPositionIndex(index);
+    ensureCapacity(size + 1);
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = element;
+    size++;
+    modCount++;
+  }
+
+  @Override
+  public Float remove(int index) {
+    checkIndex(index);
+    float prev = values[index];
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    size--;
+    modCount++;
+    return prev;
+  }
+}
@@ -0,0 +1,114 @@
+package io.vertx.protobuf.lang;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code int} values.
+ */
+public final class IntList extends PrimitiveList<Integer> {
+
+  private static final int[] EMPTY = new int[0];
+
+  private int[] values;
+
+  public IntList() {
+    values = EMPTY;
+  }
+
+  public IntList(int capacity) {
+    values = capacity == 0 ? EMPTY : new int[capacity];
+  }
+
+  /**
+   * @return a list of a copy of {@code values}
+   */
+  public static IntList of(int... values) {
+    IntList list = new IntList();
+    list.values = values.clone();
+    list.size = values.length;
+    return list;
+  }
+
+  @Override
+  public void ensureCapacity(int capacity) {
+    if (capacity > values.length) {
+      values = Arrays.copyOf(values, newCapacity(values.length, capacity));
+    }
+  }
+
+  public int getInt(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  /**
+   * @return the previous value at {@code index}
+   */
+  public int setInt(int index, int value) {
+    checkIndex(index);
+    int prev = values[index];
+    values[index] = value;
+    return prev;
+  }
+
+  public boolean add(int value) {
+    if (size == values.length) {
+      ensureCapacity(size + 1);
+    }
+    values[size++] = value;
+    modCount++;
+    return true;
+  }
+
+  /**
+   * Append {@code length} values of {@code src} starting at {@code offset}, the list grows at most once.
+   */
+  public void addAll(int[] src, int offset, int length) {
+    checkRange(src.length, offset, length);
+    ensureCapacity(size + length);
+    System.arraycopy(src, offset, values, size, length);
+    size += length;
+    modCount++;
+  }
+
+  /**
+   * @return the backing array, valid up to {@link #size()} and until the list is modified
+   */
+  public int[] array() {
+    return values;
+  }
+
+  public int[] toIntArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+  @Override
+  public Integer get(int index) {
+    return getInt(index);
+  }
+
+  @Override
+  public Integer set(int index, Integer element) {
+    return setInt(index, element);
+  }
+
+  @Override
+  public void add(int index, Integer element) {
+    checkPositionIndex(index);
+    ensureCapacity(size + 1);
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = element;
+    size++;
+    modCount++;
+  }
+
+  @Override
+  public Integer remove(int index) {
+    checkIndex(index);
+    int prev = values[index];
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    size--;
+    modCount++;
+    return prev;
+  }
+}
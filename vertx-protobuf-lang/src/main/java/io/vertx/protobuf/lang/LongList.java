@@ -0,0 +1,114 @@
+package io.vertx.protobuf.lang;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code long} values.
+ */
+public final class LongList extends PrimitiveList<Long> {
+
+  private static final long[] EMPTY = new long[0];
+
+  private long[] values;
+
+  public LongList() {
+    values = EMPTY;
+  }
+
+  public LongList(int capacity) {
+    values = capacity == 0 ? EMPTY : new long[capacity];
+  }
+
+  /**
+   * @return a list of a copy of {@code values}
+   */
+  public static LongList of(long... values) {
+    LongList list = new LongList();
+    list.values = values.clone();
+    list.size = values.length;
+    return list;
+  }
+
+  @Override
+  public void ensureCapacity(int capacity) {
+    if (capacity > values.length) {
+      values = Arrays.copyOf(values, newCapacity(values.length, capacity));
+    }
+  }
+
+  public long getLong(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  /**
+   * @return the previous value at {@code index}
+   */
+  public long setLong(int index, long value) {
+    checkIndex(index);
+    long prev = values[index];
+    values[index] = value;
+    return prev;
+  }
+
+  public boolean add(long value) {
+    if (size == values.length) {
+      ensureCapacity(size + 1);
+    }
+    values[size++] = value;
+    modCount++;
+    return true;
+  }
+
+  /**
+   * Append {@code length} values of {@code src} starting at {@code offset}, the list grows at most once.
+   */
+  public void addAll(long[] src, int offset, int length) {
+    checkRange(src.length, offset, length);
+    ensureCapacity(size + length);
+    System.arraycopy(src, offset, values, size, length);
+    size += length;
+    modCount++;
+  }
+
+  /**
+   * @return the backing array, valid up to {@link #size()} and until the list is modified
+   */
+  public long[] array() {
+    return values;
+  }
+
+  public long[] toLongArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+  @Override
+  public Long get(int index) {
+    return getLong(index);
+  }
+
+  @Override
+  public Long set(int index, Long element) {
+    return setLong(index, element);
+  }
+
+  @Override
+  public void add(int index, Long element) {
+    checkPositionIndex(index);
+    ensureCapacity(size + 1);
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = element;
+    size++;
+    modCount++;
+  }
+
+  @Override
+  public Long remove(int index) {
+    checkIndex(index);
+    long prev = values[index];
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    size--;
+    modCount++;
+    return prev;
+  }
+}
@@ -1,6 +1,9 @@
 package io.vertx.protobuf.lang;
 
+import io.vertx.core.buffer.Buffer;
 import io.vertx.protobuf.schema.Field;
+import io.vertx.protobuf.schema.MessageType;
+import io.vertx.protobuf.schema.WireType;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -9,17 +12,206 @@ import java.util.Map;
 
 public abstract class MessageBase {
 
-  private Map<Field, List<Object>> unknownFields;
+  // Unknown fields in wire format, in the order they were read, the first run is retained as is
+  private MessageType unknownFieldsType;
+  private Buffer unknownFields;
+  private boolean unknownFieldsOwned;
+  // Unknown fields decoded when accessed, the decoded values replace the wire format as they can be modified
+  private Map<Field, List<Object>> decodedUnknownFields;
 
-  public List<Object> unknownField(Field field) {
+  /**
+   * Append unknown fields of {@code type} in wire format, from the tag of the first field to the end of the last field.
+   * <p>
+   * The first run is retained without copy, e.g. a slice of the input, the following runs are copied.
+   */
+  public void appendUnknownFields(MessageType type, Buffer bytes) {
+    if (decodedUnknownFields != null) {
+      decodeUnknownFields(type, bytes, decodedUnknownFields);
+    } else if (unknownFields == null) {
+      unknownFieldsType = type;
+      unknownFields = bytes;
+    } else {
+      ownUnknownFields(bytes.length()).appendBuffer(bytes);
+    }
+  }
+
+  /**
+   * Append the value of an unknown {@code field}: a {@link Buffer} for {@link WireType#LEN}, an {@link Integer} for
+   * {@link WireType#I32} and a {@link Long} for {@link WireType#I64} or {@link WireType#VARINT}.
+   */
+  public void appendUnknownField(Field field, Object value) {
+    if (decodedUnknownFields != null) {
+      decodedUnknownFields.computeIfAbsent(field, f -> new ArrayList<>()).add(value);
+      return;
+    }
     if (unknownFields == null) {
-      unknownFields = new LinkedHashMap<>();
+      unknownFieldsType = field.owner();
+    }
+    Buffer buffer = ownUnknownFields(20);
+    writeUnknownField(buffer, field, value);
+  }
+
+  private Buffer ownUnknownFields(int extra) {
+    if (!unknownFieldsOwned) {
+      Buffer owned = Buffer.buffer((unknownFields != null ? unknownFields.length() : 0) + extra);
+      if (unknownFields != null) {
+        owned.appendBuffer(unknownFields);
+      }
+      unknownFields = owned;
+      unknownFieldsOwned = true;
+    }
+    return unknownFields;
+  }
+
+  /**
+   * @return the unknown fields in wire format or {@code null}, encoded from their values once they have been accessed
+   *         with {@link #unknownField(Field)} or {@link #unknownFields()}
+   */
+  public Buffer unknownFieldsBytes() {
+    Map<Field, List<Object>> decoded = decodedUnknownFields;
+    if (decoded == null) {
+      return unknownFields;
+    }
+    Buffer buffer = Buffer.buffer();
+    for (Map.Entry<Field, List<Object>> entry : decoded.entrySet()) {
+      for (Object value : entry.getValue()) {
+        writeUnknownField(buffer, entry.getKey(), value);
+      }
+    }
+    return buffer.length() > 0 ? buffer : null;
+  }
+
+  /**
+   * @return the message type of the unknown fields or {@code null}
+   */
+  public MessageType unknownFieldsType() {
+    return unknownFieldsType;
+  }
+
+  /**
+   * Discard the unknown fields.
+   */
+  public void clearUnknownFields() {
+    unknownFieldsType = null;
+    unknownFields = null;
+    unknownFieldsOwned = false;
+    decodedUnknownFields = null;
+  }
+
+  /**
+   * Decode the values of an unknown {@code field}, the unknown fields are decoded once and kept decoded.
+   *
+   * @return the list of values, modifications are written with the message
+   */
+  public List<Object> unknownField(Field field) {
+    if (unknownFieldsType == null) {
+      unknownFieldsType = field.owner();
     }
-    return unknownFields.computeIfAbsent(field, f -> new ArrayList<>());
+    return decodedUnknownFields().computeIfAbsent(field, f -> new ArrayList<>());
   }
 
+  /**
+   * Decode the unknown fields, like {@link #unknownField(Field)}.
+   *
+   * @return the values of the unknown fields grouped by field or {@code null}
+   */
   public Iterable<Map.Entry<Field, List<Object>>> unknownFields() {
-    Map<Field, List<Object>> unknownFields = this.unknownFields;
-    return unknownFields != null ? unknownFields.entrySet() : null;
+    if (unknownFields == null && decodedUnknownFields == null) {
+      return null;
+    }
+    return decodedUnknownFields().entrySet();
+  }
+
+  private Map<Field, List<Object>> decodedUnknownFields() {
+    Map<Field, List<Object>> decoded = decodedUnknownFields;
+    if (decoded == null) {
+      decoded = new LinkedHashMap<>();
+      if (unknownFields != null) {
+        decodeUnknownFields(unknownFieldsType, unknownFields, decoded);
+        // The values can be modified, the wire format is not retained
+        unknownFields = null;
+        unknownFieldsOwned = false;
+      }
+      decodedUnknownFields = decoded;
+    }
+    return decoded;
+  }
+
+  private static void decodeUnknownFields(MessageType type, Buffer bytes, Map<Field, List<Object>> decoded) {
+    int[] index = new int[1];
+    int len = bytes.length();
+    while (index[0] < len) {
+      long tag = readVarInt(bytes, index);
+      WireType wireType;
+      Object value;
+      switch ((int) tag & 7) {
+        case 2:
+          wireType = WireType.LEN;
+          int length = (int) readVarInt(bytes, index);
+          value = bytes.getBuffer(index[0], index[0] + length);
+          index[0] += length;
+          break;
+        case 5:
+          wireType = WireType.I32;
+          value = bytes.getIntLE(index[0]);
+          index[0] += 4;
+          break;
+        case 1:
+          wireType = WireType.I64;
+          value = bytes.getLongLE(index[0]);
+          index[0] += 8;
+          break;
+        case 0:
+          wireType = WireType.VARINT;
+          value = readVarInt(bytes, index);
+          break;
+        default:
+          throw new IllegalStateException();
+      }
+      Field field = type.unknownField((int) (tag >>> 3), wireType);
+      decoded.computeIfAbsent(field, f -> new ArrayList<>()).add(value);
+    }
+  }
+
+  private static void writeUnknownField(Buffer buffer, Field field, Object value) {
+    WireType wireType = field.type().wireType();
+    writeVarInt(buffer, (long) field.number() << 3 | wireType.id);
+    switch (wireType) {
+      case LEN:
+        Buffer bytes = (Buffer) value;
+        writeVarInt(buffer, bytes.length());
+        buffer.appendBuffer(bytes);
+        break;
+      case I32:
+        buffer.appendIntLE((Integer) value);
+        break;
+      case I64:
+        buffer.appendLongLE((Long) value);
+        break;
+      case VARINT:
+        writeVarInt(buffer, (Long) value);
+        break;
+    }
+  }
+
+  private static long readVarInt(Buffer buffer, int[] index) {
+    long value = 0;
+    int i = index[0];
+    for (int shift = 0;;shift += 7) {
+      byte b = buffer.getByte(i++);
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        index[0] = i;
+        return value;
+      }
+    }
+  }
+
+  private static void writeVarInt(Buffer buffer, long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer.appendByte((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.appendByte((byte) value);
   }
 }
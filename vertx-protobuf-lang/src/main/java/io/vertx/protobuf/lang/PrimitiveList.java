@@ -0,0 +1,56 @@
+package io.vertx.protobuf.lang;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A growable list of primitive values backed by an array, the values of a repeated scalar field.
+ * <p>
+ * Subclasses provide unboxed accessors, the {@link java.util.List} methods box the values and remain available
+ * for compatibility.
+ */
+public abstract class PrimitiveList<E> extends AbstractList<E> implements RandomAccess {
+
+  int size;
+
+  PrimitiveList() {
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+    modCount++;
+  }
+
+  /**
+   * Ensure the list can hold {@code capacity} values without growing.
+   */
+  public abstract void ensureCapacity(int capacity);
+
+  static int newCapacity(int length, int capacity) {
+    return Math.max(capacity, length + (length >> 1) + 8);
+  }
+
+  void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  void checkPositionIndex(int index) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  static void checkRange(int arrayLength, int offset, int length) {
+    if (offset < 0 || length < 0 || offset > arrayLength - length) {
+      throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + arrayLength);
+    }
+  }
+}
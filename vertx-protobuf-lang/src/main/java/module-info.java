@@ -9,6 +9,7 @@
  * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
  */
 module io.vertx.protobuf.lang {
+  requires io.vertx.core;
   requires io.vertx.protobuf.schema;
   exports io.vertx.protobuf.lang;
 }
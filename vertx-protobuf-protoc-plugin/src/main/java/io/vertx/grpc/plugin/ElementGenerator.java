@@ -101,22 +101,58 @@ class ElementGenerator {
 
     void generate2(GenWriter writer) {
       writer.println("public " + (container != null ? "static " : "") + "class " + descriptor.getName() + " extends io.vertx.protobuf.lang.MessageBase {");
+      // Explicit presence of unboxed scalars, one bit per field
+      List<Descriptors.FieldDescriptor> tracked = fields.stream()
+        .filter(fd -> Utils.isUnboxedScalar(fd) && fd.hasPresence())
+        .collect(Collectors.toList());
+      for (int i = 0;i < tracked.size();i += 32) {
+        writer.println("  private int " + presenceBitsOf(i) + ";");
+      }
       fields.forEach(fd -> {
-        String javaType = Utils.javaTypeOf(fd);
+        String javaType = Utils.isLazyString(fd) ? "io.vertx.protobuf.Utf8String" : Utils.javaTypeOf(fd, !Utils.isUnboxedScalar(fd));
         if (javaType != null) {
           writer.print("  " + javaType + " " + Utils.nameOf(fd));
           if (fd.isMapField()) {
             writer.println(" = new java.util.HashMap<>();");
+          } else if (Utils.primitiveListTypeOf(fd) != null) {
+            writer.println(" = new " + javaType + "();");
           } else if (fd.isRepeated()) {
             writer.println(" = new java.util.ArrayList<>();");
           } else {
             writer.println(";");
           }
+          if (Utils.isLazyMessage(fd)) {
+            writer.println("  io.vertx.core.buffer.Buffer _" + Utils.nameOf(fd) + "Bytes;");
+            writer.println("  io.vertx.protobuf.ProtobufReaderOptions _" + Utils.nameOf(fd) + "Options;");
+          }
+          if (Utils.isRecyclableMessage(fd)) {
+            writer.println("  " + javaType + " _" + Utils.nameOf(fd) + "Recycled;");
+          }
         }
       });
       oneOfs.forEach(oneOf -> {
-        writer.println("  private " + Utils.nameOf(oneOf) + "<?> " + oneOf.getName() + ";");
+        if (Utils.isFlatOneof(oneOf)) {
+          // The discriminant is the number of the field set, the value is held by a slot shared by the fields
+          String prefix = "_" + oneOf.getName();
+          writer.println("  int " + prefix + "Case;");
+          if (oneOf.getFields().stream().anyMatch(fd -> !Utils.isPrimitive(fd))) {
+            writer.println("  private java.lang.Object " + prefix + "Ref;");
+          }
+          if (oneOf.getFields().stream().anyMatch(Utils::isPrimitive)) {
+            writer.println("  private long " + prefix + "Bits;");
+          }
+        } else {
+          writer.println("  private " + Utils.nameOf(oneOf) + "<?> " + oneOf.getName() + ";");
+        }
       });
+      if (Utils.useDirectWriters(descriptor.getFile())) {
+        // Memoized by ProtoWriter.computeSize, -1 when unknown
+        writer.println("  int _serializedSize = -1;");
+        if (!Utils.isDirectlyWritten(descriptor)) {
+          // Encoded by ProtoWriter.computeSize, released by ProtoWriter.writeTo
+          writer.println("  io.vertx.core.buffer.Buffer _serializedBytes;");
+        }
+      }
 //      writer.println("  public " + descriptor.getName() + " init() {\r\n");
 //      fields.forEach(field -> {
 //        if (field.getType() == Descriptors.FieldDescriptor.Type.ENUM && !field.isRepeated()) {
@@ -131,8 +167,19 @@ class ElementGenerator {
           String unboxedJavaType = Utils.javaTypeOf(field, false);
           String getter = Utils.getterOf(field);
           String setter = Utils.setterOf(field);
+          if (Utils.isLazyString(field)) {
+            generateLazyString(writer, field);
+            return;
+          }
+          if (Utils.isLazyMessage(field)) {
+            generateLazyMessage(writer, field);
+            return;
+          }
+          int presenceIndex = tracked.indexOf(field);
           writer.println("  public " + unboxedJavaType + " " + getter + "() {");
-          if (field.getType() != Descriptors.FieldDescriptor.Type.MESSAGE && !field.isRepeated()) {
+          if (Utils.isUnboxedScalar(field)) {
+            writer.println("    return " + Utils.nameOf(field) + ";");
+          } else if (field.getType() != Descriptors.FieldDescriptor.Type.MESSAGE && !field.isRepeated()) {
             writer.println("    " + boxedJavaType + " val = this." + Utils.nameOf(field) + ";");
             writer.println("    return val != null ? val : " + defaultValueOf(field) + ";");
           } else {
@@ -141,11 +188,33 @@ class ElementGenerator {
           writer.println("  };");
           writer.println("  public " + descriptor.getName() + " " + setter + "(" + unboxedJavaType + " " + Utils.nameOf(field) + ") {");
           writer.println("    this." + Utils.nameOf(field) + " = " + Utils.nameOf(field) + ";");
+          if (presenceIndex >= 0) {
+            writer.println("    this." + presenceBitsOf(presenceIndex) + " |= " + presenceMaskOf(presenceIndex) + ";");
+          }
+          invalidateSize(writer, descriptor);
           writer.println("    return this;");
           writer.println("  };");
+          if (presenceIndex >= 0) {
+            writer.println("  public boolean " + Utils.hasMethodOf(field) + "() {");
+            writer.println("    return (" + presenceBitsOf(presenceIndex) + " & " + presenceMaskOf(presenceIndex) + ") != 0;");
+            writer.println("  };");
+          }
+          if (Utils.primitiveListTypeOf(field) != null) {
+            // List view setter, the values are copied
+            writer.println("  public " + descriptor.getName() + " " + setter + "(java.util.List<" + Utils.javaTypeOfInternal(field) + "> " + Utils.nameOf(field) + ") {");
+            writer.println("    this." + Utils.nameOf(field) + " = new " + boxedJavaType + "(" + Utils.nameOf(field) + ".size());");
+            writer.println("    this." + Utils.nameOf(field) + ".addAll(" + Utils.nameOf(field) + ");");
+            invalidateSize(writer, descriptor);
+            writer.println("    return this;");
+            writer.println("  };");
+          }
         }
       });
       oneOfs.forEach(oneOf -> {
+        if (Utils.isFlatOneof(oneOf)) {
+          generateFlatOneof(writer, oneOf);
+          return;
+        }
         String getter = Utils.getterOf(oneOf);
         String setter = Utils.setterOf(oneOf);
         writer.println("  public " + Utils.nameOf(oneOf) + "<?> " + getter + "() {");
@@ -153,9 +222,21 @@ class ElementGenerator {
         writer.println("  };");
         writer.println("  public " + descriptor.getName() + " " + setter + "(" + Utils.nameOf(oneOf) + "<?> " + oneOf.getName() + ") {");
         writer.println("    this." + oneOf.getName() + " = " +  oneOf.getName() + ";");
+        invalidateSize(writer, descriptor);
         writer.println("    return this;");
         writer.println("  };");
       });
+      generateClear(writer, tracked);
+      if (Utils.useDirectParsers(descriptor.getFile())) {
+        writer.println("  public static " + descriptor.getName() + " parseFrom(io.vertx.protobuf.ProtobufDecoder decoder) {");
+        writer.println("    " + descriptor.getName() + " message = new " + descriptor.getName() + "();");
+        writer.println("    " + javaPkgFqn + ".ProtoReader.merge(decoder, message);");
+        writer.println("    return message;");
+        writer.println("  };");
+      }
+      if (Utils.useDirectWriters(descriptor.getFile())) {
+        generateDirectWriter(writer);
+      }
       oneOfs.forEach(oneOf -> {
 /*
         writer.println("  public enum " + Utils.nameOf(oneOf) + " {");
@@ -171,6 +252,9 @@ class ElementGenerator {
           writer.println("    " + field.getName().toUpperCase() + (it.hasNext() ? ", " : ""));
         }
         writer.println("  }");
+        if (Utils.isFlatOneof(oneOf)) {
+          return;
+        }
         writer.println("  public static abstract class " + Utils.nameOf(oneOf) + "<T> {");
         writer.println("    public abstract " + Utils.nameOf(oneOf) + "Discriminant discriminant();");
         writer.println("    public abstract T get();");
@@ -208,6 +292,240 @@ class ElementGenerator {
       });
       writer.println("}");
     }
+
+    // Resets the fields, allocated lists and maps are kept, nested messages are kept aside for the next decoding
+    private void generateClear(GenWriter writer, List<Descriptors.FieldDescriptor> tracked) {
+      writer.println("  public " + descriptor.getName() + " clear() {");
+      for (int i = 0;i < tracked.size();i += 32) {
+        writer.println("    " + presenceBitsOf(i) + " = 0;");
+      }
+      fields.forEach(field -> {
+        String name = Utils.nameOf(field);
+        if (Utils.javaTypeOf(field) == null) {
+          return;
+        }
+        if (Utils.primitiveListTypeOf(field) != null) {
+          writer.println("    if (" + name + " != null) {");
+          writer.println("      " + name + ".clear();");
+          writer.println("    } else {");
+          writer.println("      " + name + " = new " + Utils.primitiveListTypeOf(field) + "();");
+          writer.println("    }");
+        } else if (field.isMapField() || field.isRepeated()) {
+          // A list or map set by the user may be immutable
+          String impl = field.isMapField() ? "java.util.HashMap" : "java.util.ArrayList";
+          writer.println("    if (" + name + " instanceof " + impl + ") {");
+          writer.println("      " + name + ".clear();");
+          writer.println("    } else {");
+          writer.println("      " + name + " = new " + impl + "<>();");
+          writer.println("    }");
+        } else if (Utils.isUnboxedScalar(field)) {
+          writer.println("    " + name + " = " + defaultValueOf(field) + ";");
+        } else if (Utils.isRecyclableMessage(field)) {
+          writer.println("    if (" + name + " != null) {");
+          writer.println("      _" + name + "Recycled = " + name + ".clear();");
+          writer.println("      " + name + " = null;");
+          writer.println("    }");
+          if (Utils.isLazyMessage(field)) {
+            writer.println("    _" + name + "Bytes = null;");
+            writer.println("    _" + name + "Options = null;");
+          }
+        } else {
+          writer.println("    " + name + " = null;");
+        }
+      });
+      oneOfs.forEach(oneOf -> {
+        if (Utils.isFlatOneof(oneOf)) {
+          writer.println("    clear" + Utils.nameOf(oneOf) + "();");
+        } else {
+          writer.println("    " + oneOf.getName() + " = null;");
+        }
+      });
+      writer.println("    clearUnknownFields();");
+      invalidateSize(writer, descriptor);
+      writer.println("    return this;");
+      writer.println("  };");
+    }
+
+    // Sizing memoizes the size of each message of the graph, the writing then uses it as length prefix of nested messages
+    private void generateDirectWriter(GenWriter writer) {
+      String protoWriter = javaPkgFqn + ".ProtoWriter";
+      writer.println("  public int serializedSize() {");
+      writer.println("    return " + protoWriter + ".computeSize(this);");
+      writer.println("  };");
+      writer.println("  public void writeTo(io.vertx.protobuf.ProtobufEncoder encoder) {");
+      writer.println("    " + protoWriter + ".computeSize(this);");
+      writer.println("    " + protoWriter + ".writeTo(this, encoder);");
+      writer.println("  };");
+      writer.println("  public io.vertx.core.buffer.Buffer encode() {");
+      writer.println("    io.vertx.core.buffer.Buffer buffer = io.vertx.core.buffer.Buffer.buffer(" + protoWriter + ".computeSize(this));");
+      writer.println("    " + protoWriter + ".writeTo(this, new io.vertx.protobuf.ProtobufEncoder(buffer));");
+      writer.println("    return buffer;");
+      writer.println("  };");
+    }
+  }
+
+  private void generateFlatOneof(GenWriter writer, Descriptors.OneofDescriptor oneOf) {
+    String type = oneOf.getContainingType().getName();
+    String prefix = "_" + oneOf.getName();
+    String discriminant = Utils.nameOf(oneOf) + "Discriminant";
+    boolean hasRef = oneOf.getFields().stream().anyMatch(fd -> !Utils.isPrimitive(fd));
+    boolean hasBits = oneOf.getFields().stream().anyMatch(Utils::isPrimitive);
+    writer.println("  public " + discriminant + " " + Utils.getterOf(oneOf) + "Case() {");
+    writer.println("    switch (" + prefix + "Case) {");
+    for (Descriptors.FieldDescriptor field : oneOf.getFields()) {
+      writer.println("      case " + field.getNumber() + ":");
+      writer.println("        return " + discriminant + "." + field.getName().toUpperCase() + ";");
+    }
+    writer.println("      default:");
+    writer.println("        return null;");
+    writer.println("    }");
+    writer.println("  };");
+    writer.println("  public " + type + " clear" + Utils.nameOf(oneOf) + "() {");
+    writer.println("    " + prefix + "Case = 0;");
+    if (hasRef) {
+      writer.println("    " + prefix + "Ref = null;");
+    }
+    if (hasBits) {
+      writer.println("    " + prefix + "Bits = 0L;");
+    }
+    invalidateSize(writer, oneOf.getContainingType());
+    writer.println("    return this;");
+    writer.println("  };");
+    for (Descriptors.FieldDescriptor field : oneOf.getFields()) {
+      String javaType = Utils.javaTypeOf(field, false);
+      int number = field.getNumber();
+      String read;
+      String write;
+      switch (field.getType()) {
+        case BOOL:
+          read = prefix + "Bits != 0L";
+          write = "value ? 1L : 0L";
+          break;
+        case FLOAT:
+          read = "java.lang.Float.intBitsToFloat((int) " + prefix + "Bits)";
+          write = "java.lang.Float.floatToRawIntBits(value)";
+          break;
+        case DOUBLE:
+          read = "java.lang.Double.longBitsToDouble(" + prefix + "Bits)";
+          write = "java.lang.Double.doubleToRawLongBits(value)";
+          break;
+        case INT32:
+        case UINT32:
+        case SINT32:
+        case FIXED32:
+        case SFIXED32:
+          read = "(int) " + prefix + "Bits";
+          write = "value";
+          break;
+        case INT64:
+        case UINT64:
+        case SINT64:
+        case FIXED64:
+        case SFIXED64:
+          read = prefix + "Bits";
+          write = "value";
+          break;
+        default:
+          read = "(" + javaType + ") " + prefix + "Ref";
+          write = "java.util.Objects.requireNonNull(value)";
+          break;
+      }
+      String defaultValue = field.getType() == Descriptors.FieldDescriptor.Type.MESSAGE ? "null" : defaultValueOf(field);
+      writer.println("  public boolean " + Utils.hasMethodOf(field) + "() {");
+      writer.println("    return " + prefix + "Case == " + number + ";");
+      writer.println("  };");
+      writer.println("  public " + javaType + " " + Utils.getterOf(field) + "() {");
+      writer.println("    return " + prefix + "Case == " + number + " ? " + read + " : " + defaultValue + ";");
+      writer.println("  };");
+      writer.println("  public " + type + " " + Utils.setterOf(field) + "(" + javaType + " value) {");
+      if (Utils.isPrimitive(field)) {
+        writer.println("    " + prefix + "Bits = " + write + ";");
+        if (hasRef) {
+          writer.println("    " + prefix + "Ref = null;");
+        }
+      } else {
+        writer.println("    " + prefix + "Ref = " + write + ";");
+        if (hasBits) {
+          writer.println("    " + prefix + "Bits = 0L;");
+        }
+      }
+      writer.println("    " + prefix + "Case = " + number + ";");
+      invalidateSize(writer, oneOf.getContainingType());
+      writer.println("    return this;");
+      writer.println("  };");
+    }
+  }
+
+  private static void invalidateSize(GenWriter writer, Descriptors.Descriptor message) {
+    if (Utils.useDirectWriters(message.getFile())) {
+      writer.println("    _serializedSize = -1;");
+      if (!Utils.isDirectlyWritten(message)) {
+        writer.println("    _serializedBytes = null;");
+      }
+    }
+  }
+
+  private static String presenceBitsOf(int index) {
+    return "_presence" + (index >> 5);
+  }
+
+  private static String presenceMaskOf(int index) {
+    return "0x" + Integer.toHexString(1 << (index & 31));
+  }
+
+  private void generateLazyString(GenWriter writer, Descriptors.FieldDescriptor field) {
+    String name = Utils.nameOf(field);
+    String type = field.getContainingType().getName();
+    writer.println("  public java.lang.String " + Utils.getterOf(field) + "() {");
+    writer.println("    io.vertx.protobuf.Utf8String val = this." + name + ";");
+    writer.println("    return val != null ? val.toString() : " + defaultValueOf(field) + ";");
+    writer.println("  };");
+    writer.println("  public " + type + " " + Utils.setterOf(field) + "(java.lang.String " + name + ") {");
+    writer.println("    this." + name + " = " + name + " != null ? io.vertx.protobuf.Utf8String.of(" + name + ") : null;");
+    invalidateSize(writer, field.getContainingType());
+    writer.println("    return this;");
+    writer.println("  };");
+    writer.println("  public " + type + " " + Utils.setterOf(field) + "(io.vertx.protobuf.Utf8String " + name + ") {");
+    writer.println("    this." + name + " = " + name + ";");
+    invalidateSize(writer, field.getContainingType());
+    writer.println("    return this;");
+    writer.println("  };");
+  }
+
+  private void generateLazyMessage(GenWriter writer, Descriptors.FieldDescriptor field) {
+    String name = Utils.nameOf(field);
+    String type = field.getContainingType().getName();
+    String javaType = Utils.javaTypeOf(field);
+    String pkg = Utils.extractJavaPkgFqn(field.getMessageType().getFile());
+    String literal = pkg + ".MessageLiteral." + Utils.literalIdentifier(field.getMessageType());
+    // The encoded bytes are decoded on first access, with the options of the reader that read them
+    writer.println("  public " + javaType + " " + Utils.getterOf(field) + "() {");
+    writer.println("    io.vertx.core.buffer.Buffer bytes = _" + name + "Bytes;");
+    writer.println("    if (bytes != null) {");
+    writer.println("      " + pkg + ".ProtoReader reader = new " + pkg + ".ProtoReader().mergeInto(_" + name + "Recycled);");
+    writer.println("      io.vertx.protobuf.ProtobufReaderOptions options = _" + name + "Options;");
+    writer.println("      if (options != null) {");
+    writer.println("        io.vertx.protobuf.ProtobufReader.parse(" + literal + ", reader, io.vertx.protobuf.ProtobufDecoder.create(bytes), options);");
+    writer.println("      } else {");
+    writer.println("        io.vertx.protobuf.ProtobufReader.parse(" + literal + ", reader, bytes);");
+    writer.println("      }");
+    writer.println("      this." + name + " = (" + javaType + ") reader.stack.pop();");
+    writer.println("      _" + name + "Bytes = null;");
+    writer.println("      _" + name + "Options = null;");
+    writer.println("      _" + name + "Recycled = null;");
+    writer.println("    }");
+    writer.println("    return this." + name + ";");
+    writer.println("  };");
+    writer.println("  public " + type + " " + Utils.setterOf(field) + "(" + javaType + " value) {");
+    writer.println("    this." + name + " = value;");
+    writer.println("    this._" + name + "Bytes = null;");
+    writer.println("    this._" + name + "Options = null;");
+    invalidateSize(writer, field.getContainingType());
+    writer.println("    return this;");
+    writer.println("  };");
+    writer.println("  public boolean " + Utils.hasMethodOf(field) + "() {");
+    writer.println("    return this." + name + " != null || _" + name + "Bytes != null;");
+    writer.println("  };");
   }
 
   private static String defaultValueOf(Descriptors.FieldDescriptor field) {
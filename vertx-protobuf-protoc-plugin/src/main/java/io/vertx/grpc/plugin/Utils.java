@@ -47,10 +47,185 @@ public class Utils {
     return fd.getOptions().getExtension(VertxProto.vertxTimestamp);
   }
 
+  public static boolean useLazyString(Descriptors.FileDescriptor fd) {
+    return fd.getOptions().getExtension(VertxProto.vertxLazyString);
+  }
+
+  /**
+   * @return whether the field value is held by a {@code Utf8String} decoded on first access
+   */
+  public static boolean isLazyString(Descriptors.FieldDescriptor field) {
+    return field.getType() == Descriptors.FieldDescriptor.Type.STRING &&
+      !field.isRepeated() &&
+      field.getRealContainingOneof() == null &&
+      !field.getContainingType().toProto().getOptions().getMapEntry() &&
+      useLazyString(field.getFile());
+  }
+
+  /**
+   * @return whether a singular scalar field is held by a primitive Java field, its explicit presence is tracked by a bit
+   */
+  public static boolean isUnboxedScalar(Descriptors.FieldDescriptor field) {
+    return !field.isRepeated() &&
+      field.getRealContainingOneof() == null &&
+      isPrimitive(field);
+  }
+
+  public static boolean useFlatOneofs(Descriptors.FileDescriptor fd) {
+    return fd.getOptions().getExtension(VertxProto.vertxFlatOneofs);
+  }
+
+  /**
+   * @return whether the oneof is held by a discriminant and shared slots instead of a wrapper object
+   */
+  public static boolean isFlatOneof(Descriptors.OneofDescriptor oneOf) {
+    return useFlatOneofs(oneOf.getFile());
+  }
+
+  /**
+   * @return whether a singular message field keeps its encoded bytes until the getter is called
+   */
+  public static boolean isLazyMessage(Descriptors.FieldDescriptor field) {
+    return isRecyclableMessage(field) && field.getOptions().getExtension(VertxProto.vertxLazyMessage);
+  }
+
+  /**
+   * @return whether a singular message field keeps its cleared instance to decode the next value into
+   */
+  public static boolean isRecyclableMessage(Descriptors.FieldDescriptor field) {
+    if (field.getType() != Descriptors.FieldDescriptor.Type.MESSAGE ||
+      field.isRepeated() ||
+      field.getRealContainingOneof() != null) {
+      return false;
+    }
+    return !isInterop(field);
+  }
+
+  public static boolean useDirectParsers(Descriptors.FileDescriptor fd) {
+    return fd.getOptions().getExtension(VertxProto.vertxDirectParsers);
+  }
+
+  public static boolean useDirectWriters(Descriptors.FileDescriptor fd) {
+    return fd.getOptions().getExtension(VertxProto.vertxDirectWriters);
+  }
+
+  /**
+   * @return whether the message is written field by field, otherwise it is written by the visitor
+   */
+  public static boolean isDirectlyWritten(Descriptors.Descriptor message) {
+    if (!useDirectWriters(message.getFile())) {
+      return false;
+    }
+    for (Descriptors.FieldDescriptor field : message.getFields()) {
+      if (field.isMapField()) {
+        field = field.getMessageType().getFields().get(1);
+      }
+      if (field.getType() == Descriptors.FieldDescriptor.Type.MESSAGE &&
+        (isInterop(field) || !useDirectWriters(field.getMessageType().getFile()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return whether a message field value is mapped to a Java type instead of a generated message
+   */
+  public static boolean isInterop(Descriptors.FieldDescriptor field) {
+    if (field.getType() != Descriptors.FieldDescriptor.Type.MESSAGE) {
+      return false;
+    }
+    Descriptors.Descriptor messageType = field.getMessageType();
+    return isStruct(messageType) && useJsonObject(field.getFile()) ||
+      isDuration(messageType) && useDuration(field.getFile()) ||
+      isTimestamp(messageType) && useTimestamp(field.getFile());
+  }
+
+  public static int tagOf(Descriptors.FieldDescriptor fd, int wireType) {
+    return fd.getNumber() << 3 | wireType;
+  }
+
+  /**
+   * @return the wire type of a single value of the field
+   */
+  public static int wireTypeOf(Descriptors.FieldDescriptor fd) {
+    switch (fd.getType()) {
+      case FIXED64:
+      case SFIXED64:
+      case DOUBLE:
+        return 1;
+      case STRING:
+      case BYTES:
+      case MESSAGE:
+        return 2;
+      case FIXED32:
+      case SFIXED32:
+      case FLOAT:
+        return 5;
+      default:
+        return 0;
+    }
+  }
+
+  public static boolean usePrimitiveLists(Descriptors.FileDescriptor fd) {
+    return fd.getOptions().getExtension(VertxProto.vertxPrimitiveLists);
+  }
+
+  /**
+   * @return the primitive list type holding the values of a repeated scalar field or {@code null}
+   */
+  public static String primitiveListTypeOf(Descriptors.FieldDescriptor field) {
+    if (!field.isRepeated() || field.isMapField() || !isPrimitive(field) || !usePrimitiveLists(field.getFile())) {
+      return null;
+    }
+    switch (field.getType()) {
+      case BOOL:
+        return "io.vertx.protobuf.lang.BooleanList";
+      case FLOAT:
+        return "io.vertx.protobuf.lang.FloatList";
+      case DOUBLE:
+        return "io.vertx.protobuf.lang.DoubleList";
+      case INT64:
+      case UINT64:
+      case SINT64:
+      case FIXED64:
+      case SFIXED64:
+        return "io.vertx.protobuf.lang.LongList";
+      default:
+        return "io.vertx.protobuf.lang.IntList";
+    }
+  }
+
+  /**
+   * @return the {@code ProtoVisitor} method visiting the values of a repeated scalar field at once
+   */
+  public static String packedVisitMethodOf(Descriptors.FieldDescriptor field) {
+    switch (field.getType()) {
+      case BOOL:
+        return "visitPackedBools";
+      case FLOAT:
+        return "visitPackedFloats";
+      case DOUBLE:
+        return "visitPackedDoubles";
+      case INT64:
+      case UINT64:
+      case SINT64:
+      case FIXED64:
+      case SFIXED64:
+        return "visitPackedInt64s";
+      default:
+        return "visitPackedInt32s";
+    }
+  }
+
   public static String setterOf(Descriptors.FieldDescriptor field) {
     return "set" + Character.toUpperCase(field.getJsonName().charAt(0)) + field.getJsonName().substring(1);
   }
 
+  public static String hasMethodOf(Descriptors.FieldDescriptor field) {
+    return "has" + Character.toUpperCase(field.getJsonName().charAt(0)) + field.getJsonName().substring(1);
+  }
+
   public static String getterOf(Descriptors.FieldDescriptor field) {
     return "get" + Character.toUpperCase(field.getJsonName().charAt(0)) + field.getJsonName().substring(1);
   }
@@ -165,6 +340,10 @@ public class Utils {
       return "java.util.Map<" + keyType + ", " + valueType + ">";
     } else {
       if (field.isRepeated()) {
+        String primitiveListType = primitiveListTypeOf(field);
+        if (primitiveListType != null) {
+          return primitiveListType;
+        }
         String componentType = javaTypeOfInternal(field, true);
         if (componentType != null) {
           return "java.util.List<" + componentType + ">";
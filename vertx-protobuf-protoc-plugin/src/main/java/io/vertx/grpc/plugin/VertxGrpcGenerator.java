@@ -24,7 +24,13 @@ public class VertxGrpcGenerator implements Callable<Integer> {
       AnnotationsProto.http,
       VertxProto.vertxJsonObject,
       VertxProto.vertxDuration,
-      VertxProto.vertxTimestamp
+      VertxProto.vertxTimestamp,
+      VertxProto.vertxLazyString,
+      VertxProto.vertxPrimitiveLists,
+      VertxProto.vertxFlatOneofs,
+      VertxProto.vertxDirectParsers,
+      VertxProto.vertxDirectWriters,
+      VertxProto.vertxLazyMessage
     ));
     return 0;
   }
@@ -63,11 +63,18 @@ public class ProtoReaderGenerator {
     public boolean imported;
     public boolean oneOf;
     public String oneOfJavaType;
+    public boolean lazyString;
+    public boolean primitiveList;
+    public String packedVisitMethod;
+    public boolean lazyMessage;
+    public boolean recyclable;
+    public String fieldName;
   }
 
   public String generate() {
 
     List<FieldDescriptor> collected = new ArrayList<>();
+    Map<Descriptors.FieldDescriptor, FieldDescriptor> byField = new HashMap<>();
 
     for (Descriptors.Descriptor mt : fileDesc) {
 
@@ -141,9 +148,6 @@ public class ProtoReaderGenerator {
               converter = s -> Utils.javaTypeOfInternal(fd) + ".valueOf(" + s + ")";
             }
             break;
-          case BYTES:
-            converter = s -> "io.vertx.core.buffer.Buffer.buffer(" + s + ")";
-            break;
           default:
             converter = Function.identity();
             break;
@@ -154,7 +158,13 @@ public class ProtoReaderGenerator {
         descriptor.javaType = Utils.javaTypeOf(fd);
         descriptor.javaTypeInternal = Utils.javaTypeOfInternal(fd);
         descriptor.repeated = fd.isRepeated();
+        descriptor.lazyString = Utils.isLazyString(fd);
+        descriptor.primitiveList = Utils.primitiveListTypeOf(fd) != null;
+        descriptor.packedVisitMethod = descriptor.primitiveList ? Utils.packedVisitMethodOf(fd) : null;
         descriptor.containingJavaType = Utils.javaTypeOf(fd.getContainingType());
+        descriptor.lazyMessage = Utils.isLazyMessage(fd);
+        descriptor.recyclable = Utils.isRecyclableMessage(fd);
+        descriptor.fieldName = Utils.nameOf(fd);
 
         if (fd.getType() == Descriptors.FieldDescriptor.Type.MESSAGE) {
           if (Utils.isStruct(fd.getMessageType()) && Utils.useJsonObject(fd.getFile()) ||
@@ -204,7 +214,7 @@ public class ProtoReaderGenerator {
         }
 
         Descriptors.OneofDescriptor oneOf = oneOfMap.get(fd);
-        if (oneOf != null) {
+        if (oneOf != null && !Utils.isFlatOneof(oneOf)) {
           descriptor.oneOf = true;
           descriptor.oneOfJavaType = Utils.javaTypeOf(oneOf);
           descriptor.getterMethod = Utils.getterOf(oneOf);
@@ -220,6 +230,7 @@ public class ProtoReaderGenerator {
         }
 
         collected.add(descriptor);
+        byField.put(fd, descriptor);
 //
 //        if (descriptor.packed) {
 //          throw new UnsupportedOperationException("Handle me " + descriptor.javaType);
@@ -243,11 +254,21 @@ public class ProtoReaderGenerator {
       "",
       "  public final Deque<Object> stack;",
       "  private ProtoVisitor next;",
+      "  private Object target;",
       "",
       "  public ProtoReader(Deque<Object> stack) {",
       "    this.stack = stack;", "  }",
       "", "  public ProtoReader() {",
       "    this(new ArrayDeque<>());",
+      "  }",
+      "",
+      "  /**",
+      "   * Decode the next message into {@code message} instead of a new instance, the message is merged with the decoded",
+      "   * fields and pushed on the stack.",
+      "   */",
+      "  public ProtoReader mergeInto(Object message) {",
+      "    this.target = message;",
+      "    return this;",
       "  }");
 
     // **************
@@ -259,12 +280,15 @@ public class ProtoReaderGenerator {
       "  public void init(MessageType type) {",
       "    if (type instanceof MessageLiteral) {",
       "      MessageLiteral literal = (MessageLiteral)type;",
+      "      Object message = target;",
+      "      target = null;",
       "      switch (literal) {"
     );
     for (Descriptors.Descriptor messageType : fileDesc) {
+      String javaType = Utils.javaTypeOf(messageType);
       out.println(
         "        case " + Utils.literalIdentifier(messageType) + ": {",
-        "          stack.push(new " + Utils.javaTypeOf(messageType) + "());",
+        "          stack.push(message != null ? (" + javaType + ")message : new " + javaType + "());",
         "          break;",
         "        }");
     }
@@ -279,6 +303,36 @@ public class ProtoReaderGenerator {
       "    }",
       "  }");
 
+    // **************
+    // VISIT BYTES
+    // **************
+
+    // Copied bytes are wrapped and handled by the Buffer variant that stores slices as is
+    out.println(
+      "",
+      "  public void visitBytes(Field field, byte[] value) {",
+      "    if (field instanceof FieldLiteral || field.isUnknown()) {",
+      "      visitBytes(field, io.vertx.core.buffer.Buffer.buffer(value));",
+      "    } else if (next != null) {",
+      "      next.visitBytes(field, value);",
+      "    } else {",
+      "      throw new UnsupportedOperationException();",
+      "    }",
+      "  }");
+
+    // Unknown fields are retained in wire format
+    out.println(
+      "",
+      "  public void visitUnknownFields(MessageType type, io.vertx.core.buffer.Buffer bytes) {",
+      "    if (type instanceof MessageLiteral) {",
+      "      ((io.vertx.protobuf.lang.MessageBase)stack.peek()).appendUnknownFields(type, bytes);",
+      "    } else if (next != null) {",
+      "      next.visitUnknownFields(type, bytes);",
+      "    } else {",
+      "      throw new UnsupportedOperationException();",
+      "    }",
+      "  }");
+
     // **************
     // VISIT STRING
     // **************
@@ -299,7 +353,7 @@ public class ProtoReaderGenerator {
 
     VisitMethod[] visitMethods = {
       new VisitMethod("visitString(Field field, String value)", "visitString(field, value)", Descriptors.FieldDescriptor.Type.STRING, false),
-      new VisitMethod("visitBytes(Field field, byte[] value)", "visitBytes(field, value)", Descriptors.FieldDescriptor.Type.BYTES, true),
+      new VisitMethod("visitBytes(Field field, io.vertx.core.buffer.Buffer value)", "visitBytes(field, value)", Descriptors.FieldDescriptor.Type.BYTES, true),
       new VisitMethod("visitFixed32(Field field, int value)", "visitFixed32(field, value)", Descriptors.FieldDescriptor.Type.FIXED32, true),
       new VisitMethod("visitFixed64(Field field, long value)", "visitFixed64(field, value)", Descriptors.FieldDescriptor.Type.FIXED64, true),
       new VisitMethod("visitSFixed32(Field field, int value)", "visitSFixed32(field, value)", Descriptors.FieldDescriptor.Type.SFIXED32, false),
@@ -335,7 +389,7 @@ public class ProtoReaderGenerator {
           out.println(
             "          " + fd.containingJavaType + " messageFields = (" + fd.containingJavaType + ")stack.peek()" + ";",
             "          if (messageFields." + fd.getterMethod + "() == null) {",
-            "            messageFields." + fd.setterMethod + "(new java.util.ArrayList<>());",
+            "            messageFields." + fd.setterMethod + "(new " + (fd.primitiveList ? fd.javaType + "()" : "java.util.ArrayList<>()") + ");",
             "          }",
             "          messageFields." + fd.getterMethod + "().add(" + fd.wrapper.apply("value") + ");");
         } else {
@@ -352,20 +406,7 @@ public class ProtoReaderGenerator {
         out.println(
           "    } else if (field.isUnknown()) {",
           "      io.vertx.protobuf.lang.MessageBase base = (io.vertx.protobuf.lang.MessageBase)stack.peek();");
-        switch (visitMethod.type) {
-          case BYTES:
-            out.println("      base.unknownField(field).add(io.vertx.core.buffer.Buffer.buffer(value));");
-            break;
-          case FIXED32:
-            out.println("      base.unknownField(field).add(value);");
-            break;
-          case FIXED64:
-            out.println("      base.unknownField(field).add(value);");
-            break;
-          case INT64:
-            out.println("      base.unknownField(field).add(value);");
-            break;
-        }
+        out.println("      base.appendUnknownField(field, value);");
       }
       out.println(
         "    } else if (next != null) {");
@@ -378,6 +419,145 @@ public class ProtoReaderGenerator {
       out.println("  }");
     }
 
+    // **************
+    // VISIT LAZY STRING
+    // **************
+
+    List<FieldDescriptor> lazyStrings = collected.stream().filter(fd -> fd.lazyString).collect(Collectors.toList());
+    if (!lazyStrings.isEmpty()) {
+      out.println(
+        "",
+        "  public void visitString(Field field, io.vertx.protobuf.Utf8String value) {",
+        "    if (field instanceof FieldLiteral) {",
+        "      FieldLiteral fieldLiteral = (FieldLiteral)field;",
+        "      switch (fieldLiteral) {");
+      for (FieldDescriptor fd : lazyStrings) {
+        out.println(
+          "        case " + fd.identifier + ": {",
+          "          ((" + fd.containingJavaType + ")stack.peek())." + fd.setterMethod + "(value);",
+          "          break;",
+          "        }");
+      }
+      out.println(
+        "        default:",
+        "          visitString(field, value.toString());",
+        "          break;",
+        "      }",
+        "    } else if (next != null) {",
+        "      next.visitString(field, value);",
+        "    } else {",
+        "      throw new UnsupportedOperationException();",
+        "    }",
+        "  }");
+    }
+
+    // **************
+    // VISIT PACKED
+    // **************
+
+    // Primitive lists append the values at once, growing at most once per packed field
+    String[][] packedMethods = {
+      { "visitPackedInt32s", "int" },
+      { "visitPackedInt64s", "long" },
+      { "visitPackedFloats", "float" },
+      { "visitPackedDoubles", "double" },
+      { "visitPackedBools", "boolean" }
+    };
+    for (String[] packedMethod : packedMethods) {
+      String method = packedMethod[0];
+      List<FieldDescriptor> primitiveLists = collected.stream().filter(fd -> method.equals(fd.packedVisitMethod)).collect(Collectors.toList());
+      if (primitiveLists.isEmpty()) {
+        continue;
+      }
+      out.println(
+        "",
+        "  public void " + method + "(Field field, " + packedMethod[1] + "[] values, int offset, int length) {",
+        "    if (field instanceof FieldLiteral) {",
+        "      FieldLiteral fieldLiteral = (FieldLiteral)field;",
+        "      switch (fieldLiteral) {");
+      for (FieldDescriptor fd : primitiveLists) {
+        out.println(
+          "        case " + fd.identifier + ": {",
+          "          " + fd.containingJavaType + " messageFields = (" + fd.containingJavaType + ")stack.peek();",
+          "          if (messageFields." + fd.getterMethod + "() == null) {",
+          "            messageFields." + fd.setterMethod + "(new " + fd.javaType + "(length));",
+          "          }",
+          "          messageFields." + fd.getterMethod + "().addAll(values, offset, length);",
+          "          break;",
+          "        }");
+      }
+      out.println(
+        "        default:",
+        "          ProtoVisitor.super." + method + "(field, values, offset, length);",
+        "          break;",
+        "      }",
+        "    } else if (next != null) {",
+        "      next." + method + "(field, values, offset, length);",
+        "    } else {",
+        "      throw new UnsupportedOperationException();",
+        "    }",
+        "  }");
+    }
+
+    // **************
+    // VISIT LAZY MESSAGE
+    // **************
+
+    // The first occurrence keeps the encoded bytes, a later one is merged into the decoded message
+    List<FieldDescriptor> lazyMessages = collected.stream().filter(fd -> fd.lazyMessage).collect(Collectors.toList());
+    if (!lazyMessages.isEmpty()) {
+      out.println(
+        "",
+        "  public boolean isLazy(Field field) {",
+        "    if (field instanceof FieldLiteral) {",
+        "      FieldLiteral fieldLiteral = (FieldLiteral)field;",
+        "      switch (fieldLiteral) {");
+      for (FieldDescriptor fd : lazyMessages) {
+        out.println("        case " + fd.identifier + ":");
+      }
+      out.println(
+        "          return true;",
+        "        default:",
+        "          return false;",
+        "      }",
+        "    } else if (next != null) {",
+        "      return next.isLazy(field);",
+        "    } else {",
+        "      return false;",
+        "    }",
+        "  }");
+      out.println(
+        "",
+        "  public void visitMessage(Field field, io.vertx.core.buffer.Buffer bytes) {",
+        "    if (field instanceof FieldLiteral) {",
+        "      FieldLiteral fieldLiteral = (FieldLiteral)field;",
+        "      switch (fieldLiteral) {");
+      for (FieldDescriptor fd : lazyMessages) {
+        out.println(
+          "        case " + fd.identifier + ": {",
+          "          " + fd.containingJavaType + " container = (" + fd.containingJavaType + ")stack.peek();",
+          "          if (container." + fd.fieldName + " == null && container._" + fd.fieldName + "Bytes == null) {",
+          "            container._" + fd.fieldName + "Bytes = bytes;",
+          "            container._" + fd.fieldName + "Options = " + PROTOBUF_READER + ".currentOptions();",
+          "          } else {",
+          "            ProtoVisitor.super.visitMessage(field, bytes);",
+          "          }",
+          "          break;",
+          "        }");
+      }
+      out.println(
+        "        default:",
+        "          ProtoVisitor.super.visitMessage(field, bytes);",
+        "          break;",
+        "      }",
+        "    } else if (next != null) {",
+        "      next.visitMessage(field, bytes);",
+        "    } else {",
+        "      throw new UnsupportedOperationException();",
+        "    }",
+        "  }");
+    }
+
     // **************
     // ENTER
     // **************
@@ -418,7 +598,15 @@ public class ProtoReaderGenerator {
                 out.println("          v = container." + field.getterMethod + "();");
               }
               out.println("          if (v == null) {");
-              out.println("            v = " + "new " + initExpression + "()" + ";");
+              if (field.recyclable) {
+                out.println("            v = container._" + field.fieldName + "Recycled;");
+                out.println("            container._" + field.fieldName + "Recycled = null;");
+                out.println("            if (v == null) {");
+                out.println("              v = " + "new " + initExpression + "()" + ";");
+                out.println("            }");
+              } else {
+                out.println("            v = " + "new " + initExpression + "()" + ";");
+              }
               out.println("          }");
             }
             out.println("          stack.push(v);");
@@ -585,8 +773,219 @@ public class ProtoReaderGenerator {
       "    }",
       "  }");
 
+    // **************
+    // DIRECT PARSERS
+    // **************
+
+    for (Descriptors.Descriptor messageType : fileDesc) {
+      if (Utils.useDirectParsers(messageType.getFile())) {
+        generateMerge(out, messageType, byField);
+      }
+    }
+
     out.println("}");
 
     return out.toString();
   }
+
+  private static final String PROTOBUF_READER = "io.vertx.protobuf.ProtobufReader";
+
+  /**
+   * Generate a parser assigning the fields read from the decoder, the tag selects the field directly instead of
+   * visiting it. A message with a field mapped to a Java type is parsed with the visitor.
+   */
+  private void generateMerge(GenWriter out, Descriptors.Descriptor messageType, Map<Descriptors.FieldDescriptor, FieldDescriptor> byField) {
+    String javaType = Utils.javaTypeOf(messageType);
+    String literal = "MessageLiteral." + Utils.literalIdentifier(messageType);
+    out.println(
+      "",
+      "  public static void merge(io.vertx.protobuf.ProtobufDecoder decoder, " + javaType + " message) {");
+    if (messageType.getFields().stream().anyMatch(Utils::isInterop)) {
+      out.println(
+        "    " + PROTOBUF_READER + ".parse(" + literal + ", new ProtoReader().mergeInto(message), decoder);",
+        "  }");
+      return;
+    }
+    out.println(
+      "    for (int start = decoder.index();decoder.readTag();start = decoder.index()) {",
+      "      switch (decoder.tag()) {");
+    for (Descriptors.FieldDescriptor fd : messageType.getFields()) {
+      FieldDescriptor field = byField.get(fd);
+      if (field == null) {
+        continue;
+      }
+      if (fd.getType() == Descriptors.FieldDescriptor.Type.MESSAGE) {
+        out.println("        case " + Utils.tagOf(fd, 2) + ": {");
+        generateMergeMessage(out, fd, field);
+      } else {
+        out.println("        case " + Utils.tagOf(fd, Utils.wireTypeOf(fd)) + ": {");
+        if (fd.isRepeated()) {
+          listOf(out, field);
+          out.println("          list.add(" + field.wrapper.apply(readValue(out, fd)) + ");");
+        } else {
+          out.println("          message." + field.setterMethod + "(" + field.wrapper.apply(readValue(out, fd)) + ");");
+        }
+        if (fd.isRepeated() && Utils.wireTypeOf(fd) != 2) {
+          // Packed
+          out.println(
+            "          break;",
+            "        }",
+            "        case " + Utils.tagOf(fd, 2) + ": {");
+          listOf(out, field);
+          out.println(
+            "          int length = decoder.decodeVarInt32();",
+            "          int limit = decoder.len();",
+            "          decoder.len(decoder.index() + length);",
+            "          while (decoder.isReadable()) {");
+          out.margin(2);
+          String value = readValue(out, fd);
+          out.margin(0);
+          out.println(
+            "            list.add(" + field.wrapper.apply(value) + ");",
+            "          }",
+            "          decoder.len(limit);");
+        }
+      }
+      out.println(
+        "          break;",
+        "        }");
+    }
+    out.println(
+      "        default:",
+      "          message.appendUnknownFields(" + literal + ", " + PROTOBUF_READER + ".readUnknownField(decoder, start));",
+      "          break;",
+      "      }",
+      "    }",
+      "  }");
+  }
+
+  private void generateMergeMessage(GenWriter out, Descriptors.FieldDescriptor fd, FieldDescriptor field) {
+    String name = field.fieldName;
+    out.println("          int length = decoder.decodeVarInt32();");
+    if (field.lazyMessage) {
+      out.println(
+        "          if (message." + name + " == null && message._" + name + "Bytes == null) {",
+        "            message._" + name + "Bytes = io.vertx.core.buffer.Buffer.buffer(decoder.readBytes(length));",
+        "            break;",
+        "          }");
+    }
+    out.println(
+      "          int limit = decoder.len();",
+      "          decoder.len(decoder.index() + length);");
+    if (fd.isMapField()) {
+      Descriptors.FieldDescriptor value = fd.getMessageType().getFields().get(1);
+      String valueJavaType = Utils.javaTypeOf(value);
+      out.println("          " + field.mapJavaType + " entry = new " + field.mapJavaType + "();");
+      out.println("          " + mergeOf(fd.getMessageType(), "entry"));
+      out.println(
+        "          decoder.len(limit);",
+        "          " + valueJavaType + " value = entry." + Utils.getterOf(value) + "();");
+      if (value.getType() == Descriptors.FieldDescriptor.Type.MESSAGE) {
+        out.println(
+          "          if (value == null) {",
+          "            value = new " + valueJavaType + "();",
+          "          }");
+      }
+      out.println(
+        "          " + field.javaType + " entries = message." + field.getterMethod + "();",
+        "          if (entries == null) {",
+        "            entries = new java.util.HashMap<>();",
+        "            message." + field.setterMethod + "(entries);",
+        "          }",
+        "          entries.put(entry." + Utils.getterOf(fd.getMessageType().getFields().get(0)) + "(), value);");
+      return;
+    }
+    String javaType = Utils.javaTypeOf(fd.getMessageType());
+    if (fd.isRepeated()) {
+      out.println("          " + javaType + " v = new " + javaType + "();");
+    } else {
+      out.println("          " + javaType + " v;");
+      if (field.oneOf) {
+        out.println(
+          "          " + field.oneOfJavaType + "<?> oneOf = message." + field.getterMethod + "();",
+          "          v = oneOf != null ? " + field.unwrapper.apply("oneOf") + " : null;");
+      } else {
+        out.println("          v = message." + field.getterMethod + "();");
+      }
+      out.println("          if (v == null) {");
+      if (field.recyclable) {
+        out.println(
+          "            v = message._" + name + "Recycled;",
+          "            message._" + name + "Recycled = null;",
+          "            if (v == null) {",
+          "              v = new " + javaType + "();",
+          "            }");
+      } else {
+        out.println("            v = new " + javaType + "();");
+      }
+      out.println("          }");
+    }
+    out.println(
+      "          " + mergeOf(fd.getMessageType(), "v"),
+      "          decoder.len(limit);");
+    if (fd.isRepeated()) {
+      listOf(out, field);
+      out.println("          list.add(v);");
+    } else {
+      out.println("          message." + field.setterMethod + "(" + field.wrapper.apply("v") + ");");
+    }
+  }
+
+  private static String mergeOf(Descriptors.Descriptor messageType, String target) {
+    String pkg = Utils.extractJavaPkgFqn(messageType.getFile());
+    if (Utils.useDirectParsers(messageType.getFile())) {
+      return pkg + ".ProtoReader.merge(decoder, " + target + ");";
+    } else {
+      return PROTOBUF_READER + ".parse(" + pkg + ".MessageLiteral." + Utils.literalIdentifier(messageType) + ", new " + pkg + ".ProtoReader().mergeInto(" + target + "), decoder);";
+    }
+  }
+
+  // The list of a repeated field, created when missing
+  private static void listOf(GenWriter out, FieldDescriptor field) {
+    out.println(
+      "          " + field.javaType + " list = message." + field.getterMethod + "();",
+      "          if (list == null) {",
+      "            list = new " + (field.primitiveList ? field.javaType + "()" : "java.util.ArrayList<>()") + ";",
+      "            message." + field.setterMethod + "(list);",
+      "          }");
+  }
+
+  // Print the statements reading a scalar value and return the expression of the value
+  private static String readValue(GenWriter out, Descriptors.FieldDescriptor fd) {
+    switch (fd.getType()) {
+      case INT32:
+      case UINT32:
+      case ENUM:
+        return "decoder.decodeVarInt32()";
+      case SINT32:
+        return PROTOBUF_READER + ".decodeSInt32(decoder.decodeVarInt32())";
+      case INT64:
+      case UINT64:
+        return "decoder.decodeVarInt64()";
+      case SINT64:
+        return PROTOBUF_READER + ".decodeSInt64(decoder.decodeVarInt64())";
+      case BOOL:
+        return "decoder.decodeVarInt64() != 0";
+      case FIXED32:
+      case SFIXED32:
+        out.println("          decoder.readI32();");
+        return "decoder.intValue()";
+      case FLOAT:
+        out.println("          decoder.readI32();");
+        return "java.lang.Float.intBitsToFloat(decoder.intValue())";
+      case FIXED64:
+      case SFIXED64:
+        out.println("          decoder.readI64();");
+        return "decoder.longValue()";
+      case DOUBLE:
+        out.println("          decoder.readI64();");
+        return "java.lang.Double.longBitsToDouble(decoder.longValue())";
+      case STRING:
+        return "decoder.readString(decoder.decodeVarInt32())";
+      case BYTES:
+        return "io.vertx.core.buffer.Buffer.buffer(decoder.readBytes(decoder.decodeVarInt32()))";
+      default:
+        throw new UnsupportedOperationException("" + fd.getType());
+    }
+  }
 }
@@ -14,8 +14,9 @@ public class FieldDeclaration {
   public final String messageName;
   public final int number;
   public final String typeExpr;
+  public final int tag;
 
-  public FieldDeclaration(String identifier, String name, boolean map, boolean mapKey, boolean mapValue, boolean repeated, boolean packed, String jsonName, String messageTypeIdentifier, int number, String messageName, String typeExpr) {
+  public FieldDeclaration(String identifier, String name, boolean map, boolean mapKey, boolean mapValue, boolean repeated, boolean packed, String jsonName, String messageTypeIdentifier, int number, String messageName, String typeExpr, int tag) {
     this.identifier = identifier;
     this.name = name;
     this.jsonName = jsonName;
@@ -28,5 +29,6 @@ public class FieldDeclaration {
     this.packed = packed;
     this.number = number;
     this.typeExpr = typeExpr;
+    this.tag = tag;
   }
 }
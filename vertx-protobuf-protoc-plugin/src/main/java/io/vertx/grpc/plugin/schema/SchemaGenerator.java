@@ -95,7 +95,7 @@ public class SchemaGenerator {
           default:
             return;
         }
-        list2.add(new FieldDeclaration(identifier, field.getName(), field.isMapField(), Utils.isMapKey(field), Utils.isMapValue(field), field.isRepeated(), field.isPacked(), field.getJsonName(), messageTypeRef, number, field.getContainingType().getName(), typeExpr));
+        list2.add(new FieldDeclaration(identifier, field.getName(), field.isMapField(), Utils.isMapKey(field), Utils.isMapValue(field), field.isRepeated(), field.isPacked(), field.getJsonName(), messageTypeRef, number, field.getContainingType().getName(), typeExpr, Utils.tagOf(field, Utils.wireTypeOf(field))));
       });
     });
 
@@ -130,7 +130,8 @@ public class SchemaGenerator {
         decl.repeated + ", " +
         decl.packed + ", " +
         "\"" + decl.name + "\", " +
-        "\"" + decl.jsonName + "\"" +
+        "\"" + decl.jsonName + "\", " +
+        decl.tag +
         ")"
       );
       if (it.hasNext()) {
@@ -150,7 +151,8 @@ public class SchemaGenerator {
     writer.println("  private final boolean packed;");
     writer.println("  private final String name;");
     writer.println("  private final String jsonName;");
-    writer.println("  FieldLiteral(int number, boolean map, boolean mapKey, boolean mapValue, boolean repeated, boolean packed, String name, String jsonName) {");
+    writer.println("  private final int tag;");
+    writer.println("  FieldLiteral(int number, boolean map, boolean mapKey, boolean mapValue, boolean repeated, boolean packed, String name, String jsonName, int tag) {");
     writer.println("    this.number = number;");
     writer.println("    this.map = map;");
     writer.println("    this.mapKey = mapKey;");
@@ -159,6 +161,7 @@ public class SchemaGenerator {
     writer.println("    this.packed = packed;");
     writer.println("    this.name = name;");
     writer.println("    this.jsonName = jsonName;");
+    writer.println("    this.tag = tag;");
     writer.println("  }");
     writer.println("  public MessageType owner() {");
     writer.println("    return owner;");
@@ -166,6 +169,9 @@ public class SchemaGenerator {
     writer.println("  public int number() {");
     writer.println("    return number;");
     writer.println("  }");
+    writer.println("  public int tag() {");
+    writer.println("    return tag;");
+    writer.println("  }");
     writer.println("  public String jsonName() {");
     writer.println("    return jsonName;");
     writer.println("  }");
@@ -227,17 +233,26 @@ public class SchemaGenerator {
     }
     writer.println(";");
     writer.println("  private static final java.util.List<java.util.function.Function<?, io.vertx.protobuf.ProtoStream>> streamFactories = new java.util.ArrayList<>();");
-    writer.println("  final java.util.Map<Integer, FieldLiteral> byNumber;");
-    writer.println("  final java.util.Map<String, FieldLiteral> byJsonName;");
-    writer.println("  final java.util.Map<String, FieldLiteral> byName;");
+    writer.println("  final io.vertx.protobuf.schema.FieldTable<FieldLiteral> byNumber;");
+    writer.println("  final io.vertx.protobuf.schema.FieldNameTable<FieldLiteral> byJsonName;");
+    writer.println("  final io.vertx.protobuf.schema.FieldNameTable<FieldLiteral> byName;");
+    writer.println("  private io.vertx.protobuf.schema.FieldSequence fieldSequence;");
     writer.println("  MessageLiteral(String name) {");
-    writer.println("    this.byNumber = new java.util.HashMap<>();");
-    writer.println("    this.byJsonName = new java.util.HashMap<>();");
-    writer.println("    this.byName = new java.util.HashMap<>();");
+    writer.println("    this.byNumber = new io.vertx.protobuf.schema.FieldTable<>();");
+    writer.println("    this.byJsonName = new io.vertx.protobuf.schema.FieldNameTable<>();");
+    writer.println("    this.byName = new io.vertx.protobuf.schema.FieldNameTable<>();");
     writer.println("  }");
     writer.println("  public Field field(int number) {");
     writer.println("    return byNumber.get(number);");
     writer.println("  }");
+    writer.println("  public io.vertx.protobuf.schema.FieldSequence fieldSequence() {");
+    writer.println("    io.vertx.protobuf.schema.FieldSequence sequence = fieldSequence;");
+    writer.println("    if (sequence == null) {");
+    writer.println("      sequence = io.vertx.protobuf.schema.FieldSequence.of(byNumber.fields());");
+    writer.println("      fieldSequence = sequence;");
+    writer.println("    }");
+    writer.println("    return sequence;");
+    writer.println("  }");
     writer.println("  public Field fieldByJsonName(String name) {");
     writer.println("    return byJsonName.get(name);");
     writer.println("  }");
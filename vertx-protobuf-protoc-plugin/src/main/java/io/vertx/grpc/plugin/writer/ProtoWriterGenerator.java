@@ -34,7 +34,7 @@ public class ProtoWriterGenerator {
   private static final Bilto ENUM_TYPE_TO_2  = new Bilto("visitEnum", s -> s + ".number()", Descriptors.FieldDescriptor.Type.ENUM);
 
   static {
-    TYPE_TO.put(Descriptors.FieldDescriptor.Type.BYTES, new Bilto("visitBytes", s -> s + ".getBytes()", Descriptors.FieldDescriptor.Type.BYTES));
+    TYPE_TO.put(Descriptors.FieldDescriptor.Type.BYTES, new Bilto("visitBytes", Descriptors.FieldDescriptor.Type.BYTES));
     TYPE_TO.put(Descriptors.FieldDescriptor.Type.FLOAT, new Bilto("visitFloat", Descriptors.FieldDescriptor.Type.FLOAT));
     TYPE_TO.put(Descriptors.FieldDescriptor.Type.DOUBLE, new Bilto("visitDouble", Descriptors.FieldDescriptor.Type.DOUBLE));
     TYPE_TO.put(Descriptors.FieldDescriptor.Type.STRING, new Bilto("visitString", Descriptors.FieldDescriptor.Type.STRING));
@@ -85,6 +85,7 @@ public class ProtoWriterGenerator {
   }
 
   static class FieldProperty extends Property {
+    public Descriptors.FieldDescriptor descriptor;
     public Bilto typeTo;
     public boolean map;
     public String identifier;
@@ -97,6 +98,11 @@ public class ProtoWriterGenerator {
     public String protoWriterFqn;
     private boolean repeated;
     private boolean packed;
+    private boolean lazyString;
+    private boolean lazyMessage;
+    private boolean primitiveList;
+    private String packedVisitMethod;
+    private String elementGetter;
 
     // OneOf
     public String discriminant;
@@ -105,6 +111,8 @@ public class ProtoWriterGenerator {
 
   static class OneofProperty extends Property {
     final List<FieldProperty> fields = new ArrayList<>();
+    // Flat oneof discriminant field, null for a wrapper
+    String caseField;
   }
 
   public String generate() {
@@ -147,15 +155,23 @@ public class ProtoWriterGenerator {
       List<Property> props = new ArrayList<>();
       for (Descriptors.FieldDescriptor fd : d.getFields()) {
         FieldProperty field = new FieldProperty();
+        field.descriptor = fd;
         field.identifier = Utils.literalIdentifier(fd);
         field.typeTo = typeToOf(fd);
-        field.javaType = Utils.javaTypeOf(fd);
+        field.javaType = Utils.javaTypeOf(fd, !Utils.isPrimitive(fd));
         field.javaTypeInternal = Utils.javaTypeOfInternal(fd);
         field.getterMethod = Utils.getterOf(fd);
         field.setterMethod = Utils.setterOf(fd);
         field.fieldName = Utils.nameOf(fd);
         field.repeated = fd.isRepeated();
         field.packed = fd.isPacked();
+        field.lazyString = Utils.isLazyString(fd);
+        field.primitiveList = Utils.primitiveListTypeOf(fd) != null;
+        if (field.primitiveList) {
+          String elementType = Utils.javaTypeOfInternal(fd, false);
+          field.packedVisitMethod = Utils.packedVisitMethodOf(fd);
+          field.elementGetter = "get" + Character.toUpperCase(elementType.charAt(0)) + elementType.substring(1);
+        }
 
         if (fd.getType() == Descriptors.FieldDescriptor.Type.MESSAGE) {
           if (Utils.isStruct(fd.getMessageType()) && Utils.useJsonObject(fd.getFile()) ||
@@ -184,7 +200,12 @@ public class ProtoWriterGenerator {
             field.defaultValueChecker = s -> "!" + s + "." + field.getterMethod + "().isEmpty()";
           } else {
             if (fd.hasPresence() && trackPresenceWithField) {
-              field.defaultValueChecker = s -> s + "." + field.fieldName + " != null";
+              if (Utils.isUnboxedScalar(fd)) {
+                // Presence bit
+                field.defaultValueChecker = s -> s + "." + Utils.hasMethodOf(fd) + "()";
+              } else {
+                field.defaultValueChecker = s -> s + "." + field.fieldName + " != null";
+              }
             } else {
               switch (fd.getType()) {
                 case INT32:
@@ -208,7 +229,12 @@ public class ProtoWriterGenerator {
                   field.defaultValueChecker = s -> s + "." + field.getterMethod + "() != 0D";
                   break;
                 case STRING:
-                  field.defaultValueChecker = s -> "!" + s + "." + field.getterMethod + "().isEmpty()";
+                  if (field.lazyString) {
+                    // Does not decode the string
+                    field.defaultValueChecker = s -> s + "." + field.fieldName + " != null && !" + s + "." + field.fieldName + ".isEmpty()";
+                  } else {
+                    field.defaultValueChecker = s -> "!" + s + "." + field.getterMethod + "().isEmpty()";
+                  }
                   break;
                 case BOOL:
                   field.defaultValueChecker = s -> s + "." + field.getterMethod + "()";
@@ -224,9 +250,15 @@ public class ProtoWriterGenerator {
           }
         }
 
+        field.lazyMessage = Utils.isLazyMessage(fd);
+        if (field.lazyMessage) {
+          // Does not decode the message
+          field.defaultValueChecker = s -> s + "." + field.fieldName + " != null || " + s + "._" + field.fieldName + "Bytes != null";
+        }
+
         OneofProperty oneOf = oneOfs__.get(fd);
         if (oneOf != null) {
-          field.discriminant = fd.getName().toUpperCase();
+          field.discriminant = Utils.isFlatOneof(fd.getRealContainingOneof()) ? String.valueOf(fd.getNumber()) : fd.getName().toUpperCase();
           field.typeName = Utils.oneOfTypeName(fd);
           oneOf.fields.add((field));
         } else {
@@ -238,6 +270,10 @@ public class ProtoWriterGenerator {
         b.setterMethod = Utils.setterOf(a);
         b.javaType = "";
         b.javaTypeInternal = "";
+        if (Utils.isFlatOneof(a)) {
+          b.caseField = "_" + a.getName() + "Case";
+          b.defaultValueChecker = s -> s + "." + b.caseField + " != 0";
+        }
         props.add(b);
       });
 
@@ -246,14 +282,39 @@ public class ProtoWriterGenerator {
         content.println("    if (" + property.defaultValueChecker.apply("value") + ") {");
         if (property instanceof FieldProperty) {
           FieldProperty field = (FieldProperty) property;
-          content.println("      " + field.javaType + " v = value." + field.getterMethod + "();");
-          gen(content, field);
+          if (field.lazyMessage) {
+            // Bytes still encoded are copied as is
+            content.println(
+              "      if (value._" + field.fieldName + "Bytes != null) {",
+              "        visitor.visitMessage(FieldLiteral." + field.identifier + ", value._" + field.fieldName + "Bytes);",
+              "      } else {",
+              "        " + field.javaType + " v = value." + field.fieldName + ";");
+            content.margin(2);
+            gen(content, field);
+            content.margin(0);
+            content.println("      }");
+          } else {
+            if (field.lazyString) {
+              content.println("      io.vertx.protobuf.Utf8String v = value." + field.fieldName + ";");
+            } else {
+              content.println("      " + field.javaType + " v = value." + field.getterMethod + "();");
+            }
+            gen(content, field);
+          }
         } else {
           OneofProperty oneof = (OneofProperty)property;
-          content.println("      switch (value." + property.getterMethod + "().discriminant()) {");
+          if (oneof.caseField != null) {
+            content.println("      switch (value." + oneof.caseField + ") {");
+          } else {
+            content.println("      switch (value." + property.getterMethod + "().discriminant()) {");
+          }
           oneof.fields.forEach(field -> {
             content.println("        case " + field.discriminant + ": {");
-            content.println("          " + field.javaType + " v = value." + property.getterMethod + "().as" + field.typeName + "().get();");
+            if (oneof.caseField != null) {
+              content.println("          " + field.javaType + " v = value." + field.getterMethod + "();");
+            } else {
+              content.println("          " + field.javaType + " v = value." + property.getterMethod + "().as" + field.typeName + "().get();");
+            }
             content.margin(4);
             gen(content, field);
             content.margin(0);
@@ -268,38 +329,373 @@ public class ProtoWriterGenerator {
       }
 
       content.println(
-        "    java.lang.Iterable<java.util.Map.Entry<io.vertx.protobuf.schema.Field, java.util.List<Object>>> unknownFields = value.unknownFields();",
+        "    io.vertx.core.buffer.Buffer unknownFields = value.unknownFieldsBytes();",
         "    if (unknownFields != null) {",
-        "      for (java.util.Map.Entry<io.vertx.protobuf.schema.Field, java.util.List<Object>> unknownField : unknownFields) {",
-        "        for (Object o : unknownField.getValue()) {",
-        "          io.vertx.protobuf.schema.Field field = unknownField.getKey();",
-        "          switch (field.type().wireType()) {",
-        "            case LEN:",
-//        "              visitor.enter(field);",
-        "              visitor.visitBytes(field, ((io.vertx.core.buffer.Buffer)o).getBytes());",
-//        "              visitor.leave(field);",
-        "              break;",
-        "            case I32:",
-        "              visitor.visitFixed32(field, (Integer)o);",
-        "              break;",
-        "            case I64:",
-        "              visitor.visitFixed64(field, (Long)o);",
-        "              break;",
-        "            case VARINT:",
-        "              visitor.visitInt64(field, (Long)o);",
-        "              break;",
-        "          }",
-        "        }",
-        "      }",
+        "      visitor.visitUnknownFields(value.unknownFieldsType(), unknownFields);",
         "    }");
 
       content.println("  }");
+
+      if (Utils.useDirectWriters(d.getFile())) {
+        if (Utils.isDirectlyWritten(d)) {
+          generateDirectWriter(content, d, props);
+        } else {
+          generateVisitorWriter(content, d);
+        }
+      }
     }
 
     content.println("}");
     return content.toString();
   }
 
+  private static final String ENCODER = "io.vertx.protobuf.ProtobufEncoder";
+  private static final String WRITER = "io.vertx.protobuf.ProtobufWriter";
+
+  // Fields mapped to a Java type are only written by a visitor, computeSize encodes the message once and writeTo copies
+  // the encoded bytes
+  private void generateVisitorWriter(GenWriter content, Descriptors.Descriptor d) {
+    String javaType = Utils.javaTypeOf(d);
+    content.println(
+      "  public static int computeSize(" + javaType + " value) {",
+      "    io.vertx.core.buffer.Buffer bytes = " + WRITER + ".encode(visitor -> emit(value, visitor));",
+      "    int size = bytes.length();",
+      "    value._serializedBytes = bytes;",
+      "    value._serializedSize = size;",
+      "    return size;",
+      "  }",
+      "  public static int serializedSize(" + javaType + " value) {",
+      "    int size = value._serializedSize;",
+      "    return size >= 0 ? size : computeSize(value);",
+      "  }",
+      "  public static void writeTo(" + javaType + " value, " + ENCODER + " encoder) {",
+      "    io.vertx.core.buffer.Buffer bytes = value._serializedBytes;",
+      "    if (bytes == null) {",
+      "      bytes = " + WRITER + ".encode(visitor -> emit(value, visitor));",
+      "    }",
+      "    value._serializedBytes = null;",
+      "    encoder.writeBytes(bytes);",
+      "  }");
+  }
+
+  // computeSize memoizes the size of each message of the graph, writeTo uses it as length prefix of nested messages
+  private void generateDirectWriter(GenWriter content, Descriptors.Descriptor d, List<Property> props) {
+    String javaType = Utils.javaTypeOf(d);
+    content.println(
+      "  public static int computeSize(" + javaType + " value) {",
+      "    int size = 0;");
+    genDirectFields(content, props, true);
+    content.println(
+      "    io.vertx.core.buffer.Buffer unknownFields = value.unknownFieldsBytes();",
+      "    if (unknownFields != null) {",
+      "      size += unknownFields.length();",
+      "    }",
+      "    value._serializedSize = size;",
+      "    return size;",
+      "  }",
+      "  public static int serializedSize(" + javaType + " value) {",
+      "    int size = value._serializedSize;",
+      "    return size >= 0 ? size : computeSize(value);",
+      "  }",
+      "  public static void writeTo(" + javaType + " value, " + ENCODER + " encoder) {");
+    genDirectFields(content, props, false);
+    content.println(
+      "    io.vertx.core.buffer.Buffer unknownFields = value.unknownFieldsBytes();",
+      "    if (unknownFields != null) {",
+      "      encoder.writeBytes(unknownFields);",
+      "    }",
+      "  }");
+  }
+
+  private void genDirectFields(GenWriter content, List<Property> props, boolean size) {
+    for (Property property : props) {
+      content.println("    if (" + property.defaultValueChecker.apply("value") + ") {");
+      if (property instanceof FieldProperty) {
+        FieldProperty field = (FieldProperty) property;
+        if (field.lazyMessage) {
+          // Bytes still encoded are copied as is
+          String bytes = "value._" + field.fieldName + "Bytes";
+          int tag = Utils.tagOf(field.descriptor, Utils.wireTypeOf(field.descriptor));
+          content.println("      if (" + bytes + " != null) {");
+          if (size) {
+            content.println("        size += " + tagSizeOf(tag) + " + " + ENCODER + ".computeLengthDelimitedSize(" + bytes + ".length());");
+          } else {
+            content.println(
+              "        encoder.writeVarInt32(" + tag + ");",
+              "        encoder.writeVarInt32(" + bytes + ".length());",
+              "        encoder.writeBytes(" + bytes + ");");
+          }
+          content.println(
+            "      } else {",
+            "        " + field.javaType + " v = value." + field.fieldName + ";");
+          content.margin(2);
+          genDirect(content, field, size);
+          content.margin(0);
+          content.println("      }");
+        } else {
+          if (field.lazyString) {
+            content.println("      io.vertx.protobuf.Utf8String v = value." + field.fieldName + ";");
+          } else {
+            content.println("      " + field.javaType + " v = value." + field.getterMethod + "();");
+          }
+          genDirect(content, field, size);
+        }
+      } else {
+        OneofProperty oneof = (OneofProperty)property;
+        if (oneof.caseField != null) {
+          content.println("      switch (value." + oneof.caseField + ") {");
+        } else {
+          content.println("      switch (value." + property.getterMethod + "().discriminant()) {");
+        }
+        oneof.fields.forEach(field -> {
+          content.println("        case " + field.discriminant + ": {");
+          if (oneof.caseField != null) {
+            content.println("          " + field.javaType + " v = value." + field.getterMethod + "();");
+          } else {
+            content.println("          " + field.javaType + " v = value." + property.getterMethod + "().as" + field.typeName + "().get();");
+          }
+          content.margin(4);
+          genDirect(content, field, size);
+          content.margin(0);
+          content.println("          break;");
+          content.println("        }");
+        });
+        content.println("        default:");
+        content.println("          throw new AssertionError();");
+        content.println("        }");
+      }
+      content.println("    }");
+    }
+  }
+
+  private void genDirect(GenWriter content, FieldProperty field, boolean size) {
+    Descriptors.FieldDescriptor fd = field.descriptor;
+    if (field.map) {
+      Descriptors.FieldDescriptor key = fd.getMessageType().getFields().get(0);
+      Descriptors.FieldDescriptor value = fd.getMessageType().getFields().get(1);
+      int keyTag = Utils.tagOf(key, Utils.wireTypeOf(key));
+      int valueTag = Utils.tagOf(value, Utils.wireTypeOf(value));
+      int tag = Utils.tagOf(fd, 2);
+      content.println(
+        "      for (java.util.Map.Entry<" + field.keyJavaType + ", " + field.valueJavaType + "> entry : v.entrySet()) {",
+        "        int length = " + tagSizeOf(keyTag) + " + " + sizeOf(key, field.keyTypeTo, "entry.getKey()", false, size) + " + " +
+          tagSizeOf(valueTag) + " + " + sizeOf(value, field.valueTypeTo, "entry.getValue()", false, size) + ";");
+      if (size) {
+        content.println("        size += " + tagSizeOf(tag) + " + " + ENCODER + ".computeLengthDelimitedSize(length);");
+      } else {
+        content.println(
+          "        encoder.writeVarInt32(" + tag + ");",
+          "        encoder.writeVarInt32(length);",
+          "        encoder.writeVarInt32(" + keyTag + ");");
+        writeValue(content, "        ", key, field.keyTypeTo, "entry.getKey()", false);
+        content.println("        encoder.writeVarInt32(" + valueTag + ");");
+        writeValue(content, "        ", value, field.valueTypeTo, "entry.getValue()", false);
+      }
+      content.println("      }");
+    } else if (field.repeated && field.packed) {
+      int tag = Utils.tagOf(fd, 2);
+      int width = fixedWidthOf(fd);
+      if (width > 0) {
+        content.println("      int length = v.size() * " + width + ";");
+      } else {
+        content.println("      int length = 0;");
+        if (field.primitiveList) {
+          content.println("      for (int i = 0;i < v.size();i++) {");
+          content.println("        length += " + sizeOf(fd, field.typeTo, "v." + field.elementGetter + "(i)", false, size) + ";");
+        } else {
+          content.println("      for (" + field.javaTypeInternal + " c : v) {");
+          content.println("        length += " + sizeOf(fd, field.typeTo, "c", false, size) + ";");
+        }
+        content.println("      }");
+      }
+      if (size) {
+        content.println("      size += " + tagSizeOf(tag) + " + " + ENCODER + ".computeLengthDelimitedSize(length);");
+      } else {
+        content.println(
+          "      encoder.writeVarInt32(" + tag + ");",
+          "      encoder.writeVarInt32(length);");
+        String bulkWriteMethod = field.primitiveList ? bulkWriteMethodOf(fd) : null;
+        if (bulkWriteMethod != null) {
+          content.println("      encoder." + bulkWriteMethod + "(v.array(), 0, v.size());");
+        } else if (field.primitiveList) {
+          content.println("      for (int i = 0;i < v.size();i++) {");
+          writeValue(content, "        ", fd, field.typeTo, "v." + field.elementGetter + "(i)", false);
+          content.println("      }");
+        } else {
+          content.println("      for (" + field.javaTypeInternal + " c : v) {");
+          writeValue(content, "        ", fd, field.typeTo, "c", false);
+          content.println("      }");
+        }
+      }
+    } else if (field.repeated) {
+      int tag = Utils.tagOf(fd, Utils.wireTypeOf(fd));
+      int width = fixedWidthOf(fd);
+      if (size && width > 0) {
+        content.println("      size += v.size() * " + (tagSizeOf(tag) + width) + ";");
+        return;
+      }
+      String element;
+      if (field.primitiveList) {
+        content.println("      for (int i = 0;i < v.size();i++) {");
+        element = "v." + field.elementGetter + "(i)";
+      } else {
+        content.println("      for (" + field.javaTypeInternal + " c : v) {");
+        element = "c";
+      }
+      if (size) {
+        content.println("        size += " + tagSizeOf(tag) + " + " + sizeOf(fd, field.typeTo, element, false, true) + ";");
+      } else {
+        content.println("        encoder.writeVarInt32(" + tag + ");");
+        writeValue(content, "        ", fd, field.typeTo, element, false);
+      }
+      content.println("      }");
+    } else {
+      int tag = Utils.tagOf(fd, Utils.wireTypeOf(fd));
+      if (size) {
+        content.println("      size += " + tagSizeOf(tag) + " + " + sizeOf(fd, field.typeTo, "v", field.lazyString, true) + ";");
+      } else {
+        content.println("      encoder.writeVarInt32(" + tag + ");");
+        writeValue(content, "      ", fd, field.typeTo, "v", field.lazyString);
+      }
+    }
+  }
+
+  // The expression of the encoded size of a value without its tag, computing or reusing the size of a message
+  private static String sizeOf(Descriptors.FieldDescriptor fd, Bilto typeTo, String value, boolean utf8, boolean compute) {
+    switch (fd.getType()) {
+      case INT32:
+      case UINT32:
+        return ENCODER + ".computeRawVarint32Size(" + value + ")";
+      case ENUM:
+        return ENCODER + ".computeRawVarint32Size(" + typeTo.fn.apply(value) + ")";
+      case SINT32:
+        return ENCODER + ".computeRawVarint32Size(" + WRITER + ".encodeSInt32(" + value + "))";
+      case INT64:
+      case UINT64:
+        return ENCODER + ".computeRawVarint64Size(" + value + ")";
+      case SINT64:
+        return ENCODER + ".computeRawVarint64Size(" + WRITER + ".encodeSInt64(" + value + "))";
+      case STRING:
+        if (utf8) {
+          return ENCODER + ".computeLengthDelimitedSize(" + value + ".utf8Length())";
+        } else {
+          return ENCODER + ".computeLengthDelimitedSize(" + WRITER + ".utf8Length(" + value + "))";
+        }
+      case BYTES:
+        return ENCODER + ".computeLengthDelimitedSize(" + value + ".length())";
+      case MESSAGE:
+        String protoWriter = Utils.extractJavaPkgFqn(fd.getMessageType().getFile()) + ".ProtoWriter";
+        return ENCODER + ".computeLengthDelimitedSize(" + protoWriter + (compute ? ".computeSize(" : ".serializedSize(") + value + "))";
+      default:
+        return String.valueOf(fixedWidthOf(fd));
+    }
+  }
+
+  private static void writeValue(GenWriter content, String indent, Descriptors.FieldDescriptor fd, Bilto typeTo, String value, boolean utf8) {
+    switch (fd.getType()) {
+      case INT32:
+      case UINT32:
+        content.println(indent + "encoder.writeVarInt32(" + value + ");");
+        break;
+      case ENUM:
+        content.println(indent + "encoder.writeVarInt32(" + typeTo.fn.apply(value) + ");");
+        break;
+      case SINT32:
+        content.println(indent + "encoder.writeVarInt32(" + WRITER + ".encodeSInt32(" + value + "));");
+        break;
+      case INT64:
+      case UINT64:
+        content.println(indent + "encoder.writeVarInt64(" + value + ");");
+        break;
+      case SINT64:
+        content.println(indent + "encoder.writeVarInt64(" + WRITER + ".encodeSInt64(" + value + "));");
+        break;
+      case BOOL:
+        content.println(indent + "encoder.writeVarInt32(" + value + " ? 1 : 0);");
+        break;
+      case FIXED32:
+      case SFIXED32:
+        content.println(indent + "encoder.writeInt(" + value + ");");
+        break;
+      case FLOAT:
+        content.println(indent + "encoder.writeInt(java.lang.Float.floatToRawIntBits(" + value + "));");
+        break;
+      case FIXED64:
+      case SFIXED64:
+        content.println(indent + "encoder.writeLong(" + value + ");");
+        break;
+      case DOUBLE:
+        content.println(indent + "encoder.writeLong(java.lang.Double.doubleToRawLongBits(" + value + "));");
+        break;
+      case STRING:
+        if (utf8) {
+          content.println(
+            indent + "encoder.writeVarInt32(" + value + ".utf8Length());",
+            indent + "encoder.writeString(" + value + ");");
+        } else {
+          content.println(indent + "encoder.writeLengthDelimitedString(" + value + ");");
+        }
+        break;
+      case BYTES:
+        content.println(
+          indent + "encoder.writeVarInt32(" + value + ".length());",
+          indent + "encoder.writeBytes(" + value + ");");
+        break;
+      case MESSAGE:
+        String protoWriter = Utils.extractJavaPkgFqn(fd.getMessageType().getFile()) + ".ProtoWriter";
+        content.println(
+          indent + "encoder.writeVarInt32(" + protoWriter + ".serializedSize(" + value + "));",
+          indent + protoWriter + ".writeTo(" + value + ", encoder);");
+        break;
+    }
+  }
+
+  /**
+   * @return the size of a value encoded with a constant width or {@code 0}
+   */
+  private static int fixedWidthOf(Descriptors.FieldDescriptor fd) {
+    switch (fd.getType()) {
+      case BOOL:
+        return 1;
+      case FIXED32:
+      case SFIXED32:
+      case FLOAT:
+        return 4;
+      case FIXED64:
+      case SFIXED64:
+      case DOUBLE:
+        return 8;
+      default:
+        return 0;
+    }
+  }
+
+  private static String bulkWriteMethodOf(Descriptors.FieldDescriptor fd) {
+    switch (fd.getType()) {
+      case FIXED32:
+      case SFIXED32:
+        return "writeInts";
+      case FLOAT:
+        return "writeFloats";
+      case FIXED64:
+      case SFIXED64:
+        return "writeLongs";
+      case DOUBLE:
+        return "writeDoubles";
+      default:
+        return null;
+    }
+  }
+
+  private static int tagSizeOf(int tag) {
+    int size = 1;
+    while ((tag & ~0x7F) != 0) {
+      tag >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
   private void gen(GenWriter content, FieldProperty field) {
     if (field.typeTo == null) {
       // Message
@@ -347,7 +743,16 @@ public class ProtoWriterGenerator {
         }
       }
     } else {
-      if (field.repeated) {
+      if (field.primitiveList) {
+        if (field.packed) {
+          content.println("      visitor." + field.packedVisitMethod + "(FieldLiteral." + field.identifier + ", v.array(), 0, v.size());");
+        } else {
+          content.println(
+            "      for (int i = 0;i < v.size();i++) {",
+            "        visitor." + field.typeTo.visitMethod + "(FieldLiteral." + field.identifier + ", v." + field.elementGetter + "(i));",
+            "      }");
+        }
+      } else if (field.repeated) {
         if (field.packed) {
           content.println("visitor.enterPacked(FieldLiteral." + field.identifier + ");");
         }
@@ -0,0 +1,72 @@
+package io.vertx.tests.plugin;
+
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import io.vertx.grpc.plugin.schema.SchemaGenerator;
+import io.vertx.protobuf.schema.EnumType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.OptionalInt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SchemaGeneratorTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testCompileEnumLiterals() throws Exception {
+    DescriptorProtos.FileDescriptorProto proto = DescriptorProtos.FileDescriptorProto.newBuilder()
+      .setName("enums.proto")
+      .setPackage("enums")
+      .setSyntax("proto3")
+      .addEnumType(DescriptorProtos.EnumDescriptorProto.newBuilder()
+        .setName("Color")
+        .addValue(DescriptorProtos.EnumValueDescriptorProto.newBuilder().setName("RED").setNumber(0))
+        .addValue(DescriptorProtos.EnumValueDescriptorProto.newBuilder().setName("BLUE").setNumber(2)))
+      .addMessageType(DescriptorProtos.DescriptorProto.newBuilder()
+        .setName("Shape")
+        .addEnumType(DescriptorProtos.EnumDescriptorProto.newBuilder()
+          .setName("Kind")
+          .addValue(DescriptorProtos.EnumValueDescriptorProto.newBuilder().setName("CIRCLE").setNumber(0))))
+      .build();
+    Descriptors.FileDescriptor file = Descriptors.FileDescriptor.buildFrom(proto, new Descriptors.FileDescriptor[0]);
+
+    SchemaGenerator generator = new SchemaGenerator("io.vertx.tests.plugin.generated");
+    generator.init(Collections.emptyList(), Arrays.asList(file.findEnumTypeByName("Color"), file.findMessageTypeByName("Shape").findEnumTypeByName("Kind")));
+    String source = generator.generateEnumLiterals();
+    assertFalse(source.contains("fieldSequence"));
+
+    File dir = folder.newFolder();
+    File sourceFile = new File(dir, "io/vertx/tests/plugin/generated/EnumLiteral.java");
+    sourceFile.getParentFile().mkdirs();
+    Files.write(sourceFile.toPath(), source.getBytes(StandardCharsets.UTF_8));
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    int res = compiler.run(null, null, err, "-d", dir.getAbsolutePath(), "-cp", System.getProperty("java.class.path"), sourceFile.getAbsolutePath());
+    assertEquals(err.toString(), 0, res);
+
+    try (URLClassLoader loader = new URLClassLoader(new URL[] { dir.toURI().toURL() }, getClass().getClassLoader())) {
+      Class<?> enumLiteral = loader.loadClass("io.vertx.tests.plugin.generated.EnumLiteral");
+      EnumType color = (EnumType) enumLiteral.getField("Color").get(null);
+      assertEquals(OptionalInt.of(2), color.numberOf("BLUE"));
+      assertEquals("RED", color.nameOf(0));
+      EnumType kind = (EnumType) enumLiteral.getField("Shape_Kind").get(null);
+      assertEquals(OptionalInt.of(0), kind.numberOf("CIRCLE"));
+    }
+  }
+}
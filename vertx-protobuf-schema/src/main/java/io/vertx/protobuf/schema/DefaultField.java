@@ -27,6 +27,7 @@ public class DefaultField implements Field {
   private final boolean repeated;
   private final boolean packed;
   private final Type type;
+  private final int tag;
 
   DefaultField(DefaultMessageType owner, int number, String name, String jsonName, boolean map, boolean mapKey, boolean mapValue, boolean repeated, boolean packed, Type type) {
     this.owner = owner;
@@ -39,6 +40,7 @@ public class DefaultField implements Field {
     this.mapValue = mapValue;
     this.packed = packed;
     this.type = type;
+    this.tag = number << 3 | type.wireType().id;
   }
 
   public MessageType owner() {
@@ -79,6 +81,11 @@ public class DefaultField implements Field {
     return number;
   }
 
+  @Override
+  public int tag() {
+    return tag;
+  }
+
   public Type type() {
     return type;
   }
@@ -1,10 +1,8 @@
 package io.vertx.protobuf.schema;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.TreeMap;
 import java.util.function.Consumer;
 
@@ -12,8 +10,10 @@ public class DefaultMessageType implements MessageType {
 
   private final String name;
   private final Map<Integer, DefaultField> fields = new TreeMap<>();
-  private final Map<String, DefaultField> byName = new HashMap<>();
-  private final Map<String, DefaultField> byJsonName = new HashMap<>();
+  private final FieldTable<DefaultField> byNumber = new FieldTable<>();
+  private final FieldNameTable<DefaultField> byName = new FieldNameTable<>();
+  private final FieldNameTable<DefaultField> byJsonName = new FieldNameTable<>();
+  private volatile FieldSequence fieldSequence;
 
   public DefaultMessageType(String name) {
     this.name = name;
@@ -55,13 +55,15 @@ public class DefaultMessageType implements MessageType {
     if (fields.containsKey(number)) {
       throw new IllegalStateException("Duplicate field " + number);
     }
-    if (byName.containsKey(name)) {
+    if (byName.get(name) != null) {
       throw new IllegalStateException("Duplicate field " + name);
     }
-    if (byJsonName.containsKey(jsonName)) {
+    if (byJsonName.get(jsonName) != null) {
       throw new IllegalStateException("Duplicate field " + jsonName);
     }
     fields.put(number, field);
+    byNumber.put(number, field);
+    fieldSequence = null;
     byName.put(name, field);
     byJsonName.put(jsonName, field);
     return field;
@@ -70,13 +72,15 @@ public class DefaultMessageType implements MessageType {
   public DefaultField addField(int number, String name, Type type) {
     String jsonName = DefaultField.toJsonName(name);
     DefaultField field = new DefaultField(this, number, name, jsonName, false, false, false, false, false, type);
-    if (byName.containsKey(name)) {
+    if (byName.get(name) != null) {
       throw new IllegalStateException("Duplicate field " + name);
     }
-    if (byJsonName.containsKey(jsonName)) {
+    if (byJsonName.get(jsonName) != null) {
       throw new IllegalStateException("Duplicate field " + name);
     }
     fields.put(number, field);
+    byNumber.put(number, field);
+    fieldSequence = null;
     byName.put(name, field);
     byJsonName.put(jsonName, field);
     return field;
@@ -85,11 +89,23 @@ public class DefaultMessageType implements MessageType {
   public DefaultField addField(int number, Type type) {
     DefaultField field = new DefaultField(this, number, null, null, false, false, false, false, false, type);
     fields.put(number, field);
+    byNumber.put(number, field);
+    fieldSequence = null;
     return field;
   }
 
   public DefaultField field(int number) {
-    return fields.get(number);
+    return byNumber.get(number);
+  }
+
+  @Override
+  public FieldSequence fieldSequence() {
+    FieldSequence sequence = fieldSequence;
+    if (sequence == null) {
+      sequence = FieldSequence.of(fields.values());
+      fieldSequence = sequence;
+    }
+    return sequence;
   }
 
   @Override
@@ -14,4 +14,11 @@ public interface Field {
   default boolean isUnknown() {
     return false;
   }
+
+  /**
+   * @return the tag of the field, its number and the wire type of its type, implementations precompute it
+   */
+  default int tag() {
+    return number() << 3 | type().wireType().id;
+  }
 }
@@ -0,0 +1,88 @@
+package io.vertx.protobuf.schema;
+
+/**
+ * Fields indexed by name in an open addressing table, the hash of each name is kept alongside it so a lookup
+ * compares strings only when their hashes match.
+ * <p>
+ * A table is populated before it is published, lookups are then safe from any thread.
+ */
+public final class FieldNameTable<F extends Field> {
+
+  private String[] keys = new String[8];
+  private int[] hashes = new int[8];
+  private Field[] values = new Field[8];
+  private int size;
+
+  /**
+   * Put a field in the table, replacing the field with the same name, a {@code null} name is ignored.
+   */
+  public void put(String name, F field) {
+    if (name == null) {
+      return;
+    }
+    if ((size + 1) * 2 > keys.length) {
+      rehash(keys.length * 2);
+    }
+    int hash = hash(name);
+    int mask = keys.length - 1;
+    int i = hash & mask;
+    while (keys[i] != null && (hashes[i] != hash || !keys[i].equals(name))) {
+      i = (i + 1) & mask;
+    }
+    if (keys[i] == null) {
+      keys[i] = name;
+      hashes[i] = hash;
+      size++;
+    }
+    values[i] = field;
+  }
+
+  /**
+   * @return the field with this {@code name} or {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public F get(String name) {
+    if (name == null) {
+      return null;
+    }
+    String[] k = keys;
+    int hash = hash(name);
+    int mask = k.length - 1;
+    int i = hash & mask;
+    while (true) {
+      String key = k[i];
+      if (key == null) {
+        return null;
+      } else if (hashes[i] == hash && (key == name || key.equals(name))) {
+        return (F) values[i];
+      }
+      i = (i + 1) & mask;
+    }
+  }
+
+  private void rehash(int capacity) {
+    String[] prevKeys = keys;
+    int[] prevHashes = hashes;
+    Field[] prevValues = values;
+    keys = new String[capacity];
+    hashes = new int[capacity];
+    values = new Field[capacity];
+    int mask = capacity - 1;
+    for (int j = 0;j < prevKeys.length;j++) {
+      if (prevKeys[j] != null) {
+        int i = prevHashes[j] & mask;
+        while (keys[i] != null) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = prevKeys[j];
+        hashes[i] = prevHashes[j];
+        values[i] = prevValues[j];
+      }
+    }
+  }
+
+  private static int hash(String name) {
+    int h = name.hashCode();
+    return h ^ (h >>> 16);
+  }
+}
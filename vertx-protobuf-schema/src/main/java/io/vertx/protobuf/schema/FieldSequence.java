@@ -0,0 +1,91 @@
+package io.vertx.protobuf.schema;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * The fields of a message type in number order with their precomputed tags.
+ * <p>
+ * Encoders usually write fields in number order, a decoder can predict the next field with {@link #next(int)} and
+ * resolve it by comparing the decoded tag with {@link #tag(int)}, falling back to {@link MessageType#field(int)}
+ * on a miss.
+ */
+public final class FieldSequence {
+
+  /**
+   * @return the sequence of {@code fields}
+   */
+  public static FieldSequence of(Collection<? extends Field> fields) {
+    Field[] sorted = fields.toArray(new Field[0]);
+    Arrays.sort(sorted, Comparator.comparingInt(Field::number));
+    return new FieldSequence(sorted);
+  }
+
+  private final Field[] fields;
+  private final int[] numbers;
+  private final int[] tags;
+  private final WireType[] wireTypes;
+  private final int[] successors;
+
+  private FieldSequence(Field[] fields) {
+    int size = fields.length;
+    this.fields = fields;
+    this.numbers = new int[size];
+    this.tags = new int[size];
+    this.wireTypes = new WireType[size];
+    this.successors = new int[size];
+    for (int i = 0;i < size;i++) {
+      Field field = fields[i];
+      WireType wireType = field.isPacked() ? WireType.LEN : field.type().wireType();
+      numbers[i] = field.number();
+      tags[i] = field.number() << 3 | wireType.id;
+      wireTypes[i] = wireType;
+      // An unpacked repeated field is usually followed by another element
+      successors[i] = field.isRepeated() && !field.isPacked() ? i : i + 1;
+    }
+  }
+
+  /**
+   * @return the number of fields
+   */
+  public int size() {
+    return fields.length;
+  }
+
+  /**
+   * @return the field at {@code index}
+   */
+  public Field field(int index) {
+    return fields[index];
+  }
+
+  /**
+   * @return the tag of the field at {@code index}, encoding its number and wire type
+   */
+  public int tag(int index) {
+    return tags[index];
+  }
+
+  /**
+   * @return the wire type of the field at {@code index}
+   */
+  public WireType wireType(int index) {
+    return wireTypes[index];
+  }
+
+  /**
+   * @return the index of the field expected after the field at {@code index}, the field itself for a repeated field,
+   *         otherwise the next index which might be {@link #size()}
+   */
+  public int next(int index) {
+    return successors[index];
+  }
+
+  /**
+   * @return the index of the field with this {@code number} or a negative value
+   */
+  public int indexOf(int number) {
+    return Arrays.binarySearch(numbers, number);
+  }
+}
@@ -0,0 +1,133 @@
+package io.vertx.protobuf.schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Fields indexed by number, small numbers are stored in a dense array and larger numbers in an open addressing table
+ * keyed by {@code int}, so a lookup never boxes the number.
+ * <p>
+ * A table is populated before it is published, lookups are then safe from any thread.
+ */
+public final class FieldTable<F extends Field> {
+
+  /**
+   * Field numbers below this limit are stored in the dense array.
+   */
+  public static final int DENSE_LIMIT = 256;
+
+  private static final Field[] EMPTY = new Field[0];
+
+  private Field[] dense = EMPTY;
+  // Open addressing table, 0 is the empty key since it is not a valid field number
+  private int[] keys;
+  private Field[] values;
+  private int size;
+
+  /**
+   * Put a field in the table, replacing the field with the same number.
+   */
+  public void put(int number, F field) {
+    if (number <= 0) {
+      throw new IllegalArgumentException("Invalid field number " + number);
+    }
+    if (number < DENSE_LIMIT) {
+      if (number >= dense.length) {
+        dense = Arrays.copyOf(dense, Math.min(DENSE_LIMIT, Math.max(number + 1, dense.length * 2)));
+      }
+      dense[number] = field;
+    } else {
+      if (keys == null) {
+        keys = new int[8];
+        values = new Field[8];
+      } else if ((size + 1) * 2 > keys.length) {
+        rehash(keys.length * 2);
+      }
+      int mask = keys.length - 1;
+      int i = hash(number) & mask;
+      while (keys[i] != 0 && keys[i] != number) {
+        i = (i + 1) & mask;
+      }
+      if (keys[i] == 0) {
+        keys[i] = number;
+        size++;
+      }
+      values[i] = field;
+    }
+  }
+
+  /**
+   * @return the field with this {@code number} or {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public F get(int number) {
+    Field[] d = dense;
+    if (number >= 0 && number < d.length) {
+      return (F) d[number];
+    }
+    int[] k = keys;
+    if (k == null || number <= 0) {
+      return null;
+    }
+    int mask = k.length - 1;
+    int i = hash(number) & mask;
+    while (true) {
+      int key = k[i];
+      if (key == number) {
+        return (F) values[i];
+      } else if (key == 0) {
+        return null;
+      }
+      i = (i + 1) & mask;
+    }
+  }
+
+  /**
+   * @return the fields of the table in number order
+   */
+  @SuppressWarnings("unchecked")
+  public List<F> fields() {
+    List<F> list = new ArrayList<>();
+    for (Field field : dense) {
+      if (field != null) {
+        list.add((F) field);
+      }
+    }
+    if (keys != null) {
+      int from = list.size();
+      for (int i = 0;i < keys.length;i++) {
+        if (keys[i] != 0) {
+          list.add((F) values[i]);
+        }
+      }
+      list.subList(from, list.size()).sort(Comparator.comparingInt(Field::number));
+    }
+    return list;
+  }
+
+  private void rehash(int capacity) {
+    int[] prevKeys = keys;
+    Field[] prevValues = values;
+    keys = new int[capacity];
+    values = new Field[capacity];
+    int mask = capacity - 1;
+    for (int j = 0;j < prevKeys.length;j++) {
+      int key = prevKeys[j];
+      if (key != 0) {
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = prevValues[j];
+      }
+    }
+  }
+
+  private static int hash(int number) {
+    int h = number * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -17,6 +17,12 @@ public interface MessageType extends Type {
   default Field fieldByJsonName(String jsonName) {
     return null;
   }
+  /**
+   * @return the fields in number order with their tags, or {@code null} when the type does not provide it
+   */
+  default FieldSequence fieldSequence() {
+    return null;
+  }
   default Field unknownField(int number, WireType wireType) {
     return new UnknownField(this, number, wireType);
   }
@@ -21,6 +21,11 @@ class UnknownField implements Field, Type {
     return number;
   }
 
+  @Override
+  public int tag() {
+    return number << 3 | wireType.id;
+  }
+
   @Override
   public boolean isPacked() {
     return false;
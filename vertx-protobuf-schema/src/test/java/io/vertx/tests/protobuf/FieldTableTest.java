@@ -0,0 +1,68 @@
+package io.vertx.tests.protobuf;
+
+import io.vertx.protobuf.schema.DefaultField;
+import io.vertx.protobuf.schema.DefaultMessageType;
+import io.vertx.protobuf.schema.FieldNameTable;
+import io.vertx.protobuf.schema.FieldTable;
+import io.vertx.protobuf.schema.ScalarType;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FieldTableTest {
+
+  @Test
+  public void testDenseAndSparseNumbers() {
+    DefaultMessageType type = new DefaultMessageType("Message");
+    FieldTable<DefaultField> table = new FieldTable<>();
+    Map<Integer, DefaultField> expected = new HashMap<>();
+    Random random = new Random(0);
+    while (expected.size() < 500) {
+      int number = random.nextBoolean() ? 1 + random.nextInt(2 * FieldTable.DENSE_LIMIT) : 1 + random.nextInt(536_870_911);
+      if (!expected.containsKey(number)) {
+        DefaultField field = type.addField(number, ScalarType.INT32);
+        table.put(number, field);
+        expected.put(number, field);
+      }
+    }
+    for (int number = 0;number < 4 * FieldTable.DENSE_LIMIT;number++) {
+      assertSame(expected.get(number), table.get(number));
+    }
+    for (Map.Entry<Integer, DefaultField> entry : expected.entrySet()) {
+      assertSame(entry.getValue(), table.get(entry.getKey()));
+      assertSame(entry.getValue(), type.field(entry.getKey()));
+    }
+    assertNull(table.get(536_870_912));
+    assertNull(table.get(-1));
+  }
+
+  @Test
+  public void testInvalidNumber() {
+    FieldTable<DefaultField> table = new FieldTable<>();
+    try {
+      table.put(0, new DefaultMessageType("Message").addField(1, ScalarType.INT32));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test
+  public void testNames() {
+    DefaultMessageType type = new DefaultMessageType("Message");
+    FieldNameTable<DefaultField> table = new FieldNameTable<>();
+    for (int i = 1;i <= 100;i++) {
+      table.put("field_" + i, type.addField(i, "field_" + i, ScalarType.INT32));
+    }
+    for (int i = 1;i <= 100;i++) {
+      assertSame(type.field(i), table.get("field_" + i));
+      assertSame(type.field(i), type.fieldByName("field_" + i));
+      assertSame(type.field(i), type.fieldByJsonName("field" + i));
+    }
+    assertNull(table.get("field_0"));
+    assertNull(table.get(null));
+  }
+}
@@ -0,0 +1,42 @@
+package io.vertx.protobuf;
+
+import io.vertx.protobuf.schema.MessageType;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the bytes of the unknown fields discarded by {@link ProtobufReader} per message type, see
+ * {@link ProtobufReaderOptions#setDiscardedBytesCounter(DiscardedBytesCounter)}.
+ * <p>
+ * A counter is safe to share between threads.
+ */
+public final class DiscardedBytesCounter {
+
+  private final ConcurrentHashMap<MessageType, LongAdder> counters = new ConcurrentHashMap<>();
+  private final LongAdder total = new LongAdder();
+
+  void add(MessageType type, int bytes) {
+    LongAdder counter = counters.get(type);
+    if (counter == null) {
+      counter = counters.computeIfAbsent(type, t -> new LongAdder());
+    }
+    counter.add(bytes);
+    total.add(bytes);
+  }
+
+  /**
+   * @return the number of bytes discarded from messages of this {@code type}
+   */
+  public long bytes(MessageType type) {
+    LongAdder counter = counters.get(type);
+    return counter != null ? counter.sum() : 0L;
+  }
+
+  /**
+   * @return the total number of bytes discarded
+   */
+  public long total() {
+    return total.sum();
+  }
+}
@@ -0,0 +1,138 @@
+package io.vertx.protobuf;
+
+import io.vertx.protobuf.schema.Field;
+import io.vertx.protobuf.schema.MessageType;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A precompiled projection of a message type on a set of field paths, compatible with {@code google.protobuf.FieldMask}.
+ * <p>
+ * A path is a sequence of field names separated by dots, e.g. {@code "address.city"}, a name is the proto field name
+ * or its JSON name. A path selects the whole field it ends with, the fields of the message types along the path
+ * are selected only partially.
+ * <p>
+ * {@link ProtobufReader#parse(FieldProjection, ProtoVisitor, ProtobufDecoder)} visits only the selected fields and
+ * skips the others, including unknown fields, without visiting them. A projection is immutable and can be reused.
+ */
+public final class FieldProjection {
+
+  /**
+   * Compile the projection of {@code type} on {@code paths}.
+   *
+   * @throws IllegalArgumentException when a path does not resolve to a field
+   */
+  public static FieldProjection compile(MessageType type, String... paths) {
+    return compile(type, Arrays.asList(paths));
+  }
+
+  /**
+   * Compile the projection of {@code type} on {@code paths}.
+   *
+   * @throws IllegalArgumentException when a path does not resolve to a field
+   */
+  public static FieldProjection compile(MessageType type, Iterable<String> paths) {
+    Node root = new Node(type);
+    for (String path : paths) {
+      root.add(path, path.split("\\."), 0);
+    }
+    return root.build();
+  }
+
+  private static class Node {
+
+    final MessageType type;
+    // A null node selects the whole field
+    final Map<Integer, Node> children = new TreeMap<>();
+    final Map<Integer, Field> fields = new TreeMap<>();
+
+    Node(MessageType type) {
+      this.type = type;
+    }
+
+    void add(String path, String[] names, int index) {
+      String name = names[index];
+      Field field = type.fieldByName(name);
+      if (field == null) {
+        field = type.fieldByJsonName(name);
+      }
+      if (field == null) {
+        throw new IllegalArgumentException("Invalid path " + path + ": no field " + name + " in " + type.name());
+      }
+      int number = field.number();
+      boolean selected = fields.containsKey(number);
+      fields.put(number, field);
+      if (index == names.length - 1) {
+        children.put(number, null);
+      } else if (!(field.type() instanceof MessageType)) {
+        throw new IllegalArgumentException("Invalid path " + path + ": " + name + " is not a message");
+      } else {
+        Node child = children.get(number);
+        if (child == null) {
+          if (selected) {
+            // The whole field is already selected
+            return;
+          }
+          child = new Node((MessageType) field.type());
+          children.put(number, child);
+        }
+        child.add(path, names, index + 1);
+      }
+    }
+
+    FieldProjection build() {
+      int size = fields.size();
+      int[] numbers = new int[size];
+      Field[] selected = new Field[size];
+      FieldProjection[] projections = new FieldProjection[size];
+      int i = 0;
+      for (Map.Entry<Integer, Field> entry : fields.entrySet()) {
+        Node child = children.get(entry.getKey());
+        numbers[i] = entry.getKey();
+        selected[i] = entry.getValue();
+        projections[i] = child != null ? child.build() : null;
+        i++;
+      }
+      return new FieldProjection(type, numbers, selected, projections);
+    }
+  }
+
+  private final MessageType type;
+  private final int[] numbers;
+  private final Field[] fields;
+  private final FieldProjection[] children;
+
+  private FieldProjection(MessageType type, int[] numbers, Field[] fields, FieldProjection[] children) {
+    this.type = type;
+    this.numbers = numbers;
+    this.fields = fields;
+    this.children = children;
+  }
+
+  /**
+   * @return the projected message type
+   */
+  public MessageType type() {
+    return type;
+  }
+
+  /**
+   * @return the index of the selected field with this {@code number} or a negative value
+   */
+  int indexOf(int number) {
+    return Arrays.binarySearch(numbers, number);
+  }
+
+  Field field(int index) {
+    return fields[index];
+  }
+
+  /**
+   * @return the projection of the message field at {@code index} or {@code null} when the whole field is selected
+   */
+  FieldProjection child(int index) {
+    return children[index];
+  }
+}
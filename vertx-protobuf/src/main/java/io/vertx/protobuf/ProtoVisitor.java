@@ -1,6 +1,7 @@
 package io.vertx.protobuf;
 
 
+import io.vertx.core.buffer.Buffer;
 import io.vertx.protobuf.schema.Field;
 import io.vertx.protobuf.schema.MessageType;
 
@@ -46,11 +47,103 @@ public interface ProtoVisitor {
 
   void visitString(Field field, String s);
 
+  /**
+   * Visit a string field as a lazily decoded value, see {@link ProtobufReaderOptions#setLazyStrings(boolean)}.
+   * The default implementation decodes it.
+   */
+  default void visitString(Field field, Utf8String s) {
+    visitString(field, s.toString());
+  }
+
   void visitBytes(Field field, byte[] bytes);
 
+  /**
+   * Visit a bytes field as a read-only slice of the input, see {@link ProtobufReaderOptions#setCopyThreshold(int)}.
+   * The slice shares the input storage, the default implementation copies it.
+   */
+  default void visitBytes(Field field, Buffer bytes) {
+    visitBytes(field, bytes.getBytes());
+  }
+
+  /**
+   * Visit unknown fields of {@code type} in wire format, from the tag of the first field to the end of the last field.
+   * The buffer may be a read-only slice sharing the input storage, the default implementation decodes the fields and
+   * visits them with {@link MessageType#unknownField(int, io.vertx.protobuf.schema.WireType)}.
+   */
+  default void visitUnknownFields(MessageType type, Buffer bytes) {
+    ProtobufReader.visitUnknownFields(type, bytes, this);
+  }
+
   void enterPacked(Field field);
 
   void leavePacked(Field field);
 
+  /**
+   * @return whether the message {@code field} is visited with {@link #visitMessage(Field, Buffer)} instead of being
+   *         entered and parsed
+   */
+  default boolean isLazy(Field field) {
+    return false;
+  }
+
+  /**
+   * Visit a lazy message field, see {@link #isLazy(Field)}, as its encoded fields. The buffer may be a slice
+   * sharing the input storage, the default implementation parses it between {@link #enter} and {@link #leave}, with
+   * the reader visiting it and its options.
+   */
+  default void visitMessage(Field field, Buffer bytes) {
+    ProtobufReader.visitMessage(field, bytes, this);
+  }
+
+  /**
+   * Visit the elements of a repeated {@code int32}, {@code uint32}, {@code sint32}, {@code enum}, {@code fixed32}
+   * or {@code sfixed32} field at once, {@code sint32} values are decoded. The array is only valid during the call.
+   * The default implementation visits the elements one by one between {@link #enterPacked} and {@link #leavePacked}.
+   */
+  default void visitPackedInt32s(Field field, int[] values, int offset, int length) {
+    ProtobufReader.visitPackedInt32s(field, values, offset, length, this);
+  }
+
+  /**
+   * Visit the elements of a repeated {@code int64}, {@code uint64}, {@code sint64}, {@code fixed64} or
+   * {@code sfixed64} field at once, like {@link #visitPackedInt32s}.
+   */
+  default void visitPackedInt64s(Field field, long[] values, int offset, int length) {
+    ProtobufReader.visitPackedInt64s(field, values, offset, length, this);
+  }
+
+  /**
+   * Visit the elements of a repeated {@code float} field at once, like {@link #visitPackedInt32s}.
+   */
+  default void visitPackedFloats(Field field, float[] values, int offset, int length) {
+    enterPacked(field);
+    for (int i = 0;i < length;i++) {
+      visitFloat(field, values[offset + i]);
+    }
+    leavePacked(field);
+  }
+
+  /**
+   * Visit the elements of a repeated {@code double} field at once, like {@link #visitPackedInt32s}.
+   */
+  default void visitPackedDoubles(Field field, double[] values, int offset, int length) {
+    enterPacked(field);
+    for (int i = 0;i < length;i++) {
+      visitDouble(field, values[offset + i]);
+    }
+    leavePacked(field);
+  }
+
+  /**
+   * Visit the elements of a repeated {@code bool} field at once, like {@link #visitPackedInt32s}.
+   */
+  default void visitPackedBools(Field field, boolean[] values, int offset, int length) {
+    enterPacked(field);
+    for (int i = 0;i < length;i++) {
+      visitBool(field, values[offset + i]);
+    }
+    leavePacked(field);
+  }
+
 
 }
@@ -1,22 +1,153 @@
 package io.vertx.protobuf;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.internal.PlatformDependent;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.buffer.BufferInternal;
 import io.vertx.core.json.DecodeException;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Decodes protobuf primitives from an input.
+ * <p>
+ * The decoder reads the input through a window, a contiguous range of the input backed by a heap array or a raw
+ * memory address. Most reads are served from the window, when a read falls outside the window, the input moves the
+ * window, e.g. to the next component of a {@link CompositeByteBuf}, or serves the read when the storage
+ * cannot be accessed directly.
+ */
 public class ProtobufDecoder {
 
-  private final Buffer buffer;
+  private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  /**
+   * Create a decoder reading the {@code buffer} from {@code 0} to {@code buffer.length()}.
+   */
+  public static ProtobufDecoder create(Buffer buffer) {
+    return new ProtobufDecoder(buffer);
+  }
+
+  /**
+   * Create a decoder reading the entire {@code array}.
+   */
+  public static ProtobufDecoder create(byte[] array) {
+    return create(array, 0, array.length);
+  }
+
+  /**
+   * Create a decoder reading {@code length} bytes of the {@code array} starting at {@code offset}.
+   */
+  public static ProtobufDecoder create(byte[] array, int offset, int length) {
+    if (offset < 0 || length < 0 || offset + length > array.length) {
+      throw new IndexOutOfBoundsException();
+    }
+    return new ProtobufDecoder(new ArrayInput(array, offset, length));
+  }
+
+  /**
+   * Create a decoder reading the remaining bytes of the {@code buffer}, the buffer position is not modified.
+   */
+  public static ProtobufDecoder create(ByteBuffer buffer) {
+    return new ProtobufDecoder(new ByteBufferInput(buffer));
+  }
+
+  /**
+   * Create a decoder reading the readable bytes of the {@code buffer}, the buffer indexes are not modified.
+   */
+  public static ProtobufDecoder create(ByteBuf buffer) {
+    return new ProtobufDecoder(new ByteBufInput(buffer, buffer.readerIndex(), buffer.readableBytes()));
+  }
+
+  private Input input;
+  private int capacity;
+
+  // Window over the input: array takes precedence over address, indexes are relative to the decoder
+  private byte[] array;
+  private int arrayOffset;
+  private long address;
+  private int windowStart;
+  private int windowEnd;
+
   private int idx;
   private int len;
+  private int tag;
   private int fieldNumber;
   private int wireType;
   private int intValue;
   private long longValue;
 
   public ProtobufDecoder(Buffer buffer) {
-    this.buffer = buffer;
+    this(inputOf(buffer));
+  }
+
+  private ProtobufDecoder(Input input) {
+    reset(input);
+  }
+
+  /**
+   * Reset the decoder to read the {@code buffer} from {@code 0} to {@code buffer.length()}, reusing the current input.
+   */
+  ProtobufDecoder reset(Buffer buffer) {
+    if (buffer instanceof BufferInternal && input instanceof ByteBufInput) {
+      ((ByteBufInput) input).reset(((BufferInternal) buffer).unwrap(), 0, buffer.length());
+      return reset(input);
+    }
+    return reset(inputOf(buffer));
+  }
+
+  /**
+   * Reset the decoder to read {@code length} bytes of the {@code array} starting at {@code offset}, reusing the
+   * current input.
+   */
+  ProtobufDecoder reset(byte[] array, int offset, int length) {
+    if (offset < 0 || length < 0 || offset + length > array.length) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (input instanceof ArrayInput) {
+      ((ArrayInput) input).reset(array, offset, length);
+      return reset(input);
+    }
+    return reset(new ArrayInput(array, offset, length));
+  }
+
+  /**
+   * Drop the references to the input storage, so a cached decoder does not retain it.
+   */
+  void release() {
+    input.release();
+    reset(input);
+  }
+
+  /**
+   * @return the storage of the input, an empty storage after {@link #release()}
+   */
+  Object storage() {
+    return input.storage();
+  }
+
+  private ProtobufDecoder reset(Input input) {
+    this.input = input;
+    this.capacity = input.length;
     this.idx = 0;
-    this.len = buffer.length();
+    this.len = capacity;
+    input.moveWindow(this, 0);
+    return this;
+  }
+
+  private static Input inputOf(Buffer buffer) {
+    if (buffer instanceof BufferInternal) {
+      // Buffer indexes are the indexes of the underlying ByteBuf
+      return new ByteBufInput(((BufferInternal) buffer).unwrap(), 0, buffer.length());
+    } else {
+      return new BufferInput(buffer);
+    }
   }
 
   public int len() {
@@ -24,6 +155,9 @@ public class ProtobufDecoder {
   }
 
   public ProtobufDecoder len(int len) {
+    if (len < idx || len > capacity) {
+      throw new DecodeException("Invalid limit " + len);
+    }
     this.len = len;
     return this;
   }
@@ -38,32 +172,114 @@ public class ProtobufDecoder {
   }
 
   public void skip(int n) {
+    checkReadable(n);
     idx += n;
   }
 
+  /**
+   * Read a string of {@code lengthInBytes} UTF-8 encoded bytes.
+   *
+   * @throws DecodeException when the bytes are not valid UTF-8
+   */
   public String readString(int lengthInBytes) {
-    String str = buffer.getString(idx, idx + lengthInBytes, "UTF-8");
-    idx += lengthInBytes;
+    checkReadable(lengthInBytes);
+    int i = idx;
+    String str;
+    if (array != null && i >= windowStart && i + lengthInBytes <= windowEnd) {
+      str = Utf8.decode(array, arrayOffset + i, lengthInBytes);
+    } else {
+      str = Utf8.decode(copy(i, lengthInBytes), 0, lengthInBytes);
+    }
+    idx = i + lengthInBytes;
     return str;
   }
 
   public byte[] readBytes(int lengthInBytes) {
-    byte[] str = buffer.getBytes(idx, idx + lengthInBytes);
-    idx += lengthInBytes;
+    checkReadable(lengthInBytes);
+    int i = idx;
+    byte[] bytes = copy(i, lengthInBytes);
+    idx = i + lengthInBytes;
+    return bytes;
+  }
+
+  /**
+   * Read a string of {@code lengthInBytes} UTF-8 encoded bytes without decoding them, the returned value is a view
+   * over the input, see {@link Utf8String}.
+   */
+  public Utf8String readUtf8String(int lengthInBytes) {
+    checkReadable(lengthInBytes);
+    int i = idx;
+    Utf8String str;
+    if (array != null && i >= windowStart && i + lengthInBytes <= windowEnd) {
+      str = new Utf8String(array, arrayOffset + i, lengthInBytes, null);
+    } else {
+      str = Utf8String.of(input.slice(i, lengthInBytes));
+    }
+    idx = i + lengthInBytes;
     return str;
   }
 
-  public boolean readTag() {
-    int c = idx;
-    int e = decodeVarInt32();
-    // Can be branch-less
-    if (idx > c) {
-      fieldNumber = e >> 3;
-      wireType = e & 0b0111;
-      return true;
+  /**
+   * Read {@code lengthInBytes} bytes without copying them, the returned buffer is a read-only slice of the input.
+   * <p>
+   * The slice shares the input storage, it remains valid as long as the input is not modified or released.
+   */
+  public Buffer readSlice(int lengthInBytes) {
+    checkReadable(lengthInBytes);
+    int i = idx;
+    Buffer slice = input.slice(i, lengthInBytes);
+    idx = i + lengthInBytes;
+    return slice;
+  }
+
+  private byte[] copy(int index, int length) {
+    byte[] bytes;
+    if (index >= windowStart && index + length <= windowEnd) {
+      if (array != null) {
+        int from = arrayOffset + index;
+        bytes = Arrays.copyOfRange(array, from, from + length);
+      } else {
+        bytes = new byte[length];
+        PlatformDependent.copyMemory(address + index, bytes, 0, length);
+      }
     } else {
+      bytes = new byte[length];
+      input.getBytes(index, bytes, 0, length);
+    }
+    return bytes;
+  }
+
+  public boolean readTag() {
+    int i = idx;
+    int l = len;
+    if (i >= l) {
       return false;
     }
+    int tag = byteAt(i);
+    if (tag >= 0) {
+      idx = i + 1;
+    } else if (i + 1 < l) {
+      int b = byteAt(i + 1);
+      if (b >= 0) {
+        tag = (tag & 0x7F) | (b << 7);
+        idx = i + 2;
+      } else {
+        tag = decodeVarInt32();
+      }
+    } else {
+      tag = decodeVarInt32();
+    }
+    this.tag = tag;
+    fieldNumber = tag >>> 3;
+    wireType = tag & 0b0111;
+    return true;
+  }
+
+  /**
+   * @return the last tag read, combining the field number and the wire type
+   */
+  public int tag() {
+    return tag;
   }
 
   public int fieldNumber() {
@@ -95,53 +311,546 @@ public class ProtobufDecoder {
   }
 
   public boolean readI32() {
-    int l = buffer.getIntLE(idx);
-    idx += 4;
-    intValue = l;
+    checkReadable(4);
+    int i = idx;
+    int v;
+    if (i >= windowStart && i + 4 <= windowEnd) {
+      if (array != null) {
+        v = (int) INT_LE.get(array, arrayOffset + i);
+      } else {
+        v = PlatformDependent.getInt(address + i);
+        if (PlatformDependent.BIG_ENDIAN_NATIVE_ORDER) {
+          v = Integer.reverseBytes(v);
+        }
+      }
+    } else {
+      v = (byteAt(i) & 0xFF) | (byteAt(i + 1) & 0xFF) << 8 | (byteAt(i + 2) & 0xFF) << 16 | (byteAt(i + 3) & 0xFF) << 24;
+    }
+    idx = i + 4;
+    intValue = v;
     return true;
   }
 
   public boolean readI64() {
-    long l = buffer.getLongLE(idx);
-    idx += 8;
-    longValue = l;
+    checkReadable(8);
+    int i = idx;
+    long v;
+    if (i >= windowStart && i + 8 <= windowEnd) {
+      if (array != null) {
+        v = (long) LONG_LE.get(array, arrayOffset + i);
+      } else {
+        v = PlatformDependent.getLong(address + i);
+        if (PlatformDependent.BIG_ENDIAN_NATIVE_ORDER) {
+          v = Long.reverseBytes(v);
+        }
+      }
+    } else {
+      long lo = (byteAt(i) & 0xFF) | (byteAt(i + 1) & 0xFF) << 8 | (byteAt(i + 2) & 0xFF) << 16 | (byteAt(i + 3) & 0xFF) << 24;
+      long hi = (byteAt(i + 4) & 0xFF) | (byteAt(i + 5) & 0xFF) << 8 | (byteAt(i + 6) & 0xFF) << 16 | (byteAt(i + 7) & 0xFF) << 24;
+      v = (lo & 0xFFFFFFFFL) | (hi << 32);
+    }
+    idx = i + 8;
+    longValue = v;
     return true;
   }
 
+  /**
+   * Read {@code length} {@code fixed32} values into {@code dst} at {@code offset} with a bulk little-endian copy.
+   */
+  public void readI32s(int[] dst, int offset, int length) {
+    readFixed(length * 4).asIntBuffer().get(dst, offset, length);
+  }
+
+  /**
+   * Read {@code length} {@code fixed64} values into {@code dst} at {@code offset} with a bulk little-endian copy.
+   */
+  public void readI64s(long[] dst, int offset, int length) {
+    readFixed(length * 8).asLongBuffer().get(dst, offset, length);
+  }
+
+  /**
+   * Read {@code length} {@code float} values into {@code dst} at {@code offset} with a bulk little-endian copy.
+   */
+  public void readFloats(float[] dst, int offset, int length) {
+    readFixed(length * 4).asFloatBuffer().get(dst, offset, length);
+  }
+
+  /**
+   * Read {@code length} {@code double} values into {@code dst} at {@code offset} with a bulk little-endian copy.
+   */
+  public void readDoubles(double[] dst, int offset, int length) {
+    readFixed(length * 8).asDoubleBuffer().get(dst, offset, length);
+  }
+
+  private ByteBuffer readFixed(int lengthInBytes) {
+    checkReadable(lengthInBytes);
+    int i = idx;
+    ByteBuffer bytes;
+    if (array != null && i >= windowStart && i + lengthInBytes <= windowEnd) {
+      bytes = ByteBuffer.wrap(array, arrayOffset + i, lengthInBytes).slice();
+    } else {
+      bytes = ByteBuffer.wrap(copy(i, lengthInBytes));
+    }
+    idx = i + lengthInBytes;
+    return bytes.order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Count the var ints encoded in the next {@code lengthInBytes} bytes, e.g. the elements of a packed field, without
+   * reading them.
+   */
+  public int countVarInts(int lengthInBytes) {
+    checkReadable(lengthInBytes);
+    int i = idx;
+    int end = i + lengthInBytes;
+    int count = 0;
+    if (array != null && i >= windowStart && end <= windowEnd) {
+      byte[] a = array;
+      for (int j = arrayOffset + i, e = arrayOffset + end;j < e;j++) {
+        count += ~a[j] >>> 31;
+      }
+    } else {
+      for (;i < end;i++) {
+        count += ~byteAt(i) >>> 31;
+      }
+    }
+    return count;
+  }
+
   private int readableBytes() {
     return len - idx;
   }
 
+  private void checkReadable(int n) {
+    if (n < 0 || n > len - idx) {
+      throw new DecodeException("Truncated message");
+    }
+  }
+
   public boolean isReadable() {
     return idx < len;
   }
 
+  /**
+   * @return whether the {@code n} bytes starting at {@code index} can be read from the window without bounds checks
+   */
+  private boolean inWindow(int index, int n) {
+    return index >= windowStart && Math.min(len, windowEnd) - index >= n;
+  }
+
+  /**
+   * Read a byte from the window, the caller must ensure the index is within the window.
+   */
+  private byte windowByte(int index) {
+    byte[] a = array;
+    return a != null ? a[arrayOffset + index] : PlatformDependent.getByte(address + index);
+  }
+
+  private byte byteAt(int index) {
+    if (index < windowStart || index >= windowEnd) {
+      input.moveWindow(this, index);
+      if (index < windowStart || index >= windowEnd) {
+        return input.getByte(index);
+      }
+    }
+    return windowByte(index);
+  }
+
+  /**
+   * Decode a {@code VARINT} truncated to 32 bits, each byte is read once and the encoding can span up to 10 bytes
+   * since negative values are sign extended.
+   */
   public int decodeVarInt32() {
-    return (int) decodeRawVarInt();
+    int i = idx;
+    if (!inWindow(i, 10)) {
+      return (int) decodeVarInt64Slow();
+    }
+    int b;
+    int x = windowByte(i++);
+    if (x >= 0) {
+      idx = i;
+      return x;
+    }
+    x &= 0x7F;
+    if ((b = windowByte(i++)) >= 0) {
+      x |= b << 7;
+    } else {
+      x |= (b & 0x7F) << 7;
+      if ((b = windowByte(i++)) >= 0) {
+        x |= b << 14;
+      } else {
+        x |= (b & 0x7F) << 14;
+        if ((b = windowByte(i++)) >= 0) {
+          x |= b << 21;
+        } else {
+          x |= (b & 0x7F) << 21;
+          x |= (b = windowByte(i++)) << 28;
+          if (b < 0) {
+            // Discard the upper bits of a sign extended value
+            if (windowByte(i++) < 0 && windowByte(i++) < 0 && windowByte(i++) < 0 && windowByte(i++) < 0 && windowByte(i++) < 0) {
+              throw new DecodeException("Malformed varint");
+            }
+          }
+        }
+      }
+    }
+    idx = i;
+    return x;
   }
 
   public long decodeVarInt64() {
-    return decodeRawVarInt();
+    int i = idx;
+    if (!inWindow(i, 10)) {
+      return decodeVarInt64Slow();
+    }
+    int b;
+    int x = windowByte(i++);
+    if (x >= 0) {
+      idx = i;
+      return x;
+    }
+    x &= 0x7F;
+    if ((b = windowByte(i++)) >= 0) {
+      idx = i;
+      return x | (b << 7);
+    }
+    x |= (b & 0x7F) << 7;
+    if ((b = windowByte(i++)) >= 0) {
+      idx = i;
+      return x | (b << 14);
+    }
+    x |= (b & 0x7F) << 14;
+    if ((b = windowByte(i++)) >= 0) {
+      idx = i;
+      return x | (b << 21);
+    }
+    long y = x | ((b & 0x7F) << 21);
+    for (int shift = 28;shift < 64;shift += 7) {
+      b = windowByte(i++);
+      y |= (long)(b & 0x7F) << shift;
+      if (b >= 0) {
+        idx = i;
+        return y;
+      }
+    }
+    throw new DecodeException("Malformed varint");
   }
 
-  private long decodeRawVarInt() {
+  private long decodeVarInt64Slow() {
     int i = idx;
-    int l = idx + len;
-    while (i < l) {
-      byte b = buffer.getByte(i);
-      i++;
-      if ((b & 0x80) == 0) {
-        long val = 0;
-        int to = idx;
+    int l = len;
+    long val = 0;
+    for (int shift = 0;shift < 64 && i < l;shift += 7) {
+      byte b = byteAt(i++);
+      val |= (long)(b & 0x7F) << shift;
+      if (b >= 0) {
         idx = i;
-        int from = idx - 1;
-        while (from >= to) {
-          val <<= 7;
-          val += (buffer.getByte(from--) & 0x7F);
-        }
         return val;
       }
     }
-    throw new DecodeException();
+    throw new DecodeException("Malformed varint");
+  }
+
+  /**
+   * The decoder input, indexes are relative to the decoder.
+   */
+  private static abstract class Input {
+
+    int length;
+
+    Input(int length) {
+      this.length = length;
+    }
+
+    /**
+     * Drop the references to the storage, the input becomes empty.
+     */
+    void release() {
+    }
+
+    /**
+     * @return the storage read by the input
+     */
+    abstract Object storage();
+
+    /**
+     * Move the decoder window to a directly accessible range containing {@code index}.
+     *
+     * @return {@code false} when the storage at {@code index} cannot be accessed directly, the window is then empty
+     */
+    abstract boolean moveWindow(ProtobufDecoder decoder, int index);
+
+    abstract byte getByte(int index);
+
+    abstract void getBytes(int index, byte[] dst, int dstIndex, int length);
+
+    abstract Buffer slice(int index, int length);
+
+    static boolean arrayWindow(ProtobufDecoder decoder, byte[] array, int arrayOffset, int start, int end) {
+      decoder.array = array;
+      decoder.arrayOffset = arrayOffset;
+      decoder.address = 0L;
+      decoder.windowStart = start;
+      decoder.windowEnd = end;
+      return true;
+    }
+
+    static boolean addressWindow(ProtobufDecoder decoder, long address, int start, int end) {
+      decoder.array = null;
+      decoder.arrayOffset = 0;
+      decoder.address = address;
+      decoder.windowStart = start;
+      decoder.windowEnd = end;
+      return true;
+    }
+
+    static boolean noWindow(ProtobufDecoder decoder) {
+      decoder.array = null;
+      decoder.arrayOffset = 0;
+      decoder.address = 0L;
+      decoder.windowStart = 0;
+      decoder.windowEnd = 0;
+      return false;
+    }
+  }
+
+  private static final class ArrayInput extends Input {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private byte[] array;
+    private int offset;
+
+    ArrayInput(byte[] array, int offset, int length) {
+      super(length);
+      this.array = array;
+      this.offset = offset;
+    }
+
+    void reset(byte[] array, int offset, int length) {
+      this.array = array;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    void release() {
+      reset(EMPTY, 0, 0);
+    }
+
+    @Override
+    Object storage() {
+      return array;
+    }
+
+    @Override
+    boolean moveWindow(ProtobufDecoder decoder, int index) {
+      return arrayWindow(decoder, array, offset, 0, length);
+    }
+
+    @Override
+    byte getByte(int index) {
+      return array[offset + index];
+    }
+
+    @Override
+    void getBytes(int index, byte[] dst, int dstIndex, int length) {
+      System.arraycopy(array, offset + index, dst, dstIndex, length);
+    }
+
+    @Override
+    Buffer slice(int index, int length) {
+      return BufferInternal.buffer(Unpooled.wrappedBuffer(array, offset + index, length).asReadOnly());
+    }
+  }
+
+  private static final class ByteBufferInput extends Input {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    ByteBufferInput(ByteBuffer buffer) {
+      super(buffer.remaining());
+      this.buffer = buffer.duplicate();
+      this.offset = buffer.position();
+    }
+
+    @Override
+    void release() {
+      buffer = EMPTY;
+      offset = 0;
+      length = 0;
+    }
+
+    @Override
+    Object storage() {
+      return buffer;
+    }
+
+    @Override
+    boolean moveWindow(ProtobufDecoder decoder, int index) {
+      if (buffer.hasArray()) {
+        return arrayWindow(decoder, buffer.array(), buffer.arrayOffset() + offset, 0, length);
+      } else if (buffer.isDirect() && PlatformDependent.hasUnsafe()) {
+        return addressWindow(decoder, PlatformDependent.directBufferAddress(buffer) + offset, 0, length);
+      } else {
+        return noWindow(decoder);
+      }
+    }
+
+    @Override
+    byte getByte(int index) {
+      return buffer.get(offset + index);
+    }
+
+    @Override
+    void getBytes(int index, byte[] dst, int dstIndex, int length) {
+      ByteBuffer dup = buffer.duplicate();
+      dup.position(offset + index);
+      dup.get(dst, dstIndex, length);
+    }
+
+    @Override
+    Buffer slice(int index, int length) {
+      ByteBuffer dup = buffer.duplicate();
+      dup.position(offset + index);
+      dup.limit(offset + index + length);
+      return BufferInternal.buffer(Unpooled.wrappedBuffer(dup.slice()).asReadOnly());
+    }
+  }
+
+  private static final class ByteBufInput extends Input {
+
+    private ByteBuf buffer;
+    private CompositeByteBuf composite;
+    private int offset;
+
+    ByteBufInput(ByteBuf buffer, int offset, int length) {
+      super(length);
+      reset(buffer, offset, length);
+    }
+
+    void reset(ByteBuf buffer, int offset, int length) {
+      this.buffer = buffer;
+      this.composite = buffer instanceof CompositeByteBuf ? (CompositeByteBuf) buffer : null;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    void release() {
+      reset(Unpooled.EMPTY_BUFFER, 0, 0);
+    }
+
+    @Override
+    Object storage() {
+      return buffer;
+    }
+
+    @Override
+    boolean moveWindow(ProtobufDecoder decoder, int index) {
+      if (composite == null) {
+        return moveWindow(decoder, buffer, -offset, 0, length);
+      } else if (index >= 0 && index < length) {
+        int componentIndex = composite.toComponentIndex(offset + index);
+        int componentStart = composite.toByteIndex(componentIndex) - offset;
+        ByteBuf component = composite.internalComponent(componentIndex);
+        int start = Math.max(componentStart, 0);
+        int end = Math.min(componentStart + component.readableBytes(), length);
+        return moveWindow(decoder, component, componentStart - component.readerIndex(), start, end);
+      } else {
+        return noWindow(decoder);
+      }
+    }
+
+    /**
+     * Move the window to the {@code [start, end)} range of {@code buf}, {@code delta} maps decoder indexes to
+     * {@code buf} indexes.
+     */
+    private static boolean moveWindow(ProtobufDecoder decoder, ByteBuf buf, int delta, int start, int end) {
+      buf = unwrapReadOnly(buf);
+      if (buf.hasArray()) {
+        return arrayWindow(decoder, buf.array(), buf.arrayOffset() - delta, start, end);
+      } else if (buf.hasMemoryAddress()) {
+        return addressWindow(decoder, buf.memoryAddress() - delta, start, end);
+      } else {
+        return noWindow(decoder);
+      }
+    }
+
+    /**
+     * A read-only view, e.g. a bytes field slice, hides the array of the buffer it wraps. A derived buffer with the
+     * same capacity shares the indexes of the wrapped buffer, so the window can use the wrapped buffer instead.
+     */
+    private static ByteBuf unwrapReadOnly(ByteBuf buf) {
+      while (!buf.hasArray() && buf.isReadOnly()) {
+        ByteBuf unwrapped = buf.unwrap();
+        if (unwrapped == null || unwrapped.capacity() != buf.capacity()) {
+          break;
+        }
+        buf = unwrapped;
+      }
+      return buf;
+    }
+
+    @Override
+    byte getByte(int index) {
+      return buffer.getByte(offset + index);
+    }
+
+    @Override
+    void getBytes(int index, byte[] dst, int dstIndex, int length) {
+      buffer.getBytes(offset + index, dst, dstIndex, length);
+    }
+
+    @Override
+    Buffer slice(int index, int length) {
+      return BufferInternal.buffer(buffer.slice(offset + index, length).asReadOnly());
+    }
+  }
+
+  private static final class BufferInput extends Input {
+
+    private static final Buffer EMPTY = BufferInternal.buffer(Unpooled.EMPTY_BUFFER);
+
+    private Buffer buffer;
+
+    BufferInput(Buffer buffer) {
+      super(buffer.length());
+      this.buffer = buffer;
+    }
+
+    @Override
+    void release() {
+      buffer = EMPTY;
+      length = 0;
+    }
+
+    @Override
+    Object storage() {
+      return buffer;
+    }
+
+    @Override
+    boolean moveWindow(ProtobufDecoder decoder, int index) {
+      return noWindow(decoder);
+    }
+
+    @Override
+    byte getByte(int index) {
+      return buffer.getByte(index);
+    }
+
+    @Override
+    void getBytes(int index, byte[] dst, int dstIndex, int length) {
+      buffer.getBytes(index, index + length, dst, dstIndex);
+    }
+
+    @Override
+    Buffer slice(int index, int length) {
+      return buffer.slice(index, index + length);
+    }
   }
 }
@@ -3,15 +3,34 @@ package io.vertx.protobuf;
 import io.netty.buffer.ByteBuf;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.internal.buffer.BufferInternal;
+import io.vertx.protobuf.schema.Field;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 
 public class ProtobufEncoder {
 
-  private final Buffer buffer;
+  private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final long CONTINUATION_BITS = 0x8080808080808080L;
+
+  private Buffer buffer;
+  // The storage of the buffer, var ints are written directly to it
+  private ByteBuf byteBuf;
 
   public ProtobufEncoder(Buffer buffer) {
+    reset(buffer);
+  }
+
+  /**
+   * Reset the encoder to append to {@code buffer}.
+   */
+  ProtobufEncoder reset(Buffer buffer) {
     this.buffer = buffer;
+    this.byteBuf = buffer != null ? ((BufferInternal) buffer).unwrap() : null;
+    return this;
   }
 
   public int length() {
@@ -20,33 +39,79 @@ public class ProtobufEncoder {
 
   public ProtobufEncoder writeTag(int fieldNumber, int wireType) {
     int tag = (fieldNumber << 3) | (wireType & 0x07);
-    encodeVarInt32(buffer, tag);
+    encodeVarInt32(byteBuf, tag);
+    return this;
+  }
+
+  /**
+   * Write the precomputed tag of the {@code field} with the {@code wireType}, e.g. {@code LEN} for a packed field.
+   */
+  public ProtobufEncoder writeTag(Field field, int wireType) {
+    encodeVarInt32(byteBuf, (field.tag() & ~0x07) | wireType);
     return this;
   }
 
   public ProtobufEncoder writeVarInt32(int v) {
-    encodeVarInt32(buffer, v);
+    encodeVarInt32(byteBuf, v);
     return this;
   }
 
   public ProtobufEncoder writeVarInt64(long v) {
-    encodeVarInt64(buffer, v);
+    encodeVarInt64(byteBuf, v);
     return this;
   }
 
   public ProtobufEncoder writeInt(int d) {
-    buffer.appendIntLE(d);
+    byteBuf.writeIntLE(d);
     return this;
   }
 
   public ProtobufEncoder writeLong(long d) {
-    buffer.appendLongLE(d);
+    byteBuf.writeLongLE(d);
     return this;
   }
 
   public ProtobufEncoder writeString(String s) {
-    ByteBuf bbuf = ((BufferInternal) buffer).unwrap();
-    bbuf.writeCharSequence(s, StandardCharsets.UTF_8);
+    int ascii = Utf8.asciiPrefix(s);
+    writeString(s, ascii, Utf8.encodedLength(s, ascii));
+    return this;
+  }
+
+  /**
+   * Write {@code s} encoded as UTF-8, {@code utf8Length} is its encoded length, see {@link ProtobufWriter#utf8Length(String)}.
+   */
+  public ProtobufEncoder writeString(String s, int utf8Length) {
+    writeString(s, Utf8.asciiPrefix(s), utf8Length);
+    return this;
+  }
+
+  /**
+   * Write the encoded length of {@code s} followed by {@code s} encoded as UTF-8, the string is scanned once.
+   */
+  public ProtobufEncoder writeLengthDelimitedString(String s) {
+    int ascii = Utf8.asciiPrefix(s);
+    int utf8Length = Utf8.encodedLength(s, ascii);
+    encodeVarInt32(byteBuf, utf8Length);
+    writeString(s, ascii, utf8Length);
+    return this;
+  }
+
+  private void writeString(String s, int ascii, int utf8Length) {
+    ByteBuf bbuf = byteBuf;
+    bbuf.ensureWritable(utf8Length);
+    if (bbuf.hasArray()) {
+      int index = bbuf.writerIndex();
+      Utf8.encode(s, ascii, bbuf.array(), bbuf.arrayOffset() + index);
+      bbuf.writerIndex(index + utf8Length);
+    } else if (ascii == s.length()) {
+      bbuf.writeCharSequence(s, StandardCharsets.US_ASCII);
+    } else {
+      bbuf.writeBytes(s.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  public ProtobufEncoder writeString(Utf8String s) {
+    s.appendTo(buffer);
     return this;
   }
 
@@ -55,22 +120,102 @@ public class ProtobufEncoder {
     return this;
   }
 
-//  public ProtoEncoder write
+  public ProtobufEncoder writeBytes(Buffer bytes) {
+    buffer.appendBuffer(bytes);
+    return this;
+  }
+
+  /**
+   * Write {@code length} values of {@code values} at {@code offset} as {@code fixed32} with a bulk little-endian copy.
+   */
+  public ProtobufEncoder writeInts(int[] values, int offset, int length) {
+    ByteBuffer view = fixedView(length * 4);
+    if (view != null) {
+      view.asIntBuffer().put(values, offset, length);
+    } else {
+      for (int i = 0;i < length;i++) {
+        buffer.appendIntLE(values[offset + i]);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Write {@code length} values of {@code values} at {@code offset} as {@code fixed64} with a bulk little-endian copy.
+   */
+  public ProtobufEncoder writeLongs(long[] values, int offset, int length) {
+    ByteBuffer view = fixedView(length * 8);
+    if (view != null) {
+      view.asLongBuffer().put(values, offset, length);
+    } else {
+      for (int i = 0;i < length;i++) {
+        buffer.appendLongLE(values[offset + i]);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Write {@code length} values of {@code values} at {@code offset} with a bulk little-endian copy.
+   */
+  public ProtobufEncoder writeFloats(float[] values, int offset, int length) {
+    ByteBuffer view = fixedView(length * 4);
+    if (view != null) {
+      view.asFloatBuffer().put(values, offset, length);
+    } else {
+      for (int i = 0;i < length;i++) {
+        buffer.appendIntLE(Float.floatToRawIntBits(values[offset + i]));
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Write {@code length} values of {@code values} at {@code offset} with a bulk little-endian copy.
+   */
+  public ProtobufEncoder writeDoubles(double[] values, int offset, int length) {
+    ByteBuffer view = fixedView(length * 8);
+    if (view != null) {
+      view.asDoubleBuffer().put(values, offset, length);
+    } else {
+      for (int i = 0;i < length;i++) {
+        buffer.appendLongLE(Double.doubleToRawLongBits(values[offset + i]));
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Reserve the next {@code lengthInBytes} bytes of the buffer.
+   *
+   * @return a little-endian view of the reserved bytes or {@code null} when the storage cannot be viewed
+   */
+  private ByteBuffer fixedView(int lengthInBytes) {
+    ByteBuf bbuf = byteBuf;
+    bbuf.ensureWritable(lengthInBytes);
+    int index = bbuf.writerIndex();
+    ByteBuffer view;
+    if (bbuf.hasArray()) {
+      view = ByteBuffer.wrap(bbuf.array(), bbuf.arrayOffset() + index, lengthInBytes).slice();
+    } else if (bbuf.isDirect() && bbuf.nioBufferCount() == 1) {
+      view = bbuf.nioBuffer(index, lengthInBytes);
+    } else {
+      return null;
+    }
+    bbuf.writerIndex(index + lengthInBytes);
+    return view.order(ByteOrder.LITTLE_ENDIAN);
+  }
 
   /**
    * Encode a 4 bytes value to {@code VARINT} format
    * @param out to be written to
    * @param value to be written
    */
-  static void encodeVarInt32(Buffer out, int value) {
-    while (true) {
-      if ((value & ~0x7F) == 0) {
-        out.appendByte((byte) value);
-        return;
-      } else {
-        out.appendByte((byte) ((value & 0x7F) | 0x80));
-        value >>>= 7;
-      }
+  static void encodeVarInt32(ByteBuf out, int value) {
+    if ((value & ~0x7F) == 0) {
+      out.writeByte(value);
+    } else {
+      encodeVarInt(out, value & 0xFFFFFFFFL, computeRawVarint32Size(value));
     }
   }
 
@@ -79,18 +224,73 @@ public class ProtobufEncoder {
    * @param out to be written to
    * @param value to be written
    */
-  static void encodeVarInt64(Buffer out, long value) {
-    while (true) {
-      if ((value & ~0x7F) == 0) {
-        out.appendByte((byte) value);
-        return;
+  static void encodeVarInt64(ByteBuf out, long value) {
+    if ((value & ~0x7FL) == 0) {
+      out.writeByte((int) value);
+    } else {
+      encodeVarInt(out, value, computeRawVarint64Size(value));
+    }
+  }
+
+  private static void encodeVarInt(ByteBuf out, long value, int size) {
+    out.ensureWritable(size);
+    int index = out.writerIndex();
+    if (out.capacity() - index >= 8) {
+      if (out.hasArray()) {
+        encodeVarInt(out.array(), out.arrayOffset() + index, value, size);
       } else {
-        out.appendByte((byte) ((value & 0x7F) | 0x80));
+        out.setLongLE(index, varIntBits(value, size));
+        if (size > 8) {
+          int high = (int) (value >>> 56);
+          out.setByte(index + 8, size == 9 ? high : high | 0x80);
+          if (size == 10) {
+            out.setByte(index + 9, high >>> 7);
+          }
+        }
+      }
+    } else {
+      // Near the end of the buffer
+      int last = index + size - 1;
+      for (int i = index;i < last;i++) {
+        out.setByte(i, (int) (value & 0x7F) | 0x80);
         value >>>= 7;
       }
+      out.setByte(last, (int) value);
+    }
+    out.writerIndex(index + size);
+  }
+
+  /**
+   * Encode the {@code size} bytes var int {@code value} at {@code index} with a single 8 bytes store, followed by the
+   * last bytes of a var int longer than 8 bytes, {@code max(8, size)} bytes must be writable.
+   */
+  static void encodeVarInt(byte[] array, int index, long value, int size) {
+    LONG_LE.set(array, index, varIntBits(value, size));
+    if (size > 8) {
+      int high = (int) (value >>> 56);
+      array[index + 8] = (byte) (size == 9 ? high : high | 0x80);
+      if (size == 10) {
+        array[index + 9] = (byte) (high >>> 7);
+      }
     }
   }
 
+  /**
+   * @return the first 8 bytes of a var int of {@code size > 1} bytes as a little-endian long: each 7 bits group of
+   *         {@code value} in its own byte, with the continuation bit set on all but the last byte
+   */
+  private static long varIntBits(long value, int size) {
+    long bits = (value & 0x7FL)
+      | ((value & (0x7FL << 7)) << 1)
+      | ((value & (0x7FL << 14)) << 2)
+      | ((value & (0x7FL << 21)) << 3)
+      | ((value & (0x7FL << 28)) << 4)
+      | ((value & (0x7FL << 35)) << 5)
+      | ((value & (0x7FL << 42)) << 6)
+      | ((value & (0x7FL << 49)) << 7);
+    return bits | (size > 8 ? CONTINUATION_BITS : CONTINUATION_BITS >>> ((9 - size) << 3));
+  }
+
   /**
    * Computes size of protobuf varint32 after encoding.
    * @param value which is to be encoded.
@@ -112,6 +312,13 @@ public class ProtobufEncoder {
     return 5;
   }
 
+  /**
+   * @return the size of {@code length} bytes prefixed by their length
+   */
+  public static int computeLengthDelimitedSize(int length) {
+    return computeRawVarint32Size(length) + length;
+  }
+
   public static int computeRawVarint64Size(final long value) {
     if ((value & (0xffffffffffffffffL <<  7)) == 0) {
       return 1;
@@ -0,0 +1,221 @@
+package io.vertx.protobuf;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.protobuf.schema.Field;
+import io.vertx.protobuf.schema.MessageType;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A push parser fed with successive chunks of a message, created by {@link ProtobufReader#parser(MessageType, ProtoVisitor)}.
+ * <p>
+ * The visitor events of a field are emitted as soon as the field is complete: a nested message is entered when its
+ * header is available and left after its last field, other fields are emitted once their value is available. A lazy
+ * message field, see {@link ProtoVisitor#isLazy(Field)}, is visited with {@link ProtoVisitor#visitMessage(Field, Buffer)}
+ * once all its bytes are available. The bytes of an incomplete field are retained until the next chunk completes it.
+ * <p>
+ * {@link #end()} signals the end of the message.
+ */
+public class ProtobufParser implements Handler<Buffer> {
+
+  private static class Frame {
+
+    final Field field;
+    final long end;
+
+    Frame(Field field, long end) {
+      this.field = field;
+      this.end = end;
+    }
+  }
+
+  private final ProtobufReader reader;
+  private final MessageType rootType;
+  private final ProtoVisitor visitor;
+  private final Deque<Frame> frames = new ArrayDeque<>();
+  private Buffer pending;
+  private int pendingIndex;
+  private long position;
+  private boolean ended;
+
+  ProtobufParser(ProtobufReader reader, MessageType rootType, ProtoVisitor visitor) {
+    this.reader = reader;
+    this.rootType = rootType;
+    this.visitor = visitor;
+    visitor.init(rootType);
+  }
+
+  /**
+   * @return the number of bytes parsed so far, excluding the bytes of an incomplete field
+   */
+  public long position() {
+    return position;
+  }
+
+  /**
+   * @return the nesting depth of the message being parsed, {@code 0} for the root message
+   */
+  public int depth() {
+    return frames.size();
+  }
+
+  /**
+   * Parse a chunk of the message. The parser does not retain the chunk after this call returns, however values visited
+   * as slices of the input share its storage: bytes above {@link ProtobufReaderOptions#setCopyThreshold(int)}, lazy
+   * strings, see {@link ProtobufReaderOptions#setLazyStrings(boolean)}, lazy messages and unknown fields. A visitor
+   * keeping such a slice retains the chunk, or the bytes buffered from previous chunks when a field straddles chunks.
+   *
+   * @param chunk the chunk
+   * @throws DecodeException when the chunk is invalid
+   */
+  @Override
+  public void handle(Buffer chunk) {
+    if (ended) {
+      throw new IllegalStateException("Parser ended");
+    }
+    Buffer data;
+    int index;
+    if (pending != null) {
+      pending.appendBuffer(chunk);
+      data = pending;
+      index = pendingIndex;
+    } else {
+      data = chunk;
+      index = 0;
+    }
+    int to = parse(data, index);
+    position += to - index;
+    int length = data.length();
+    if (to == length) {
+      pending = null;
+    } else if (data == pending && to <= length / 2) {
+      // Compact only when most of the pending bytes are consumed, so retaining a large field stays linear
+      pendingIndex = to;
+    } else {
+      pending = data.getBuffer(to, length);
+      pendingIndex = 0;
+    }
+  }
+
+  /**
+   * Signal the end of the message.
+   *
+   * @throws DecodeException when the message is truncated
+   */
+  public void end() {
+    if (ended) {
+      throw new IllegalStateException("Parser ended");
+    }
+    if (pending != null || !frames.isEmpty()) {
+      throw new DecodeException("Truncated message");
+    }
+    ended = true;
+    visitor.destroy();
+  }
+
+  private int parse(Buffer data, int index) {
+    ProtobufDecoder decoder = ProtobufDecoder.create(data);
+    int length = data.length();
+    // Absolute position of data[0]
+    long base = position - index;
+    while (true) {
+      Frame frame;
+      while ((frame = frames.peek()) != null && frame.end == base + index) {
+        frames.pop();
+        visitor.leave(frame.field);
+      }
+      if (index == length) {
+        return index;
+      }
+      // When the enclosing message ends within the data, an incomplete field is a truncated field
+      int limit;
+      boolean bounded;
+      if (frame != null && frame.end - base <= length) {
+        limit = (int) (frame.end - base);
+        bounded = true;
+      } else {
+        limit = length;
+        bounded = false;
+      }
+      int tagSize = varIntSize(data, index, limit);
+      if (tagSize < 0) {
+        return incomplete(bounded, index);
+      }
+      decoder.index(index).len(limit);
+      decoder.readTag();
+      int valueIndex = index + tagSize;
+      int valueSize;
+      switch (decoder.wireType()) {
+        case 0:
+          valueSize = varIntSize(data, valueIndex, limit);
+          break;
+        case 1:
+          valueSize = limit - valueIndex >= 8 ? 8 : -1;
+          break;
+        case 5:
+          valueSize = limit - valueIndex >= 4 ? 4 : -1;
+          break;
+        case 2:
+          int lenSize = varIntSize(data, valueIndex, limit);
+          if (lenSize < 0) {
+            valueSize = -1;
+            break;
+          }
+          decoder.index(valueIndex);
+          decoder.readVarInt32();
+          int len = decoder.intValue();
+          if (len < 0) {
+            throw new DecodeException("Invalid length " + len);
+          }
+          MessageType type = frame != null ? (MessageType) frame.field.type() : rootType;
+          int fieldNumber = decoder.fieldNumber();
+          Field field = fieldNumber != 0 ? type.field(fieldNumber) : null;
+          if (field != null && field.type() instanceof MessageType && !visitor.isLazy(field)) {
+            long end = base + valueIndex + lenSize + len;
+            if (frame != null && end > frame.end) {
+              throw new DecodeException("Truncated message");
+            }
+            index = valueIndex + lenSize;
+            frames.push(new Frame(field, end));
+            visitor.enter(field);
+            continue;
+          }
+          valueSize = len <= limit - valueIndex - lenSize ? lenSize + len : -1;
+          break;
+        default:
+          throw new DecodeException("Invalid wire type: " + decoder.wireType());
+      }
+      if (valueSize < 0) {
+        return incomplete(bounded, index);
+      }
+      decoder.index(index);
+      reader.parseField(decoder, frame != null ? (MessageType) frame.field.type() : rootType, visitor);
+      index = decoder.index();
+    }
+  }
+
+  private static int incomplete(boolean bounded, int index) {
+    if (bounded) {
+      throw new DecodeException("Truncated message");
+    }
+    return index;
+  }
+
+  /**
+   * @return the size of the var int at {@code index} or {@code -1} when it is incomplete
+   */
+  private static int varIntSize(Buffer data, int index, int limit) {
+    for (int i = 0;i < 10;i++) {
+      if (index + i >= limit) {
+        return -1;
+      }
+      if (data.getByte(index + i) >= 0) {
+        return i + 1;
+      }
+    }
+    throw new DecodeException("Malformed var int");
+  }
+}
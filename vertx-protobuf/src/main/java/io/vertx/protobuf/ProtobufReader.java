@@ -4,10 +4,12 @@ import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.DecodeException;
 import io.vertx.protobuf.schema.EnumType;
 import io.vertx.protobuf.schema.Field;
+import io.vertx.protobuf.schema.FieldSequence;
 import io.vertx.protobuf.schema.MessageType;
 import io.vertx.protobuf.schema.ScalarType;
 import io.vertx.protobuf.schema.WireType;
 
+import java.nio.ByteBuffer;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +28,8 @@ public class ProtobufReader {
     null
   };
 
+  private static final ProtobufReaderOptions DEFAULT_OPTIONS = new ProtobufReaderOptions();
+
   private static void parseI64(ProtobufDecoder decoder, Field field, ProtoVisitor visitor) {
     assertTrue(decoder.readI64());
     long v = decoder.longValue();
@@ -117,30 +121,138 @@ public class ProtobufReader {
     }
   }
 
-  private static void parseUnknownLen(ProtobufDecoder decoder, MessageType messageType, int fieldNumber, ProtoVisitor unknownFieldHandler) {
-    assertTrue(decoder.readVarInt32());
-    int len = decoder.intValue();
-    byte[] data = decoder.readBytes(len);
-    Field field = messageType.unknownField(fieldNumber, WireType.LEN);
-    unknownFieldHandler.visitBytes(field, data);
+  // The reader visiting a lazy message on the current thread, parsing the message reuses it
+  private static final ThreadLocal<ProtobufReader> CURRENT = new ThreadLocal<>();
+
+  private final ProtobufReaderOptions options;
+  private final int copyThreshold;
+  private final boolean lazyStrings;
+  private final boolean discardUnknownFields;
+  private final DiscardedBytesCounter discardedBytesCounter;
+  private int[] ints;
+  private long[] longs;
+  private float[] floats;
+  private double[] doubles;
+  private boolean[] bools;
+
+  ProtobufReader(ProtobufReaderOptions options) {
+    this.options = options;
+    this.copyThreshold = options.getCopyThreshold();
+    this.lazyStrings = options.isLazyStrings();
+    this.discardUnknownFields = options.isDiscardUnknownFields();
+    this.discardedBytesCounter = options.getDiscardedBytesCounter();
   }
 
-  private static void parseUnknownI32(ProtobufDecoder decoder, MessageType messageType, int fieldNumber, ProtoVisitor unknownFieldHandler) {
-    assertTrue(decoder.readI32());
-    int v = decoder.intValue();
-    unknownFieldHandler.visitFixed32(messageType.unknownField(fieldNumber, WireType.I32), v);
+  private void parseUnknown(ProtobufDecoder decoder, int from, MessageType type, WireType wireType, ProtoVisitor visitor) {
+    skip(decoder, wireType);
+    int len = decoder.index() - from;
+    decoder.index(from);
+    Buffer bytes;
+    if (len >= copyThreshold) {
+      bytes = decoder.readSlice(len);
+    } else {
+      bytes = Buffer.buffer(decoder.readBytes(len));
+    }
+    visitor.visitUnknownFields(type, bytes);
   }
 
-  private static void parseUnknownI64(ProtobufDecoder decoder, MessageType messageType, int fieldNumber, ProtoVisitor unknownFieldHandler) {
-    assertTrue(decoder.readI64());
-    long v = decoder.longValue();
-    unknownFieldHandler.visitFixed64(messageType.unknownField(fieldNumber, WireType.I64), v);
+  private void visitBytes(ProtobufDecoder decoder, Field field, int len, ProtoVisitor visitor) {
+    if (len >= copyThreshold) {
+      visitor.visitBytes(field, decoder.readSlice(len));
+    } else {
+      visitor.visitBytes(field, decoder.readBytes(len));
+    }
   }
 
-  private static void parseUnknownVarInt(ProtobufDecoder decoder, MessageType messageType, int fieldNumber, ProtoVisitor unknownFieldHandler) {
-    assertTrue(decoder.readVarInt64());
-    long v = decoder.longValue();
-    unknownFieldHandler.visitInt64(messageType.unknownField(fieldNumber, WireType.VARINT), v);
+  /**
+   * @return the options of the reader visiting a lazy message on the calling thread or {@code null}, e.g. to decode
+   *         the message later with the same options
+   */
+  public static ProtobufReaderOptions currentOptions() {
+    ProtobufReader reader = CURRENT.get();
+    return reader != null ? reader.options : null;
+  }
+
+  static void visitMessage(Field field, Buffer bytes, ProtoVisitor visitor) {
+    ProtobufReader reader = CURRENT.get();
+    if (reader == null) {
+      reader = new ProtobufReader(DEFAULT_OPTIONS);
+    }
+    reader.parseMessage(field, bytes, visitor);
+  }
+
+  private void parseMessage(Field field, Buffer bytes, ProtoVisitor visitor) {
+    visitor.enter(field);
+    parse(ProtobufDecoder.create(bytes), (MessageType) field.type(), visitor);
+    visitor.leave(field);
+  }
+
+  /**
+   * Visit a lazy message, the visitor parsing it with {@link ProtoVisitor#visitMessage(Field, Buffer)} reuses this
+   * reader.
+   */
+  private void visitLazyMessage(Field field, Buffer bytes, ProtoVisitor visitor) {
+    ProtobufReader prev = CURRENT.get();
+    if (prev == this) {
+      visitor.visitMessage(field, bytes);
+      return;
+    }
+    CURRENT.set(this);
+    try {
+      visitor.visitMessage(field, bytes);
+    } finally {
+      if (prev == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(prev);
+      }
+    }
+  }
+
+  /**
+   * Read the field of the last tag read by the {@code decoder} in wire format, from its tag at {@code from} to its end,
+   * e.g. an unknown field of a generated parser. The bytes are copied.
+   */
+  public static Buffer readUnknownField(ProtobufDecoder decoder, int from) {
+    if (decoder.fieldNumber() == 0) {
+      throw new DecodeException();
+    }
+    WireType wireType = wireTypes[decoder.wireType()];
+    if (wireType == null) {
+      throw new DecodeException("Invalid wire type: " + decoder.wireType());
+    }
+    skip(decoder, wireType);
+    int len = decoder.index() - from;
+    decoder.index(from);
+    return Buffer.buffer(decoder.readBytes(len));
+  }
+
+  static void visitUnknownFields(MessageType type, Buffer bytes, ProtoVisitor visitor) {
+    ProtobufDecoder decoder = ProtobufDecoder.create(bytes);
+    while (decoder.isReadable()) {
+      assertTrue(decoder.readTag());
+      int fieldNumber = decoder.fieldNumber();
+      switch (decoder.wireType()) {
+        case 2:
+          assertTrue(decoder.readVarInt32());
+          visitor.visitBytes(type.unknownField(fieldNumber, WireType.LEN), decoder.readSlice(decoder.intValue()));
+          break;
+        case 5:
+          assertTrue(decoder.readI32());
+          visitor.visitFixed32(type.unknownField(fieldNumber, WireType.I32), decoder.intValue());
+          break;
+        case 1:
+          assertTrue(decoder.readI64());
+          visitor.visitFixed64(type.unknownField(fieldNumber, WireType.I64), decoder.longValue());
+          break;
+        case 0:
+          assertTrue(decoder.readVarInt64());
+          visitor.visitInt64(type.unknownField(fieldNumber, WireType.VARINT), decoder.longValue());
+          break;
+        default:
+          throw new DecodeException("Invalid wire type: " + decoder.wireType());
+      }
+    }
   }
 
   private static class Region {
@@ -160,6 +272,15 @@ public class ProtobufReader {
     assertTrue(decoder.readVarInt32());
     int len = decoder.intValue();
     if (field.type() instanceof MessageType) {
+      if (visitor.isLazy(field)) {
+        // Parsed on demand
+        if (len >= copyThreshold) {
+          visitLazyMessage(field, decoder.readSlice(len), visitor);
+        } else {
+          visitLazyMessage(field, Buffer.buffer(decoder.readBytes(len)), visitor);
+        }
+        return;
+      }
       int to = decoder.len();
       decoder.len(decoder.index() + len);
       visitor.enter(field);
@@ -168,30 +289,29 @@ public class ProtobufReader {
       decoder.len(to);
       visitor.leave(field);
     } else if (field.type() instanceof EnumType) {
-      visitor.enterPacked(field);
-      parsePackedVarInt32(decoder, field, len, visitor);
-      visitor.leavePacked(field);
+      parsePackedVarInt(decoder, field, len, visitor);
     } else {
       ScalarType builtInType = (ScalarType) field.type();
       switch (builtInType.id()) {
         case STRING:
-          String s = decoder.readString(len);
 //          visitor.enter(field);
-          visitor.visitString(field, s);
+          if (lazyStrings) {
+            visitor.visitString(field, decoder.readUtf8String(len));
+          } else {
+            visitor.visitString(field, decoder.readString(len));
+          }
 //          visitor.leave(field);
           break;
         case BYTES:
-          byte[] bytes = decoder.readBytes(len);
 //          visitor.enter(field);
-          visitor.visitBytes(field, bytes);
+          visitBytes(decoder, field, len, visitor);
 //          visitor.leave(field);
           break;
         default:
           // Packed
-          visitor.enterPacked(field);
           switch (builtInType.wireType()) {
             case VARINT:
-              parsePackedVarInt32(decoder, field, len, visitor);
+              parsePackedVarInt(decoder, field, len, visitor);
               break;
             case I64:
               parsePackedI64(decoder, field, len, visitor);
@@ -202,80 +322,416 @@ public class ProtobufReader {
             default:
               throw new UnsupportedOperationException("" + field.type());
           }
-          visitor.leavePacked(field);
       }
     }
   }
 
-  private void parsePackedVarInt32(ProtobufDecoder decoder, Field field, int len, ProtoVisitor visitor) {
+  private void parsePackedVarInt(ProtobufDecoder decoder, Field field, int len, ProtoVisitor visitor) {
     int to = decoder.index() + len;
-    while (decoder.index() < to) {
-      parseVarInt(decoder, field, visitor);
+    int count = decoder.countVarInts(len);
+    switch (field.type().id()) {
+      case INT32:
+      case UINT32:
+      case ENUM: {
+        int[] values = ints(count);
+        for (int i = 0;i < count;i++) {
+          assertTrue(decoder.readVarInt32());
+          values[i] = decoder.intValue();
+        }
+        checkPackedEnd(decoder, to);
+        visitor.visitPackedInt32s(field, values, 0, count);
+        break;
+      }
+      case SINT32: {
+        int[] values = ints(count);
+        for (int i = 0;i < count;i++) {
+          assertTrue(decoder.readVarInt32());
+          values[i] = decodeSInt32(decoder.intValue());
+        }
+        checkPackedEnd(decoder, to);
+        visitor.visitPackedInt32s(field, values, 0, count);
+        break;
+      }
+      case INT64:
+      case UINT64: {
+        long[] values = longs(count);
+        for (int i = 0;i < count;i++) {
+          assertTrue(decoder.readVarInt64());
+          values[i] = decoder.longValue();
+        }
+        checkPackedEnd(decoder, to);
+        visitor.visitPackedInt64s(field, values, 0, count);
+        break;
+      }
+      case SINT64: {
+        long[] values = longs(count);
+        for (int i = 0;i < count;i++) {
+          assertTrue(decoder.readVarInt64());
+          values[i] = decodeSInt64(decoder.longValue());
+        }
+        checkPackedEnd(decoder, to);
+        visitor.visitPackedInt64s(field, values, 0, count);
+        break;
+      }
+      case BOOL: {
+        boolean[] values = bools(count);
+        for (int i = 0;i < count;i++) {
+          assertTrue(decoder.readVarInt64());
+          values[i] = decoder.longValue() != 0;
+        }
+        checkPackedEnd(decoder, to);
+        visitor.visitPackedBools(field, values, 0, count);
+        break;
+      }
+      default:
+        throw new UnsupportedOperationException("" + field.type());
+    }
+  }
+
+  private static void checkPackedEnd(ProtobufDecoder decoder, int to) {
+    if (decoder.index() != to) {
+      throw new DecodeException("Malformed packed field");
     }
   }
 
   private void parsePackedI64(ProtobufDecoder decoder, Field field, int len, ProtoVisitor visitor) {
-    int to = decoder.index() + len;
-    while (decoder.index() < to) {
-      assertTrue(decoder.readI64());
-      long v = decoder.longValue();
-      dispatchI64(field, v, visitor);
+    if ((len & 7) != 0) {
+      throw new DecodeException("Invalid packed length " + len);
+    }
+    int count = len >> 3;
+    switch (field.type().id()) {
+      case FIXED64:
+      case SFIXED64: {
+        long[] values = longs(count);
+        decoder.readI64s(values, 0, count);
+        visitor.visitPackedInt64s(field, values, 0, count);
+        break;
+      }
+      case DOUBLE: {
+        double[] values = doubles(count);
+        decoder.readDoubles(values, 0, count);
+        visitor.visitPackedDoubles(field, values, 0, count);
+        break;
+      }
+      default:
+        throw new UnsupportedOperationException();
     }
   }
 
   private void parsePackedI32(ProtobufDecoder decoder, Field field, int len, ProtoVisitor visitor) {
-    int to = decoder.index() + len;
-    while (decoder.index() < to) {
-      assertTrue(decoder.readI32());
-      int v = decoder.intValue();
-      dispatchI32(field, v, visitor);
+    if ((len & 3) != 0) {
+      throw new DecodeException("Invalid packed length " + len);
+    }
+    int count = len >> 2;
+    switch (field.type().id()) {
+      case FIXED32:
+      case SFIXED32: {
+        int[] values = ints(count);
+        decoder.readI32s(values, 0, count);
+        visitor.visitPackedInt32s(field, values, 0, count);
+        break;
+      }
+      case FLOAT: {
+        float[] values = floats(count);
+        decoder.readFloats(values, 0, count);
+        visitor.visitPackedFloats(field, values, 0, count);
+        break;
+      }
+      default:
+        throw new UnsupportedOperationException();
+    }
+  }
+
+  // Scratch arrays of the packed fields, reused for the duration of a parse
+
+  private int[] ints(int size) {
+    int[] a = ints;
+    if (a == null || a.length < size) {
+      ints = a = new int[size];
     }
+    return a;
+  }
+
+  private long[] longs(int size) {
+    long[] a = longs;
+    if (a == null || a.length < size) {
+      longs = a = new long[size];
+    }
+    return a;
+  }
+
+  private float[] floats(int size) {
+    float[] a = floats;
+    if (a == null || a.length < size) {
+      floats = a = new float[size];
+    }
+    return a;
+  }
+
+  private double[] doubles(int size) {
+    double[] a = doubles;
+    if (a == null || a.length < size) {
+      doubles = a = new double[size];
+    }
+    return a;
+  }
+
+  private boolean[] bools(int size) {
+    boolean[] a = bools;
+    if (a == null || a.length < size) {
+      bools = a = new boolean[size];
+    }
+    return a;
+  }
+
+  static void visitPackedInt32s(Field field, int[] values, int offset, int length, ProtoVisitor visitor) {
+    visitor.enterPacked(field);
+    for (int i = 0;i < length;i++) {
+      int v = values[offset + i];
+      switch (field.type().id()) {
+        case INT32:
+          visitor.visitInt32(field, v);
+          break;
+        case UINT32:
+          visitor.visitUInt32(field, v);
+          break;
+        case SINT32:
+          visitor.visitSInt32(field, v);
+          break;
+        case ENUM:
+          visitor.visitEnum(field, v);
+          break;
+        case FIXED32:
+          visitor.visitFixed32(field, v);
+          break;
+        case SFIXED32:
+          visitor.visitSFixed32(field, v);
+          break;
+        default:
+          throw new UnsupportedOperationException("" + field.type());
+      }
+    }
+    visitor.leavePacked(field);
+  }
+
+  static void visitPackedInt64s(Field field, long[] values, int offset, int length, ProtoVisitor visitor) {
+    visitor.enterPacked(field);
+    for (int i = 0;i < length;i++) {
+      long v = values[offset + i];
+      switch (field.type().id()) {
+        case INT64:
+          visitor.visitInt64(field, v);
+          break;
+        case UINT64:
+          visitor.visitUInt64(field, v);
+          break;
+        case SINT64:
+          visitor.visitSInt64(field, v);
+          break;
+        case FIXED64:
+          visitor.visitFixed64(field, v);
+          break;
+        case SFIXED64:
+          visitor.visitSFixed64(field, v);
+          break;
+        default:
+          throw new UnsupportedOperationException("" + field.type());
+      }
+    }
+    visitor.leavePacked(field);
   }
 
   public static void parse(MessageType rootType, ProtoVisitor visitor, Buffer buffer) {
-    ProtobufReader reader = new ProtobufReader();
-    ProtobufDecoder decoder = new ProtobufDecoder(buffer);
+    parse(rootType, visitor, new ProtobufDecoder(buffer));
+  }
+
+  public static void parse(MessageType rootType, ProtoVisitor visitor, byte[] bytes) {
+    parse(rootType, visitor, ProtobufDecoder.create(bytes));
+  }
+
+  public static void parse(MessageType rootType, ProtoVisitor visitor, ByteBuffer buffer) {
+    parse(rootType, visitor, ProtobufDecoder.create(buffer));
+  }
+
+  /**
+   * Parse the readable bytes of the {@code decoder}, the decoder can be created from any supported input,
+   * see {@link ProtobufDecoder#create}.
+   */
+  public static void parse(MessageType rootType, ProtoVisitor visitor, ProtobufDecoder decoder) {
+    parse(rootType, visitor, decoder, DEFAULT_OPTIONS);
+  }
+
+  /**
+   * Like {@link #parse(MessageType, ProtoVisitor, ProtobufDecoder)} with the reader {@code options}.
+   */
+  public static void parse(MessageType rootType, ProtoVisitor visitor, ProtobufDecoder decoder, ProtobufReaderOptions options) {
+    new ProtobufReader(options).read(rootType, visitor, decoder);
+  }
+
+  /**
+   * Parse the readable bytes of the {@code decoder}, visiting only the fields selected by the {@code projection}.
+   */
+  public static void parse(FieldProjection projection, ProtoVisitor visitor, ProtobufDecoder decoder) {
+    parse(projection, visitor, decoder, DEFAULT_OPTIONS);
+  }
+
+  /**
+   * Like {@link #parse(FieldProjection, ProtoVisitor, ProtobufDecoder)} with the reader {@code options}.
+   */
+  public static void parse(FieldProjection projection, ProtoVisitor visitor, ProtobufDecoder decoder, ProtobufReaderOptions options) {
+    ProtobufReader reader = new ProtobufReader(options);
+    visitor.init(projection.type());
+    reader.parse(decoder, projection, visitor);
+    visitor.destroy();
+  }
+
+  /**
+   * Create a push parser of a {@code rootType} message fed with successive chunks, see {@link ProtobufParser}.
+   */
+  public static ProtobufParser parser(MessageType rootType, ProtoVisitor visitor) {
+    return parser(rootType, visitor, DEFAULT_OPTIONS);
+  }
+
+  /**
+   * Like {@link #parser(MessageType, ProtoVisitor)} with the reader {@code options}.
+   */
+  public static ProtobufParser parser(MessageType rootType, ProtoVisitor visitor, ProtobufReaderOptions options) {
+    return new ProtobufParser(new ProtobufReader(options), rootType, visitor);
+  }
+
+  void read(MessageType rootType, ProtoVisitor visitor, ProtobufDecoder decoder) {
     visitor.init(rootType);
-    reader.parse(decoder, rootType, visitor);
+    parse(decoder, rootType, visitor);
     visitor.destroy();
   }
 
   private void parse(ProtobufDecoder decoder, MessageType type, ProtoVisitor visitor) {
+    FieldSequence sequence = type.fieldSequence();
+    if (sequence == null) {
+      while (decoder.isReadable()) {
+        parseField(decoder, type, visitor);
+      }
+      return;
+    }
+    // Predict the next field from the previous one, a hit is resolved by comparing the tag
+    int size = sequence.size();
+    int next = 0;
     while (decoder.isReadable()) {
+      int start = decoder.index();
       assertTrue(decoder.readTag());
-      int fieldNumber  = decoder.fieldNumber();
+      int tag = decoder.tag();
+      int index;
+      if (next < size && sequence.tag(next) == tag) {
+        index = next;
+      } else if (next + 1 < size && sequence.tag(next + 1) == tag) {
+        index = next + 1;
+      } else {
+        int fieldNumber = decoder.fieldNumber();
+        dispatchField(decoder, start, type, visitor);
+        index = sequence.indexOf(fieldNumber);
+        if (index >= 0) {
+          next = sequence.next(index);
+        }
+        continue;
+      }
+      foo(decoder, sequence.wireType(index), sequence.field(index), visitor);
+      next = sequence.next(index);
+    }
+  }
+
+  private void parse(ProtobufDecoder decoder, FieldProjection projection, ProtoVisitor visitor) {
+    while (decoder.isReadable()) {
+      assertTrue(decoder.readTag());
+      int fieldNumber = decoder.fieldNumber();
       if (fieldNumber == 0) {
         throw new DecodeException();
       }
       int decodedWireType = decoder.wireType();
-      Field field = type.field(fieldNumber);
       WireType wireType = wireTypes[decodedWireType];
       if (wireType == null) {
         throw new DecodeException("Invalid wire type: " + decodedWireType);
       }
-      if (field == null) {
-        switch (wireType) {
-          case LEN:
-            parseUnknownLen(decoder, type, fieldNumber, visitor);
-            break;
-          case I32:
-            parseUnknownI32(decoder, type, fieldNumber, visitor);
-            break;
-          case I64:
-            parseUnknownI64(decoder, type, fieldNumber, visitor);
-            break;
-          case VARINT:
-            parseUnknownVarInt(decoder, type, fieldNumber, visitor);
-            break;
-          default:
-            throw new UnsupportedOperationException("Todo");
-        }
+      int index = projection.indexOf(fieldNumber);
+      if (index < 0) {
+        skip(decoder, wireType);
+        continue;
+      }
+      Field field = projection.field(index);
+      FieldProjection child = projection.child(index);
+      if (child != null && wireType == WireType.LEN) {
+        assertTrue(decoder.readVarInt32());
+        int len = decoder.intValue();
+        int to = decoder.len();
+        decoder.len(decoder.index() + len);
+        visitor.enter(field);
+        parse(decoder, child, visitor);
+        decoder.len(to);
+        visitor.leave(field);
       } else {
         foo(decoder, wireType, field, visitor);
       }
     }
   }
 
+  private void discardUnknown(ProtobufDecoder decoder, int from, MessageType type, WireType wireType) {
+    skip(decoder, wireType);
+    if (discardedBytesCounter != null) {
+      discardedBytesCounter.add(type, decoder.index() - from);
+    }
+  }
+
+  private static void skip(ProtobufDecoder decoder, WireType wireType) {
+    switch (wireType) {
+      case VARINT:
+        assertTrue(decoder.readVarInt64());
+        break;
+      case I64:
+        decoder.skip(8);
+        break;
+      case I32:
+        decoder.skip(4);
+        break;
+      case LEN:
+        assertTrue(decoder.readVarInt32());
+        decoder.skip(decoder.intValue());
+        break;
+    }
+  }
+
+  /**
+   * Parse the field at the decoder index.
+   */
+  void parseField(ProtobufDecoder decoder, MessageType type, ProtoVisitor visitor) {
+    int start = decoder.index();
+    assertTrue(decoder.readTag());
+    dispatchField(decoder, start, type, visitor);
+  }
+
+  /**
+   * Dispatch the field of the tag read at {@code start}, a tag can be encoded with more bytes than necessary.
+   */
+  private void dispatchField(ProtobufDecoder decoder, int start, MessageType type, ProtoVisitor visitor) {
+    int fieldNumber  = decoder.fieldNumber();
+    if (fieldNumber == 0) {
+      throw new DecodeException();
+    }
+    int decodedWireType = decoder.wireType();
+    Field field = type.field(fieldNumber);
+    WireType wireType = wireTypes[decodedWireType];
+    if (wireType == null) {
+      throw new DecodeException("Invalid wire type: " + decodedWireType);
+    }
+    if (field == null) {
+      if (discardUnknownFields) {
+        discardUnknown(decoder, start, type, wireType);
+        return;
+      }
+      parseUnknown(decoder, start, type, wireType, visitor);
+    } else {
+      foo(decoder, wireType, field, visitor);
+    }
+  }
+
   private void foo(ProtobufDecoder decoder, WireType wireType, Field field, ProtoVisitor visitor) {
     switch (wireType) {
       case LEN:
@@ -0,0 +1,121 @@
+package io.vertx.protobuf;
+
+/**
+ * Options configuring {@link ProtobufReader}.
+ */
+public class ProtobufReaderOptions {
+
+  /**
+   * The default copy threshold = {@code Integer.MAX_VALUE}, bytes fields are always copied.
+   */
+  public static final int DEFAULT_COPY_THRESHOLD = Integer.MAX_VALUE;
+
+  /**
+   * The default lazy strings = {@code false}, string fields are decoded eagerly.
+   */
+  public static final boolean DEFAULT_LAZY_STRINGS = false;
+
+  /**
+   * The default discard unknown fields = {@code false}, unknown fields are visited.
+   */
+  public static final boolean DEFAULT_DISCARD_UNKNOWN_FIELDS = false;
+
+  private int copyThreshold;
+  private boolean lazyStrings;
+  private boolean discardUnknownFields;
+  private DiscardedBytesCounter discardedBytesCounter;
+
+  public ProtobufReaderOptions() {
+    copyThreshold = DEFAULT_COPY_THRESHOLD;
+    lazyStrings = DEFAULT_LAZY_STRINGS;
+    discardUnknownFields = DEFAULT_DISCARD_UNKNOWN_FIELDS;
+  }
+
+  public ProtobufReaderOptions(ProtobufReaderOptions other) {
+    copyThreshold = other.copyThreshold;
+    lazyStrings = other.lazyStrings;
+    discardUnknownFields = other.discardUnknownFields;
+    discardedBytesCounter = other.discardedBytesCounter;
+  }
+
+  /**
+   * @return the size in bytes from which bytes fields are visited as slices of the input
+   */
+  public int getCopyThreshold() {
+    return copyThreshold;
+  }
+
+  /**
+   * Set the size in bytes from which bytes fields (and unknown length delimited fields) are visited as read-only
+   * slices of the input with {@link ProtoVisitor#visitBytes(io.vertx.protobuf.schema.Field, io.vertx.core.buffer.Buffer)}
+   * instead of being copied, the same applies to lazy message fields visited with
+   * {@link ProtoVisitor#visitMessage(io.vertx.protobuf.schema.Field, io.vertx.core.buffer.Buffer)}.
+   * <p>
+   * Smaller fields are still copied, so they do not retain the input when they outlive it.
+   *
+   * @param copyThreshold the threshold
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ProtobufReaderOptions setCopyThreshold(int copyThreshold) {
+    if (copyThreshold < 0) {
+      throw new IllegalArgumentException("Copy threshold must be >= 0");
+    }
+    this.copyThreshold = copyThreshold;
+    return this;
+  }
+
+  /**
+   * @return whether string fields are visited as {@link Utf8String} views over the input
+   */
+  public boolean isLazyStrings() {
+    return lazyStrings;
+  }
+
+  /**
+   * Set whether string fields are visited with {@link ProtoVisitor#visitString(io.vertx.protobuf.schema.Field, Utf8String)}
+   * as {@link Utf8String} views over the input, decoding is then deferred until the string is accessed.
+   *
+   * @param lazyStrings the value
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ProtobufReaderOptions setLazyStrings(boolean lazyStrings) {
+    this.lazyStrings = lazyStrings;
+    return this;
+  }
+
+  /**
+   * @return whether unknown fields are discarded
+   */
+  public boolean isDiscardUnknownFields() {
+    return discardUnknownFields;
+  }
+
+  /**
+   * Set whether unknown fields are skipped in place instead of being visited, nothing is allocated for them.
+   *
+   * @param discardUnknownFields the value
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ProtobufReaderOptions setDiscardUnknownFields(boolean discardUnknownFields) {
+    this.discardUnknownFields = discardUnknownFields;
+    return this;
+  }
+
+  /**
+   * @return the counter of discarded bytes
+   */
+  public DiscardedBytesCounter getDiscardedBytesCounter() {
+    return discardedBytesCounter;
+  }
+
+  /**
+   * Set the counter of the bytes of the unknown fields discarded per message type, when unknown fields are discarded.
+   *
+   * @param discardedBytesCounter the counter or {@code null}
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ProtobufReaderOptions setDiscardedBytesCounter(DiscardedBytesCounter discardedBytesCounter) {
+    this.discardedBytesCounter = discardedBytesCounter;
+    return this;
+  }
+}
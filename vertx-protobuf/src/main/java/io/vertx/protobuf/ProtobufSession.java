@@ -0,0 +1,186 @@
+package io.vertx.protobuf;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.buffer.BufferInternal;
+import io.vertx.protobuf.schema.MessageType;
+
+import java.util.function.Consumer;
+
+/**
+ * A reusable encoding and decoding session, the state of the writer and the reader are reset and reused by each
+ * call instead of being allocated, their arrays grow on demand so messages of any size and nesting depth can be
+ * encoded.
+ * <p>
+ * A session must be used by a single thread, {@link #current()} returns the session of the calling thread, a session
+ * can also be kept in the local data of a Vert.x context. A call made while the session is already encoding or
+ * decoding, e.g. from a visitor, uses a new session.
+ */
+public class ProtobufSession {
+
+  private static final ThreadLocal<ProtobufSession> CURRENT = ThreadLocal.withInitial(ProtobufSession::new);
+
+  /**
+   * @return the session of the calling thread, configured with the default options
+   */
+  public static ProtobufSession current() {
+    return CURRENT.get();
+  }
+
+  private final ProtobufWriterOptions writerOptions;
+  private final ProtobufReaderOptions readerOptions;
+  private final ProtobufWriter.State state;
+  private final ProtobufWriter.ComputePhase computePhase = new ProtobufWriter.ComputePhase();
+  private final ProtobufWriter.EncodingPhase encodingPhase = new ProtobufWriter.EncodingPhase();
+  private final ProtobufWriter.SinglePass singlePass = new ProtobufWriter.SinglePass();
+  private final ProtobufReader reader;
+  private final ProtobufDecoder decoder = ProtobufDecoder.create(new byte[0]);
+  private boolean active;
+
+  public ProtobufSession() {
+    this(new ProtobufWriterOptions(), new ProtobufReaderOptions());
+  }
+
+  public ProtobufSession(ProtobufWriterOptions writerOptions, ProtobufReaderOptions readerOptions) {
+    this.writerOptions = new ProtobufWriterOptions(writerOptions);
+    this.readerOptions = new ProtobufReaderOptions(readerOptions);
+    this.state = new ProtobufWriter.State(this.writerOptions);
+    this.reader = new ProtobufReader(this.readerOptions);
+  }
+
+  /**
+   * Like {@link ProtobufWriter#encode(Consumer)}.
+   */
+  public Buffer encode(Consumer<ProtoVisitor> consumer) {
+    if (active) {
+      return newSession().encode(consumer);
+    }
+    active = true;
+    try {
+      if (writerOptions.isSinglePass()) {
+        encodeSinglePass(consumer, false);
+        return BufferInternal.buffer(Unpooled.wrappedBuffer(singlePass.toByteArray()));
+      }
+      return encode(consumer, null, false);
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Like {@link ProtobufWriter#encodeToByteArray(Consumer)}.
+   */
+  public byte[] encodeToByteArray(Consumer<ProtoVisitor> consumer) {
+    if (active) {
+      return newSession().encodeToByteArray(consumer);
+    }
+    active = true;
+    try {
+      if (writerOptions.isSinglePass()) {
+        encodeSinglePass(consumer, false);
+        return singlePass.toByteArray();
+      }
+      state.allocator = size -> Unpooled.wrappedBuffer(new byte[size]).clear();
+      return ((BufferInternal) encode(consumer, null, false)).unwrap().array();
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Like {@link ProtobufWriter#encodeTo(Consumer, Buffer)}, encoding in a reused target does not allocate.
+   *
+   * @return {@code target}
+   */
+  public Buffer encodeTo(Consumer<ProtoVisitor> consumer, Buffer target) {
+    return encodeTo(consumer, target, false);
+  }
+
+  /**
+   * Like {@link ProtobufWriter#encodeDelimitedTo(Consumer, Buffer)}.
+   *
+   * @return {@code target}
+   */
+  public Buffer encodeDelimitedTo(Consumer<ProtoVisitor> consumer, Buffer target) {
+    return encodeTo(consumer, target, true);
+  }
+
+  private Buffer encodeTo(Consumer<ProtoVisitor> consumer, Buffer target, boolean delimited) {
+    if (active) {
+      return newSession().encodeTo(consumer, target, delimited);
+    }
+    active = true;
+    try {
+      if (writerOptions.isSinglePass()) {
+        encodeSinglePass(consumer, delimited);
+        return target.appendBytes(singlePass.array, 0, singlePass.pos);
+      }
+      return encode(consumer, target, delimited);
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Like {@link ProtobufReader#parse(MessageType, ProtoVisitor, Buffer)} with the reader options of this session.
+   */
+  public void parse(MessageType rootType, ProtoVisitor visitor, Buffer buffer) {
+    if (active) {
+      newSession().parse(rootType, visitor, buffer);
+      return;
+    }
+    active = true;
+    try {
+      reader.read(rootType, visitor, decoder.reset(buffer));
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Like {@link ProtobufReader#parse(MessageType, ProtoVisitor, byte[])} with the reader options of this session.
+   */
+  public void parse(MessageType rootType, ProtoVisitor visitor, byte[] bytes) {
+    if (active) {
+      newSession().parse(rootType, visitor, bytes);
+      return;
+    }
+    active = true;
+    try {
+      reader.read(rootType, visitor, decoder.reset(bytes, 0, bytes.length));
+    } finally {
+      release();
+    }
+  }
+
+  private Buffer encode(Consumer<ProtoVisitor> consumer, Buffer target, boolean delimited) {
+    state.buffer = target;
+    state.delimited = delimited;
+    return ProtobufWriter.encode(consumer, state, computePhase, encodingPhase);
+  }
+
+  private void encodeSinglePass(Consumer<ProtoVisitor> consumer, boolean delimited) {
+    singlePass.delimited = delimited;
+    consumer.accept(singlePass);
+  }
+
+  /**
+   * @return the decoder reused by {@link #parse}
+   */
+  ProtobufDecoder decoder() {
+    return decoder;
+  }
+
+  private ProtobufSession newSession() {
+    return new ProtobufSession(writerOptions, readerOptions);
+  }
+
+  private void release() {
+    active = false;
+    state.reset();
+    if (encodingPhase.encoder != null) {
+      encodingPhase.encoder.reset(null);
+    }
+    decoder.release();
+  }
+}
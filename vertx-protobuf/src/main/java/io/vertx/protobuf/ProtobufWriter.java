@@ -1,15 +1,20 @@
 package io.vertx.protobuf;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.json.EncodeException;
+import io.vertx.core.internal.buffer.BufferInternal;
 import io.vertx.protobuf.schema.Field;
 import io.vertx.protobuf.schema.MessageType;
 import io.vertx.protobuf.schema.WireType;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.function.Consumer;
-
-import static java.lang.Character.MIN_SUPPLEMENTARY_CODE_POINT;
+import java.util.function.IntFunction;
 
 public class ProtobufWriter {
 
@@ -21,24 +26,169 @@ public class ProtobufWriter {
     return (value << 1) ^ (value >> 63);
   }
 
+  /**
+   * @return the number of bytes of {@code s} encoded as UTF-8
+   */
+  public static int utf8Length(String s) {
+    return Utf8.encodedLength(s);
+  }
+
   public static Buffer encode(Consumer<ProtoVisitor> consumer) {
-    return Buffer.buffer(encodeToByteArray(consumer));
+    return encode(consumer, new State());
   }
 
   public static byte[] encodeToByteArray(Consumer<ProtoVisitor> consumer) {
     State state = new State();
-    ComputePhase visitor = new ComputePhase();
+    state.allocator = size -> Unpooled.wrappedBuffer(new byte[size]).clear();
+    return ((BufferInternal) encode(consumer, state)).unwrap().array();
+  }
+
+  /**
+   * Encode a message in a buffer allocated with its exact size by {@code allocator}, e.g. a pooled direct buffer
+   * written to a socket without copy, the caller is responsible for releasing it.
+   */
+  public static Buffer encode(Consumer<ProtoVisitor> consumer, ByteBufAllocator allocator) {
+    State state = new State();
+    state.allocator = allocator::directBuffer;
+    return encode(consumer, state);
+  }
+
+  /**
+   * Encode a message at the end of {@code target}, which is expanded at most once.
+   *
+   * @return {@code target}
+   */
+  public static Buffer encodeTo(Consumer<ProtoVisitor> consumer, Buffer target) {
+    State state = new State();
+    state.buffer = target;
+    return encode(consumer, state);
+  }
+
+  /**
+   * Encode a message at the writer index of {@code target}, which is expanded at most once.
+   *
+   * @return {@code target}
+   */
+  public static ByteBuf encodeTo(Consumer<ProtoVisitor> consumer, ByteBuf target) {
+    encodeTo(consumer, BufferInternal.buffer(target));
+    return target;
+  }
+
+  /**
+   * Like {@link #encodeDelimited(Consumer)} at the end of {@code target}.
+   *
+   * @return {@code target}
+   */
+  public static Buffer encodeDelimitedTo(Consumer<ProtoVisitor> consumer, Buffer target) {
+    State state = new State();
+    state.buffer = target;
+    state.delimited = true;
+    return encode(consumer, state);
+  }
+
+  /**
+   * Encode a message prefixed with its length as a var int, the {@code writeDelimitedTo} format used to frame
+   * sequences of messages.
+   */
+  public static Buffer encodeDelimited(Consumer<ProtoVisitor> consumer) {
+    State state = new State();
+    state.delimited = true;
+    return encode(consumer, state);
+  }
+
+  /**
+   * Like {@link #encode(Consumer)} with {@code options}.
+   */
+  public static Buffer encode(Consumer<ProtoVisitor> consumer, ProtobufWriterOptions options) {
+    if (options.isSinglePass()) {
+      return encodeSinglePass(consumer, false).buffer();
+    }
+    return encode(consumer, new State(options));
+  }
+
+  /**
+   * Like {@link #encodeToByteArray(Consumer)} with {@code options}.
+   */
+  public static byte[] encodeToByteArray(Consumer<ProtoVisitor> consumer, ProtobufWriterOptions options) {
+    if (options.isSinglePass()) {
+      return encodeSinglePass(consumer, false).toByteArray();
+    }
+    State state = new State(options);
+    state.allocator = size -> Unpooled.wrappedBuffer(new byte[size]).clear();
+    return ((BufferInternal) encode(consumer, state)).unwrap().array();
+  }
+
+  /**
+   * Like {@link #encodeDelimited(Consumer)} with {@code options}.
+   */
+  public static Buffer encodeDelimited(Consumer<ProtoVisitor> consumer, ProtobufWriterOptions options) {
+    if (options.isSinglePass()) {
+      return encodeSinglePass(consumer, true).buffer();
+    }
+    State state = new State(options);
+    state.delimited = true;
+    return encode(consumer, state);
+  }
+
+  private static SinglePass encodeSinglePass(Consumer<ProtoVisitor> consumer, boolean delimited) {
+    SinglePass visitor = new SinglePass();
+    visitor.delimited = delimited;
+    consumer.accept(visitor);
+    return visitor;
+  }
+
+  private static Buffer encode(Consumer<ProtoVisitor> consumer, State state) {
+    return encode(consumer, state, new ComputePhase(), new EncodingPhase());
+  }
+
+  static Buffer encode(Consumer<ProtoVisitor> consumer, State state, ComputePhase visitor, EncodingPhase encoder) {
     visitor.state = state;
     consumer.accept(visitor);
-    EncodingPhase encoder = new EncodingPhase();
     encoder.state = state;
     consumer.accept(encoder);
-    return state.buffer.getBytes();
+    return state.buffer;
   }
 
   static class State {
+
+    private static final byte[][] EMPTY_UTF8_CACHE = new byte[0][];
+
     int[] capture = new int[50];
+    // The target or null to allocate a buffer of the exact size
     Buffer buffer;
+    IntFunction<ByteBuf> allocator;
+    boolean delimited;
+    final int utf8CacheThreshold;
+    // The strings of at least utf8CacheThreshold chars encoded by the compute phase, null for an ASCII string
+    byte[][] utf8Cache = EMPTY_UTF8_CACHE;
+
+    State() {
+      this.utf8CacheThreshold = ProtobufWriterOptions.DEFAULT_UTF8_CACHE_THRESHOLD;
+    }
+
+    State(ProtobufWriterOptions options) {
+      this.utf8CacheThreshold = options.getUtf8CacheThreshold();
+    }
+
+    void cacheUtf8(int index, byte[] bytes) {
+      if (index == utf8Cache.length) {
+        utf8Cache = Arrays.copyOf(utf8Cache, Math.max(4, index * 2));
+      }
+      utf8Cache[index] = bytes;
+    }
+
+    byte[] cachedUtf8(int index) {
+      byte[] bytes = utf8Cache[index];
+      utf8Cache[index] = null;
+      return bytes;
+    }
+
+    void reset() {
+      buffer = null;
+      allocator = null;
+      delimited = false;
+      Arrays.fill(utf8Cache, null);
+    }
   }
 
   static class ComputePhase implements ProtoVisitor {
@@ -53,7 +203,7 @@ public class ProtobufWriter {
     boolean packed;
 
     private int sizeOf(Field field) {
-      return ProtobufEncoder.computeRawVarint32Size(field.number() << 3 | field.type().wireType().id);
+      return ProtobufEncoder.computeRawVarint32Size(field.tag());
     }
 
     @Override
@@ -151,28 +301,138 @@ public class ProtobufWriter {
     }
 
     @Override
-    public void visitString(Field field, String s) {
+    public void visitBytes(Field field, Buffer bytes) {
       enterLengthDelimited(field);
-      int length = 0;
-      int a = s.length();
-      for (int i = 0;i < a;i++) {
-        char c = s.charAt(i);
-        if (c < 128) {
-          length++;
-        } else {
-          length = s.getBytes(StandardCharsets.UTF_8).length;
+      lengths[depth] += bytes.length();
+      leaveLengthDelimited(field);
+    }
+
+    @Override
+    public void visitUnknownFields(MessageType type, Buffer bytes) {
+      lengths[depth] += bytes.length();
+    }
+
+    @Override
+    public void visitMessage(Field field, Buffer bytes) {
+      visitBytes(field, bytes);
+    }
+
+    @Override
+    public void visitPackedInt32s(Field field, int[] values, int offset, int length) {
+      switch (field.type().id()) {
+        case FIXED32:
+        case SFIXED32:
+          visitPackedFixed(field, length, 4);
+          break;
+        case SINT32: {
+          int size = 0;
+          for (int i = 0;i < length;i++) {
+            size += ProtobufEncoder.computeRawVarint32Size(encodeSInt32(values[offset + i]));
+          }
+          visitPackedVarInt(field, length, size);
+          break;
+        }
+        default: {
+          int size = 0;
+          for (int i = 0;i < length;i++) {
+            size += ProtobufEncoder.computeRawVarint32Size(values[offset + i]);
+          }
+          visitPackedVarInt(field, length, size);
           break;
         }
       }
+    }
+
+    @Override
+    public void visitPackedInt64s(Field field, long[] values, int offset, int length) {
+      switch (field.type().id()) {
+        case FIXED64:
+        case SFIXED64:
+          visitPackedFixed(field, length, 8);
+          break;
+        case SINT64: {
+          int size = 0;
+          for (int i = 0;i < length;i++) {
+            size += ProtobufEncoder.computeRawVarint64Size(encodeSInt64(values[offset + i]));
+          }
+          visitPackedVarInt(field, length, size);
+          break;
+        }
+        default: {
+          int size = 0;
+          for (int i = 0;i < length;i++) {
+            size += ProtobufEncoder.computeRawVarint64Size(values[offset + i]);
+          }
+          visitPackedVarInt(field, length, size);
+          break;
+        }
+      }
+    }
+
+    @Override
+    public void visitPackedFloats(Field field, float[] values, int offset, int length) {
+      visitPackedFixed(field, length, 4);
+    }
+
+    @Override
+    public void visitPackedDoubles(Field field, double[] values, int offset, int length) {
+      visitPackedFixed(field, length, 8);
+    }
+
+    @Override
+    public void visitPackedBools(Field field, boolean[] values, int offset, int length) {
+      visitPackedVarInt(field, length, length);
+    }
+
+    /**
+     * Size {@code length} fixed width values in constant time.
+     */
+    private void visitPackedFixed(Field field, int length, int width) {
+      visitPackedVarInt(field, length, length * width);
+    }
+
+    private void visitPackedVarInt(Field field, int length, int size) {
+      if (field.isPacked()) {
+        enterLengthDelimited(field);
+        lengths[depth] += size;
+        leaveLengthDelimited(field);
+      } else {
+        lengths[depth] += length * sizeOf(field) + size;
+      }
+    }
+
+    @Override
+    public void visitString(Field field, String s) {
+      enterLengthDelimited(field);
+      int length = s.length();
+      if (length >= state.utf8CacheThreshold) {
+        byte[] bytes = null;
+        if (Utf8.asciiPrefix(s) < length) {
+          bytes = s.getBytes(StandardCharsets.UTF_8);
+          length = bytes.length;
+        }
+        state.cacheUtf8(string_ptr++, bytes);
+      } else {
+        length = Utf8.encodedLength(s);
+      }
       lengths[depth] += length;
       leaveLengthDelimited(field);
     }
 
+    @Override
+    public void visitString(Field field, Utf8String s) {
+      enterLengthDelimited(field);
+      lengths[depth] += s.utf8Length();
+      leaveLengthDelimited(field);
+    }
+
     @Override
     public void init(MessageType type) {
       string_ptr = 0;
       depth = 0;
       ptr = 0;
+      packed = false;
+      lengths[0] = 0;
       indices[0] = ptr++;
     }
 
@@ -192,6 +452,14 @@ public class ProtobufWriter {
     private void enterLengthDelimited(Field field) {
       numbers[depth] = field.number();
       depth++;
+      if (depth == lengths.length) {
+        numbers = Arrays.copyOf(numbers, depth * 2);
+        lengths = Arrays.copyOf(lengths, depth * 2);
+        indices = Arrays.copyOf(indices, depth * 2);
+      }
+      if (ptr == state.capture.length) {
+        state.capture = Arrays.copyOf(state.capture, ptr * 2);
+      }
       indices[depth] = ptr++;
       lengths[depth] = 0;
     }
@@ -231,14 +499,32 @@ public class ProtobufWriter {
     State state;
     ProtobufEncoder encoder;
     int ptr_;
+    int string_ptr;
     boolean packed;
 
 
     @Override
     public void init(MessageType type) {
       ptr_ = 0;
-      state.buffer = Buffer.buffer(state.capture[ptr_++]);
-      encoder = new ProtobufEncoder(state.buffer);
+      string_ptr = 0;
+      packed = false;
+      int len = state.capture[ptr_++];
+      int size = state.delimited ? ProtobufEncoder.computeRawVarint32Size(len) + len : len;
+      if (state.buffer != null) {
+        ((BufferInternal) state.buffer).unwrap().ensureWritable(size);
+      } else if (state.allocator != null) {
+        state.buffer = BufferInternal.buffer(state.allocator.apply(size));
+      } else {
+        state.buffer = Buffer.buffer(size);
+      }
+      if (encoder == null) {
+        encoder = new ProtobufEncoder(state.buffer);
+      } else {
+        encoder.reset(state.buffer);
+      }
+      if (state.delimited) {
+        encoder.writeVarInt32(len);
+      }
     }
 
     @Override
@@ -263,7 +549,7 @@ public class ProtobufWriter {
 
     public void visitVarInt32(Field field, int v) {
       if (!packed) {
-        encoder.writeTag(field.number(), WireType.VARINT.id);
+        encoder.writeTag(field, WireType.VARINT.id);
       }
       encoder.writeVarInt32(v);
     }
@@ -290,7 +576,7 @@ public class ProtobufWriter {
 
     public void visitVarInt64(Field field, long v) {
       if (!packed) {
-        encoder.writeTag(field.number(), WireType.VARINT.id);
+        encoder.writeTag(field, WireType.VARINT.id);
       }
       encoder.writeVarInt64(v);
     }
@@ -312,7 +598,7 @@ public class ProtobufWriter {
 
     public void visitI32(Field field, int value) {
       if (!packed) {
-        encoder.writeTag(field.number(), WireType.I32.id);
+        encoder.writeTag(field, WireType.I32.id);
       }
       encoder.writeInt(value);
     }
@@ -334,7 +620,7 @@ public class ProtobufWriter {
 
     public void visitI64(Field field, long value) {
       if (!packed) {
-        encoder.writeTag(field.number(), WireType.I64.id);
+        encoder.writeTag(field, WireType.I64.id);
       }
       encoder.writeLong(value);
     }
@@ -346,8 +632,152 @@ public class ProtobufWriter {
       leaveLengthDelimited(field);
     }
 
+    @Override
+    public void visitBytes(Field field, Buffer bytes) {
+      enterLengthDelimited(field);
+      encoder.writeBytes(bytes);
+      leaveLengthDelimited(field);
+    }
+
+    @Override
+    public void visitUnknownFields(MessageType type, Buffer bytes) {
+      encoder.writeBytes(bytes);
+    }
+
+    @Override
+    public void visitMessage(Field field, Buffer bytes) {
+      visitBytes(field, bytes);
+    }
+
+    @Override
+    public void visitPackedInt32s(Field field, int[] values, int offset, int length) {
+      boolean packed = field.isPacked();
+      if (packed) {
+        enterLengthDelimited(field);
+      }
+      switch (field.type().id()) {
+        case FIXED32:
+        case SFIXED32:
+          if (packed) {
+            encoder.writeInts(values, offset, length);
+          } else {
+            for (int i = 0;i < length;i++) {
+              encoder.writeTag(field, WireType.I32.id);
+              encoder.writeInt(values[offset + i]);
+            }
+          }
+          break;
+        case SINT32:
+          for (int i = 0;i < length;i++) {
+            if (!packed) {
+              encoder.writeTag(field, WireType.VARINT.id);
+            }
+            encoder.writeVarInt32(encodeSInt32(values[offset + i]));
+          }
+          break;
+        default:
+          for (int i = 0;i < length;i++) {
+            if (!packed) {
+              encoder.writeTag(field, WireType.VARINT.id);
+            }
+            encoder.writeVarInt32(values[offset + i]);
+          }
+          break;
+      }
+    }
+
+    @Override
+    public void visitPackedInt64s(Field field, long[] values, int offset, int length) {
+      boolean packed = field.isPacked();
+      if (packed) {
+        enterLengthDelimited(field);
+      }
+      switch (field.type().id()) {
+        case FIXED64:
+        case SFIXED64:
+          if (packed) {
+            encoder.writeLongs(values, offset, length);
+          } else {
+            for (int i = 0;i < length;i++) {
+              encoder.writeTag(field, WireType.I64.id);
+              encoder.writeLong(values[offset + i]);
+            }
+          }
+          break;
+        case SINT64:
+          for (int i = 0;i < length;i++) {
+            if (!packed) {
+              encoder.writeTag(field, WireType.VARINT.id);
+            }
+            encoder.writeVarInt64(encodeSInt64(values[offset + i]));
+          }
+          break;
+        default:
+          for (int i = 0;i < length;i++) {
+            if (!packed) {
+              encoder.writeTag(field, WireType.VARINT.id);
+            }
+            encoder.writeVarInt64(values[offset + i]);
+          }
+          break;
+      }
+    }
+
+    @Override
+    public void visitPackedFloats(Field field, float[] values, int offset, int length) {
+      if (field.isPacked()) {
+        enterLengthDelimited(field);
+        encoder.writeFloats(values, offset, length);
+      } else {
+        for (int i = 0;i < length;i++) {
+          encoder.writeTag(field, WireType.I32.id);
+          encoder.writeInt(Float.floatToRawIntBits(values[offset + i]));
+        }
+      }
+    }
+
+    @Override
+    public void visitPackedDoubles(Field field, double[] values, int offset, int length) {
+      if (field.isPacked()) {
+        enterLengthDelimited(field);
+        encoder.writeDoubles(values, offset, length);
+      } else {
+        for (int i = 0;i < length;i++) {
+          encoder.writeTag(field, WireType.I64.id);
+          encoder.writeLong(Double.doubleToRawLongBits(values[offset + i]));
+        }
+      }
+    }
+
+    @Override
+    public void visitPackedBools(Field field, boolean[] values, int offset, int length) {
+      boolean packed = field.isPacked();
+      if (packed) {
+        enterLengthDelimited(field);
+      }
+      for (int i = 0;i < length;i++) {
+        if (!packed) {
+          encoder.writeTag(field, WireType.VARINT.id);
+        }
+        encoder.writeVarInt32(values[offset + i] ? 1 : 0);
+      }
+    }
+
     @Override
     public void visitString(Field field, String s) {
+      int utf8Length = state.capture[ptr_];
+      enterLengthDelimited(field);
+      byte[] bytes = s.length() >= state.utf8CacheThreshold ? state.cachedUtf8(string_ptr++) : null;
+      if (bytes != null) {
+        encoder.writeBytes(bytes);
+      } else {
+        encoder.writeString(s, utf8Length);
+      }
+      leaveLengthDelimited(field);
+    }
+
+    @Override
+    public void visitString(Field field, Utf8String s) {
       enterLengthDelimited(field);
       encoder.writeString(s);
       leaveLengthDelimited(field);
@@ -367,7 +797,7 @@ public class ProtobufWriter {
     }
 
     private void enterLengthDelimited(Field field) {
-      encoder.writeTag(field.number(), WireType.LEN.id);
+      encoder.writeTag(field, WireType.LEN.id);
       encoder.writeVarInt32(state.capture[ptr_++]);
     }
 
@@ -392,26 +822,414 @@ public class ProtobufWriter {
     }
   }
 
-  private static int encodedLengthGeneral(String string, int start) {
-    int utf16Length = string.length();
-    int utf8Length = 0;
-    for (int i = start; i < utf16Length; i++) {
-      char c = string.charAt(i);
-      if (c < 0x800) {
-        utf8Length += (0x7f - c) >>> 31; // branch free!
+  /**
+   * Encode in a single pass to a growable array, one byte is reserved for the length of a length delimited field and
+   * the field is moved when the final length needs more bytes.
+   */
+  static class SinglePass implements ProtoVisitor {
+
+    byte[] array = new byte[256];
+    int pos;
+    // Start of the fields being written
+    int[] starts = new int[10];
+    int depth;
+    boolean packed;
+    boolean delimited;
+
+    Buffer buffer() {
+      return BufferInternal.buffer(Unpooled.wrappedBuffer(array, 0, pos));
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(array, pos);
+    }
+
+    private void ensureCapacity(int length) {
+      if (pos + length > array.length) {
+        array = Arrays.copyOf(array, Math.max(array.length * 2, pos + length));
+      }
+    }
+
+    private void writeTag(Field field, int wireType) {
+      writeVarInt32((field.tag() & ~0x07) | wireType);
+    }
+
+    private void writeVarInt32(int v) {
+      if ((v & ~0x7F) == 0) {
+        ensureCapacity(1);
+        array[pos++] = (byte) v;
+      } else {
+        ensureCapacity(8);
+        int size = ProtobufEncoder.computeRawVarint32Size(v);
+        ProtobufEncoder.encodeVarInt(array, pos, v & 0xFFFFFFFFL, size);
+        pos += size;
+      }
+    }
+
+    private void writeVarInt64(long v) {
+      if ((v & ~0x7FL) == 0) {
+        ensureCapacity(1);
+        array[pos++] = (byte) v;
       } else {
-        utf8Length += 2;
-        // jdk7+: if (Character.isSurrogate(c)) {
-        if (Character.MIN_SURROGATE <= c && c <= Character.MAX_SURROGATE) {
-          // Check that we have a well-formed surrogate pair.
-          int cp = Character.codePointAt(string, i);
-          if (cp < MIN_SUPPLEMENTARY_CODE_POINT) {
-            throw new EncodeException();
+        ensureCapacity(10);
+        int size = ProtobufEncoder.computeRawVarint64Size(v);
+        ProtobufEncoder.encodeVarInt(array, pos, v, size);
+        pos += size;
+      }
+    }
+
+    private void writeInt(int v) {
+      ensureCapacity(4);
+      array[pos++] = (byte) v;
+      array[pos++] = (byte) (v >> 8);
+      array[pos++] = (byte) (v >> 16);
+      array[pos++] = (byte) (v >> 24);
+    }
+
+    private void writeLong(long v) {
+      writeInt((int) v);
+      writeInt((int) (v >> 32));
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) {
+      ensureCapacity(length);
+      System.arraycopy(bytes, offset, array, pos, length);
+      pos += length;
+    }
+
+    private void writeBytes(Buffer bytes) {
+      int length = bytes.length();
+      ensureCapacity(length);
+      bytes.getBytes(0, length, array, pos);
+      pos += length;
+    }
+
+    /**
+     * @return a little-endian view of the next {@code lengthInBytes} bytes
+     */
+    private ByteBuffer fixedView(int lengthInBytes) {
+      ensureCapacity(lengthInBytes);
+      ByteBuffer view = ByteBuffer.wrap(array, pos, lengthInBytes).slice().order(ByteOrder.LITTLE_ENDIAN);
+      pos += lengthInBytes;
+      return view;
+    }
+
+    @Override
+    public void init(MessageType type) {
+      pos = 0;
+      depth = 0;
+      packed = false;
+      if (delimited) {
+        enterLengthDelimited();
+      }
+    }
+
+    @Override
+    public void visitInt32(Field field, int v) {
+      visitVarInt32(field, v);
+    }
+
+    @Override
+    public void visitUInt32(Field field, int v) {
+      visitVarInt32(field, v);
+    }
+
+    @Override
+    public void visitSInt32(Field field, int v) {
+      visitVarInt32(field, encodeSInt32(v));
+    }
+
+    @Override
+    public void visitEnum(Field field, int number) {
+      visitVarInt32(field, number);
+    }
+
+    private void visitVarInt32(Field field, int v) {
+      if (!packed) {
+        writeTag(field, WireType.VARINT.id);
+      }
+      writeVarInt32(v);
+    }
+
+    @Override
+    public void visitInt64(Field field, long v) {
+      visitVarInt64(field, v);
+    }
+
+    @Override
+    public void visitUInt64(Field field, long v) {
+      visitVarInt64(field, v);
+    }
+
+    @Override
+    public void visitSInt64(Field field, long v) {
+      visitVarInt64(field, encodeSInt64(v));
+    }
+
+    @Override
+    public void visitBool(Field field, boolean v) {
+      visitVarInt64(field, v ? 1 : 0);
+    }
+
+    private void visitVarInt64(Field field, long v) {
+      if (!packed) {
+        writeTag(field, WireType.VARINT.id);
+      }
+      writeVarInt64(v);
+    }
+
+    @Override
+    public void visitFloat(Field field, float f) {
+      visitI32(field, Float.floatToRawIntBits(f));
+    }
+
+    @Override
+    public void visitFixed32(Field field, int v) {
+      visitI32(field, v);
+    }
+
+    @Override
+    public void visitSFixed32(Field field, int v) {
+      visitI32(field, v);
+    }
+
+    private void visitI32(Field field, int v) {
+      if (!packed) {
+        writeTag(field, WireType.I32.id);
+      }
+      writeInt(v);
+    }
+
+    @Override
+    public void visitDouble(Field field, double d) {
+      visitI64(field, Double.doubleToRawLongBits(d));
+    }
+
+    @Override
+    public void visitFixed64(Field field, long v) {
+      visitI64(field, v);
+    }
+
+    @Override
+    public void visitSFixed64(Field field, long v) {
+      visitI64(field, v);
+    }
+
+    private void visitI64(Field field, long v) {
+      if (!packed) {
+        writeTag(field, WireType.I64.id);
+      }
+      writeLong(v);
+    }
+
+    @Override
+    public void visitString(Field field, String s) {
+      writeTag(field, WireType.LEN.id);
+      int ascii = Utf8.asciiPrefix(s);
+      int length = Utf8.encodedLength(s, ascii);
+      writeVarInt32(length);
+      ensureCapacity(length);
+      pos = Utf8.encode(s, ascii, array, pos);
+    }
+
+    @Override
+    public void visitString(Field field, Utf8String s) {
+      writeTag(field, WireType.LEN.id);
+      Buffer utf8 = s.utf8();
+      writeVarInt32(utf8.length());
+      writeBytes(utf8);
+    }
+
+    @Override
+    public void visitBytes(Field field, byte[] bytes) {
+      writeTag(field, WireType.LEN.id);
+      writeVarInt32(bytes.length);
+      writeBytes(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void visitBytes(Field field, Buffer bytes) {
+      writeTag(field, WireType.LEN.id);
+      writeVarInt32(bytes.length());
+      writeBytes(bytes);
+    }
+
+    @Override
+    public void visitUnknownFields(MessageType type, Buffer bytes) {
+      writeBytes(bytes);
+    }
+
+    @Override
+    public void visitMessage(Field field, Buffer bytes) {
+      visitBytes(field, bytes);
+    }
+
+    @Override
+    public void visitPackedInt32s(Field field, int[] values, int offset, int length) {
+      switch (field.type().id()) {
+        case FIXED32:
+        case SFIXED32:
+          if (field.isPacked()) {
+            writeTag(field, WireType.LEN.id);
+            writeVarInt32(length * 4);
+            fixedView(length * 4).asIntBuffer().put(values, offset, length);
+          } else {
+            for (int i = 0;i < length;i++) {
+              visitI32(field, values[offset + i]);
+            }
+          }
+          break;
+        case SINT32:
+          enterPacked(field);
+          for (int i = 0;i < length;i++) {
+            visitVarInt32(field, encodeSInt32(values[offset + i]));
+          }
+          leavePacked(field);
+          break;
+        default:
+          enterPacked(field);
+          for (int i = 0;i < length;i++) {
+            visitVarInt32(field, values[offset + i]);
+          }
+          leavePacked(field);
+          break;
+      }
+    }
+
+    @Override
+    public void visitPackedInt64s(Field field, long[] values, int offset, int length) {
+      switch (field.type().id()) {
+        case FIXED64:
+        case SFIXED64:
+          if (field.isPacked()) {
+            writeTag(field, WireType.LEN.id);
+            writeVarInt32(length * 8);
+            fixedView(length * 8).asLongBuffer().put(values, offset, length);
+          } else {
+            for (int i = 0;i < length;i++) {
+              visitI64(field, values[offset + i]);
+            }
+          }
+          break;
+        case SINT64:
+          enterPacked(field);
+          for (int i = 0;i < length;i++) {
+            visitVarInt64(field, encodeSInt64(values[offset + i]));
           }
-          i++;
+          leavePacked(field);
+          break;
+        default:
+          enterPacked(field);
+          for (int i = 0;i < length;i++) {
+            visitVarInt64(field, values[offset + i]);
+          }
+          leavePacked(field);
+          break;
+      }
+    }
+
+    @Override
+    public void visitPackedFloats(Field field, float[] values, int offset, int length) {
+      if (field.isPacked()) {
+        writeTag(field, WireType.LEN.id);
+        writeVarInt32(length * 4);
+        fixedView(length * 4).asFloatBuffer().put(values, offset, length);
+      } else {
+        for (int i = 0;i < length;i++) {
+          visitI32(field, Float.floatToRawIntBits(values[offset + i]));
         }
       }
     }
-    return utf8Length;
+
+    @Override
+    public void visitPackedDoubles(Field field, double[] values, int offset, int length) {
+      if (field.isPacked()) {
+        writeTag(field, WireType.LEN.id);
+        writeVarInt32(length * 8);
+        fixedView(length * 8).asDoubleBuffer().put(values, offset, length);
+      } else {
+        for (int i = 0;i < length;i++) {
+          visitI64(field, Double.doubleToRawLongBits(values[offset + i]));
+        }
+      }
+    }
+
+    @Override
+    public void visitPackedBools(Field field, boolean[] values, int offset, int length) {
+      if (field.isPacked()) {
+        writeTag(field, WireType.LEN.id);
+        writeVarInt32(length);
+        ensureCapacity(length);
+        for (int i = 0;i < length;i++) {
+          array[pos++] = (byte) (values[offset + i] ? 1 : 0);
+        }
+      } else {
+        for (int i = 0;i < length;i++) {
+          visitVarInt32(field, values[offset + i] ? 1 : 0);
+        }
+      }
+    }
+
+    @Override
+    public void enter(Field field) {
+      writeTag(field, WireType.LEN.id);
+      enterLengthDelimited();
+    }
+
+    @Override
+    public void enterPacked(Field field) {
+      if (field.isPacked()) {
+        packed = true;
+        writeTag(field, WireType.LEN.id);
+        enterLengthDelimited();
+      }
+    }
+
+    private void enterLengthDelimited() {
+      ensureCapacity(1);
+      if (depth == starts.length) {
+        starts = Arrays.copyOf(starts, depth * 2);
+      }
+      starts[depth++] = ++pos;
+    }
+
+    @Override
+    public void leave(Field field) {
+      leaveLengthDelimited();
+    }
+
+    @Override
+    public void leavePacked(Field field) {
+      if (field.isPacked()) {
+        packed = false;
+        leaveLengthDelimited();
+      }
+    }
+
+    private void leaveLengthDelimited() {
+      int start = starts[--depth];
+      int length = pos - start;
+      int extra = ProtobufEncoder.computeRawVarint32Size(length) - 1;
+      if (extra > 0) {
+        ensureCapacity(extra);
+        System.arraycopy(array, start, array, start + extra, length);
+      }
+      // Back-patch the length byte by byte, the field follows it
+      int index = start - 1;
+      int v = length;
+      while ((v & ~0x7F) != 0) {
+        array[index++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      array[index++] = (byte) v;
+      pos = index + length;
+    }
+
+    @Override
+    public void destroy() {
+      if (delimited) {
+        leaveLengthDelimited();
+      }
+    }
   }
 }
@@ -0,0 +1,74 @@
+package io.vertx.protobuf;
+
+/**
+ * Options configuring {@link ProtobufWriter}.
+ */
+public class ProtobufWriterOptions {
+
+  /**
+   * The default single pass = {@code false}, the visitor is run twice, once to compute the lengths and once to encode.
+   */
+  public static final boolean DEFAULT_SINGLE_PASS = false;
+
+  /**
+   * The default UTF-8 cache threshold = {@code 1024} chars.
+   */
+  public static final int DEFAULT_UTF8_CACHE_THRESHOLD = 1024;
+
+  private boolean singlePass;
+  private int utf8CacheThreshold;
+
+  public ProtobufWriterOptions() {
+    singlePass = DEFAULT_SINGLE_PASS;
+    utf8CacheThreshold = DEFAULT_UTF8_CACHE_THRESHOLD;
+  }
+
+  public ProtobufWriterOptions(ProtobufWriterOptions other) {
+    singlePass = other.singlePass;
+    utf8CacheThreshold = other.utf8CacheThreshold;
+  }
+
+  /**
+   * @return whether the visitor is run once
+   */
+  public boolean isSinglePass() {
+    return singlePass;
+  }
+
+  /**
+   * Set whether the visitor is run once, so a {@link ProtoStream} does not need to be replayable.
+   * <p>
+   * The length of a nested message is not known before it is written, one byte is reserved for it and the message is
+   * moved when the length needs more bytes, i.e. when the message is 128 bytes or longer.
+   *
+   * @param singlePass the value
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ProtobufWriterOptions setSinglePass(boolean singlePass) {
+    this.singlePass = singlePass;
+    return this;
+  }
+
+  /**
+   * @return the number of chars from which a non ASCII string is encoded once
+   */
+  public int getUtf8CacheThreshold() {
+    return utf8CacheThreshold;
+  }
+
+  /**
+   * Set the number of chars from which a string that is not ASCII is encoded once, when the size of the message is
+   * computed, and its bytes are copied when the message is written, instead of being encoded twice. Use
+   * {@link Integer#MAX_VALUE} to disable it, it has no effect when the writer runs the visitor once.
+   *
+   * @param utf8CacheThreshold the value
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ProtobufWriterOptions setUtf8CacheThreshold(int utf8CacheThreshold) {
+    if (utf8CacheThreshold < 0) {
+      throw new IllegalArgumentException("UTF-8 cache threshold must be >= 0");
+    }
+    this.utf8CacheThreshold = utf8CacheThreshold;
+    return this;
+  }
+}
@@ -0,0 +1,196 @@
+package io.vertx.protobuf;
+
+import io.vertx.core.json.DecodeException;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Strict UTF-8 decoding and allocation free encoding of {@code string} fields.
+ * <p>
+ * ASCII bytes are checked 8 at a time, an ASCII string is built as a compact Latin-1 string without decoding. Other
+ * strings are decoded by a validating decoder that rejects malformed input, overlong encodings, surrogates and
+ * code points above {@code U+10FFFF}.
+ * <p>
+ * The ASCII prefix of a string is encoded with a bulk copy of its chars, the rest is encoded char by char. An unpaired
+ * surrogate is encoded as {@code '?'} like {@link String#getBytes(java.nio.charset.Charset)} does.
+ */
+final class Utf8 {
+
+  private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final long NON_ASCII = 0x8080808080808080L;
+
+  private Utf8() {
+  }
+
+  static String decode(byte[] bytes, int offset, int length) {
+    int ascii = asciiPrefix(bytes, offset, length);
+    if (ascii == length) {
+      return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+    return decode(bytes, offset, length, ascii);
+  }
+
+  /**
+   * @return the length of the ASCII prefix of the bytes
+   */
+  static int asciiPrefix(byte[] bytes, int offset, int length) {
+    int i = 0;
+    for (int limit = length - 8;i <= limit;i += 8) {
+      long word = (long) LONG_LE.get(bytes, offset + i) & NON_ASCII;
+      if (word != 0) {
+        // Little endian: the lowest set bit belongs to the first non ASCII byte
+        return i + (Long.numberOfTrailingZeros(word) >>> 3);
+      }
+    }
+    while (i < length && bytes[offset + i] >= 0) {
+      i++;
+    }
+    return i;
+  }
+
+  private static String decode(byte[] bytes, int offset, int length, int ascii) {
+    // A code point never needs more chars than bytes
+    char[] chars = new char[length];
+    int n = 0;
+    while (n < ascii) {
+      chars[n] = (char) bytes[offset + n];
+      n++;
+    }
+    int i = offset + ascii;
+    int end = offset + length;
+    while (i < end) {
+      int b1 = bytes[i++];
+      if (b1 >= 0) {
+        chars[n++] = (char) b1;
+      } else if (b1 < (byte) 0xE0) {
+        if (b1 < (byte) 0xC2 || i == end) {
+          throw malformed();
+        }
+        int b2 = bytes[i++];
+        if (isNotContinuation(b2)) {
+          throw malformed();
+        }
+        chars[n++] = (char) (((b1 & 0x1F) << 6) | (b2 & 0x3F));
+      } else if (b1 < (byte) 0xF0) {
+        if (end - i < 2) {
+          throw malformed();
+        }
+        int b2 = bytes[i++];
+        int b3 = bytes[i++];
+        if (isNotContinuation(b2) || isNotContinuation(b3)
+          || (b1 == (byte) 0xE0 && b2 < (byte) 0xA0)
+          || (b1 == (byte) 0xED && b2 >= (byte) 0xA0)) {
+          throw malformed();
+        }
+        chars[n++] = (char) (((b1 & 0x0F) << 12) | ((b2 & 0x3F) << 6) | (b3 & 0x3F));
+      } else {
+        if (b1 > (byte) 0xF4 || end - i < 3) {
+          throw malformed();
+        }
+        int b2 = bytes[i++];
+        int b3 = bytes[i++];
+        int b4 = bytes[i++];
+        if (isNotContinuation(b2) || isNotContinuation(b3) || isNotContinuation(b4)
+          || (b1 == (byte) 0xF0 && b2 < (byte) 0x90)
+          || (b1 == (byte) 0xF4 && b2 >= (byte) 0x90)) {
+          throw malformed();
+        }
+        int codePoint = ((b1 & 0x07) << 18) | ((b2 & 0x3F) << 12) | ((b3 & 0x3F) << 6) | (b4 & 0x3F);
+        chars[n++] = Character.highSurrogate(codePoint);
+        chars[n++] = Character.lowSurrogate(codePoint);
+      }
+    }
+    return new String(chars, 0, n);
+  }
+
+  /**
+   * @return the length of the ASCII prefix of {@code s}
+   */
+  static int asciiPrefix(String s) {
+    int length = s.length();
+    int i = 0;
+    while (i < length && s.charAt(i) < 0x80) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * @return the number of bytes of {@code s} encoded as UTF-8
+   */
+  static int encodedLength(String s) {
+    return encodedLength(s, asciiPrefix(s));
+  }
+
+  /**
+   * @return the number of bytes of {@code s} encoded as UTF-8, {@code ascii} is the length of its ASCII prefix
+   */
+  static int encodedLength(String s, int ascii) {
+    int length = s.length();
+    int utf8Length = ascii;
+    for (int i = ascii;i < length;i++) {
+      char c = s.charAt(i);
+      if (c < 0x800) {
+        utf8Length += 2 - ((c - 0x80) >>> 31);
+      } else if (!Character.isSurrogate(c)) {
+        utf8Length += 3;
+      } else if (isSurrogatePair(s, i, c)) {
+        utf8Length += 4;
+        i++;
+      } else {
+        utf8Length++;
+      }
+    }
+    return utf8Length;
+  }
+
+  /**
+   * Encode {@code s} as UTF-8 in {@code dst} at {@code offset}, {@code ascii} is the length of its ASCII prefix.
+   *
+   * @return the index following the last encoded byte
+   */
+  @SuppressWarnings("deprecation")
+  static int encode(String s, int ascii, byte[] dst, int offset) {
+    // Copies the chars of a compact Latin-1 string in bulk
+    s.getBytes(0, ascii, dst, offset);
+    int pos = offset + ascii;
+    int length = s.length();
+    for (int i = ascii;i < length;i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        dst[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        dst[pos++] = (byte) (0xC0 | (c >> 6));
+        dst[pos++] = (byte) (0x80 | (c & 0x3F));
+      } else if (!Character.isSurrogate(c)) {
+        dst[pos++] = (byte) (0xE0 | (c >> 12));
+        dst[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        dst[pos++] = (byte) (0x80 | (c & 0x3F));
+      } else if (isSurrogatePair(s, i, c)) {
+        int codePoint = Character.toCodePoint(c, s.charAt(++i));
+        dst[pos++] = (byte) (0xF0 | (codePoint >> 18));
+        dst[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        dst[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        dst[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+      } else {
+        dst[pos++] = '?';
+      }
+    }
+    return pos;
+  }
+
+  private static boolean isSurrogatePair(String s, int index, char c) {
+    return Character.isHighSurrogate(c) && index + 1 < s.length() && Character.isLowSurrogate(s.charAt(index + 1));
+  }
+
+  private static boolean isNotContinuation(int b) {
+    return b > (byte) 0xBF;
+  }
+
+  private static DecodeException malformed() {
+    return new DecodeException("Invalid UTF-8 string");
+  }
+}
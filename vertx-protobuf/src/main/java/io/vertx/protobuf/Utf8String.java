@@ -0,0 +1,146 @@
+package io.vertx.protobuf;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.buffer.BufferInternal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A {@code string} field value holding either the UTF-8 encoded bytes or the decoded {@code String}.
+ * <p>
+ * A value read by {@link ProtobufReader} with {@link ProtobufReaderOptions#setLazyStrings(boolean)} is a view over
+ * the input bytes, it is decoded on first access and written back as the original bytes by {@link ProtobufWriter}.
+ * The view remains valid as long as the input is not modified or released. Since decoding is deferred, a
+ * {@link io.vertx.core.json.DecodeException} signaling invalid UTF-8 is thrown on first access.
+ */
+public final class Utf8String implements CharSequence {
+
+  /**
+   * @return a value holding {@code s}, the UTF-8 bytes are computed on demand
+   */
+  public static Utf8String of(String s) {
+    Objects.requireNonNull(s);
+    Utf8String utf8String = new Utf8String(null, 0, 0, null);
+    utf8String.string = s;
+    return utf8String;
+  }
+
+  /**
+   * @return a value holding the {@code utf8} bytes, the {@code String} is decoded on demand
+   */
+  public static Utf8String of(Buffer utf8) {
+    return new Utf8String(null, 0, utf8.length(), utf8);
+  }
+
+  // Either array/offset or buffer holds the bytes, length is their number
+  private final byte[] array;
+  private final int offset;
+  private int length;
+  private Buffer buffer;
+  private String string;
+
+  Utf8String(byte[] array, int offset, int length, Buffer buffer) {
+    this.array = array;
+    this.offset = offset;
+    this.length = length;
+    this.buffer = buffer;
+  }
+
+  private boolean hasBytes() {
+    return array != null || buffer != null;
+  }
+
+  /**
+   * @return whether the string is empty, without decoding it
+   */
+  public boolean isEmpty() {
+    return hasBytes() ? length == 0 : string.isEmpty();
+  }
+
+  /**
+   * @return the number of UTF-8 encoded bytes, the string is encoded if necessary
+   */
+  public int utf8Length() {
+    if (!hasBytes()) {
+      utf8();
+    }
+    return length;
+  }
+
+  /**
+   * @return the UTF-8 encoded bytes as a read-only buffer, the string is encoded if necessary
+   */
+  public Buffer utf8() {
+    Buffer b = buffer;
+    if (b == null) {
+      if (array != null) {
+        b = BufferInternal.buffer(Unpooled.wrappedBuffer(array, offset, length).asReadOnly());
+      } else {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        b = BufferInternal.buffer(Unpooled.wrappedBuffer(bytes).asReadOnly());
+        length = bytes.length;
+      }
+      buffer = b;
+    }
+    return b;
+  }
+
+  /**
+   * Append the UTF-8 encoded bytes to {@code dst}.
+   */
+  void appendTo(Buffer dst) {
+    if (array != null) {
+      dst.appendBytes(array, offset, length);
+    } else {
+      dst.appendBuffer(utf8());
+    }
+  }
+
+  @Override
+  public int length() {
+    return toString().length();
+  }
+
+  @Override
+  public char charAt(int index) {
+    return toString().charAt(index);
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return toString().subSequence(start, end);
+  }
+
+  @Override
+  public String toString() {
+    String s = string;
+    if (s == null) {
+      if (array != null) {
+        s = Utf8.decode(array, offset, length);
+      } else {
+        byte[] bytes = buffer.getBytes();
+        s = Utf8.decode(bytes, 0, bytes.length);
+      }
+      string = s;
+    }
+    return s;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (obj instanceof Utf8String) {
+      return toString().equals(obj.toString());
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return toString().hashCode();
+  }
+}
@@ -0,0 +1,73 @@
+package io.vertx.protobuf.stream;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.protobuf.ProtoStream;
+import io.vertx.protobuf.ProtobufReader;
+import io.vertx.protobuf.ProtobufWriter;
+
+import java.util.function.Function;
+
+/**
+ * Streams of messages framed by a var int length prefix, the {@code writeDelimitedTo}/{@code parseDelimitedFrom}
+ * convention.
+ */
+public class Delimited {
+
+  /**
+   * The default maximum frame size = 4MB.
+   */
+  public static final int DEFAULT_MAX_FRAME_SIZE = 4 * 1024 * 1024;
+
+  /**
+   * Like {@link #readStream(ReadStream, Function, int)} with {@link #DEFAULT_MAX_FRAME_SIZE}.
+   */
+  public static <T> ReadStream<T> readStream(ReadStream<Buffer> source, Function<Buffer, T> decoder) {
+    return readStream(source, decoder, DEFAULT_MAX_FRAME_SIZE);
+  }
+
+  /**
+   * Create a stream of the messages framed in the {@code source} stream.
+   * <p>
+   * A frame contained in a chunk is a slice of the chunk, frames straddling chunks are accumulated. The
+   * {@code decoder} decodes a frame to a message, typically with {@link ProtobufReader} and a generated reader:
+   *
+   * <pre>
+   *   buffer -&gt; {
+   *     ProtoReader reader = new ProtoReader();
+   *     ProtobufReader.parse(MessageLiteral.MyMessage, reader, buffer);
+   *     return (MyMessage) reader.stack.pop();
+   *   }
+   * </pre>
+   *
+   * The returned stream pauses the {@code source} when it has no demand. A frame larger than {@code maxFrameSize}
+   * or a truncated last frame fails the stream with a {@link io.vertx.core.json.DecodeException}.
+   *
+   * @param source the stream of chunks
+   * @param decoder the frame decoder
+   * @param maxFrameSize the maximum frame size in bytes, excluding the length prefix
+   * @return the stream of messages
+   */
+  public static <T> ReadStream<T> readStream(ReadStream<Buffer> source, Function<Buffer, T> decoder, int maxFrameSize) {
+    if (maxFrameSize < 0) {
+      throw new IllegalArgumentException("Max frame size must be >= 0");
+    }
+    return new DelimitedReadStream<>(source, decoder, maxFrameSize);
+  }
+
+  /**
+   * Create a stream writing messages to {@code sink}, each message is encoded with {@link ProtobufWriter#encodeDelimited}
+   * as a single buffer.
+   * <p>
+   * The {@code streamFactory} creates the stream of a message, the generated {@code MessageLiteral} of a message
+   * type is such a factory. The write queue and the drain handler of the returned stream are those of the {@code sink}.
+   *
+   * @param sink the stream of buffers
+   * @param streamFactory the message stream factory
+   * @return the stream of messages
+   */
+  public static <T> WriteStream<T> writeStream(WriteStream<Buffer> sink, Function<? super T, ? extends ProtoStream> streamFactory) {
+    return new DelimitedWriteStream<>(sink, streamFactory);
+  }
+}
@@ -0,0 +1,211 @@
+package io.vertx.protobuf.stream;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.function.Function;
+
+class DelimitedReadStream<T> implements ReadStream<T>, Handler<Buffer> {
+
+  private final ReadStream<Buffer> source;
+  private final Function<Buffer, T> decoder;
+  private final int maxFrameSize;
+  private Handler<T> handler;
+  private Handler<Void> endHandler;
+  private Handler<Throwable> exceptionHandler;
+  // The unparsed bytes start at index, buffer is a copy owned by this stream or the last chunk
+  private Buffer buffer;
+  private int index;
+  private boolean owned;
+  private long demand = Long.MAX_VALUE;
+  private boolean parsing;
+  private long received;
+  private boolean ended;
+  private boolean done;
+
+  DelimitedReadStream(ReadStream<Buffer> source, Function<Buffer, T> decoder, int maxFrameSize) {
+    this.source = source;
+    this.decoder = decoder;
+    this.maxFrameSize = maxFrameSize;
+  }
+
+  @Override
+  public ReadStream<T> exceptionHandler(Handler<Throwable> handler) {
+    exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public ReadStream<T> handler(Handler<T> handler) {
+    this.handler = handler;
+    if (handler != null) {
+      source.endHandler(v -> {
+        ended = true;
+        drain();
+      });
+      source.exceptionHandler(this::fail);
+      source.handler(this);
+    } else {
+      source.handler(null);
+    }
+    return this;
+  }
+
+  @Override
+  public ReadStream<T> endHandler(Handler<Void> handler) {
+    endHandler = handler;
+    return this;
+  }
+
+  @Override
+  public ReadStream<T> pause() {
+    demand = 0L;
+    return this;
+  }
+
+  @Override
+  public ReadStream<T> resume() {
+    return fetch(Long.MAX_VALUE);
+  }
+
+  @Override
+  public ReadStream<T> fetch(long amount) {
+    if (amount < 0L) {
+      throw new IllegalArgumentException("Invalid amount " + amount);
+    }
+    demand += amount;
+    if (demand < 0L) {
+      demand = Long.MAX_VALUE;
+    }
+    drain();
+    return this;
+  }
+
+  @Override
+  public void handle(Buffer chunk) {
+    if (done || chunk.length() == 0) {
+      return;
+    }
+    received++;
+    if (buffer == null) {
+      buffer = chunk;
+      index = 0;
+      owned = false;
+    } else {
+      if (!owned) {
+        int remaining = buffer.length() - index;
+        Buffer copy = Buffer.buffer(remaining + chunk.length());
+        copy.appendBuffer(buffer, index, remaining);
+        buffer = copy;
+        index = 0;
+        owned = true;
+      }
+      buffer.appendBuffer(chunk);
+    }
+    drain();
+  }
+
+  private void drain() {
+    if (parsing) {
+      return;
+    }
+    parsing = true;
+    try {
+      while (!done) {
+        if (buffer == null && ended) {
+          done = true;
+          Handler<Void> h = endHandler;
+          if (h != null) {
+            h.handle(null);
+          }
+          break;
+        }
+        if (demand == 0L) {
+          source.pause();
+          break;
+        }
+        Buffer frame = nextFrame();
+        if (frame == null) {
+          if (ended) {
+            throw new DecodeException("Truncated frame");
+          }
+          // The source may deliver chunks synchronously when resumed
+          long received = this.received;
+          source.resume();
+          if (received == this.received && !ended) {
+            break;
+          }
+          continue;
+        }
+        T message;
+        try {
+          message = decoder.apply(frame);
+        } catch (RuntimeException e) {
+          fail(e);
+          break;
+        }
+        if (demand != Long.MAX_VALUE) {
+          demand--;
+        }
+        Handler<T> h = handler;
+        if (h != null) {
+          h.handle(message);
+        }
+      }
+    } catch (DecodeException e) {
+      fail(e);
+    } finally {
+      parsing = false;
+    }
+  }
+
+  /**
+   * @return the next complete frame or {@code null}
+   */
+  private Buffer nextFrame() {
+    if (buffer == null) {
+      return null;
+    }
+    int length = buffer.length();
+    int i = index;
+    int len = 0;
+    for (int shift = 0;;shift += 7) {
+      if (shift == 35) {
+        throw new DecodeException("Malformed frame length");
+      }
+      if (i == length) {
+        return null;
+      }
+      byte b = buffer.getByte(i++);
+      len |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        break;
+      }
+    }
+    if (len < 0 || len > maxFrameSize) {
+      throw new DecodeException("Frame size " + Integer.toUnsignedString(len) + " exceeds the maximum frame size " + maxFrameSize);
+    }
+    if (length - i < len) {
+      return null;
+    }
+    Buffer frame = buffer.slice(i, i + len);
+    index = i + len;
+    if (index == length) {
+      buffer = null;
+    } else if (owned && index > length / 2) {
+      buffer = buffer.getBuffer(index, length);
+      index = 0;
+    }
+    return frame;
+  }
+
+  private void fail(Throwable failure) {
+    done = true;
+    Handler<Throwable> h = exceptionHandler;
+    if (h != null) {
+      h.handle(failure);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package io.vertx.protobuf.stream;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.protobuf.ProtoStream;
+import io.vertx.protobuf.ProtobufWriter;
+
+import java.util.function.Function;
+
+class DelimitedWriteStream<T> implements WriteStream<T> {
+
+  private final WriteStream<Buffer> sink;
+  private final Function<? super T, ? extends ProtoStream> streamFactory;
+
+  DelimitedWriteStream(WriteStream<Buffer> sink, Function<? super T, ? extends ProtoStream> streamFactory) {
+    this.sink = sink;
+    this.streamFactory = streamFactory;
+  }
+
+  @Override
+  public WriteStream<T> exceptionHandler(Handler<Throwable> handler) {
+    sink.exceptionHandler(handler);
+    return this;
+  }
+
+  @Override
+  public Future<Void> write(T data) {
+    Buffer frame;
+    try {
+      frame = ProtobufWriter.encodeDelimited(streamFactory.apply(data));
+    } catch (RuntimeException e) {
+      return Future.failedFuture(e);
+    }
+    return sink.write(frame);
+  }
+
+  @Override
+  public Future<Void> end() {
+    return sink.end();
+  }
+
+  @Override
+  public WriteStream<T> setWriteQueueMaxSize(int maxSize) {
+    sink.setWriteQueueMaxSize(maxSize);
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return sink.writeQueueFull();
+  }
+
+  @Override
+  public WriteStream<T> drainHandler(Handler<Void> handler) {
+    sink.drainHandler(handler);
+    return this;
+  }
+}
@@ -17,11 +17,13 @@ module io.vertx.protobuf {
   requires com.google.protobuf.util;
   requires io.netty.codec;
   requires io.netty.buffer;
+  requires io.netty.common;
   requires com.fasterxml.jackson.core;
 
   exports io.vertx.protobuf.json;
   exports io.vertx.protobuf;
   exports io.vertx.protobuf.well_known_types;
   exports io.vertx.protobuf.interop;
+  exports io.vertx.protobuf.stream;
 
 }
@@ -0,0 +1,85 @@
+package io.vertx.benchmarks.protobuf;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf_test_messages.proto3.MessageLiteral;
+import com.google.protobuf_test_messages.proto3.ProtoReader;
+import com.google.protobuf_test_messages.proto3.TestMessagesProto3;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.ProtobufReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decode a conformance {@code TestAllTypesProto3} message with fields in ascending number order, where
+ * {@link ProtobufReader} predicts every field, or in descending order, where every prediction misses.
+ */
+@State(Scope.Thread)
+public class ConformanceDecodeBenchmark extends BenchmarkBase {
+
+  @Param({"ascending", "descending"})
+  public String order;
+
+  private Buffer payload;
+
+  @Setup
+  public void setup() throws Exception {
+    TestMessagesProto3.TestAllTypesProto3 message = TestMessagesProto3.TestAllTypesProto3.newBuilder()
+      .setOptionalInt32(1)
+      .setOptionalInt64(2)
+      .setOptionalUint32(3)
+      .setOptionalUint64(4)
+      .setOptionalSint32(-5)
+      .setOptionalSint64(-6)
+      .setOptionalFixed32(7)
+      .setOptionalFixed64(8)
+      .setOptionalSfixed32(-9)
+      .setOptionalSfixed64(-10)
+      .setOptionalFloat(11.5f)
+      .setOptionalDouble(12.5d)
+      .setOptionalBool(true)
+      .setOptionalString("optional_string")
+      .setOptionalBytes(ByteString.copyFromUtf8("optional_bytes"))
+      .setOptionalNestedMessage(TestMessagesProto3.TestAllTypesProto3.NestedMessage.newBuilder().setA(18))
+      .setOptionalNestedEnum(TestMessagesProto3.TestAllTypesProto3.NestedEnum.BAR)
+      .addAllRepeatedInt32(Arrays.asList(1, 2, 3))
+      .addAllRepeatedString(Arrays.asList("a", "b", "c"))
+      .addAllPackedInt64(Arrays.asList(1L, 2L, 3L))
+      .addAllUnpackedInt32(Arrays.asList(4, 5, 6))
+      .build();
+    byte[] bytes;
+    if (order.equals("ascending")) {
+      bytes = message.toByteArray();
+    } else {
+      // Encode each field separately and concatenate them in descending number order
+      List<Map.Entry<Descriptors.FieldDescriptor, Object>> fields = new ArrayList<>(message.getAllFields().entrySet());
+      Collections.reverse(fields);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      for (Map.Entry<Descriptors.FieldDescriptor, Object> field : fields) {
+        out.write(TestMessagesProto3.TestAllTypesProto3.newBuilder()
+          .setField(field.getKey(), field.getValue())
+          .build()
+          .toByteArray());
+      }
+      bytes = out.toByteArray();
+    }
+    payload = Buffer.buffer(bytes);
+  }
+
+  @Benchmark
+  public Object decode() {
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.TestAllTypesProto3, reader, payload);
+    return reader.stack.pop();
+  }
+}
@@ -0,0 +1,64 @@
+package io.vertx.benchmarks.protobuf;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.vertx.protobuf.ProtobufDecoder;
+import io.vertx.protobuf.ProtobufReader;
+import io.vertx.tests.protobuf.direct.Container;
+import io.vertx.tests.protobuf.direct.DirectProto;
+import io.vertx.tests.protobuf.direct.MessageLiteral;
+import io.vertx.tests.protobuf.direct.ProtoReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+
+/**
+ * Decode the same message with the generated {@link ProtoReader} visitor, the generated direct parser and protobuf-java.
+ */
+@State(Scope.Thread)
+public class DirectParserBenchmark extends BenchmarkBase {
+
+  private byte[] payload;
+
+  @Setup
+  public void setup() {
+    DirectProto.Scalars scalars = DirectProto.Scalars.newBuilder()
+      .setI32(1000)
+      .setI64(100_000_000_000L)
+      .setS32(-5)
+      .setFlag(true)
+      .setColor(DirectProto.Color.GREEN)
+      .setD(9.5D)
+      .setF32(10)
+      .setText("the text")
+      .build();
+    payload = DirectProto.Container.newBuilder()
+      .setScalars(scalars)
+      .addAllPacked(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8))
+      .addAllStrings(Arrays.asList("a", "b", "c"))
+      .addMessages(scalars)
+      .addMessages(scalars)
+      .setLabel("label")
+      .build()
+      .toByteArray();
+  }
+
+  @Benchmark
+  public Container visitor() {
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Container, reader, payload);
+    return (Container) reader.stack.pop();
+  }
+
+  @Benchmark
+  public Container direct() {
+    return Container.parseFrom(ProtobufDecoder.create(payload));
+  }
+
+  @Benchmark
+  public DirectProto.Container protobufJava() throws InvalidProtocolBufferException {
+    return DirectProto.Container.parseFrom(payload);
+  }
+}
@@ -0,0 +1,62 @@
+package io.vertx.benchmarks.protobuf;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.ProtobufDecoder;
+import io.vertx.protobuf.ProtobufWriter;
+import io.vertx.tests.protobuf.direct.Container;
+import io.vertx.tests.protobuf.direct.DirectProto;
+import io.vertx.tests.protobuf.direct.ProtoWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+
+/**
+ * Encode the same message with the generated {@link ProtoWriter} visitor, the generated direct writer and protobuf-java.
+ */
+@State(Scope.Thread)
+public class DirectWriterBenchmark extends BenchmarkBase {
+
+  private Container message;
+  private DirectProto.Container protobufMessage;
+
+  @Setup
+  public void setup() {
+    DirectProto.Scalars scalars = DirectProto.Scalars.newBuilder()
+      .setI32(1000)
+      .setI64(100_000_000_000L)
+      .setS32(-5)
+      .setFlag(true)
+      .setColor(DirectProto.Color.GREEN)
+      .setD(9.5D)
+      .setF32(10)
+      .setText("the text")
+      .build();
+    protobufMessage = DirectProto.Container.newBuilder()
+      .setScalars(scalars)
+      .addAllPacked(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8))
+      .addAllStrings(Arrays.asList("a", "b", "c"))
+      .addMessages(scalars)
+      .addMessages(scalars)
+      .setLabel("label")
+      .build();
+    message = Container.parseFrom(ProtobufDecoder.create(protobufMessage.toByteArray()));
+  }
+
+  @Benchmark
+  public Buffer visitor() {
+    return ProtobufWriter.encode(v -> ProtoWriter.emit(message, v));
+  }
+
+  @Benchmark
+  public Buffer direct() {
+    return message.encode();
+  }
+
+  @Benchmark
+  public byte[] protobufJava() {
+    return protobufMessage.toByteArray();
+  }
+}
@@ -0,0 +1,160 @@
+package io.vertx.benchmarks.protobuf;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.ProtoVisitor;
+import io.vertx.protobuf.ProtobufEncoder;
+import io.vertx.protobuf.ProtobufReader;
+import io.vertx.protobuf.schema.DefaultMessageType;
+import io.vertx.protobuf.schema.Field;
+import io.vertx.protobuf.schema.MessageType;
+import io.vertx.protobuf.schema.ScalarType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Decode a wide message with {@link ProtobufReader}, the fields are resolved by the {@link DefaultMessageType} table
+ * or by a {@code HashMap<Integer, Field>}.
+ */
+@State(Scope.Thread)
+public class FieldLookupBenchmark extends BenchmarkBase {
+
+  private static final int NUM_FIELDS = 200;
+
+  /**
+   * Field numbers: dense numbers from {@code 1} to {@code 200} or sparse numbers up to {@code 100_000}.
+   */
+  @Param({"dense", "sparse"})
+  public String numbers;
+
+  private DefaultMessageType table;
+  private MessageType hashMap;
+  private Buffer payload;
+  private BlackholeVisitor visitor;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(0);
+    table = new DefaultMessageType("Wide");
+    Map<Integer, Field> map = new HashMap<>();
+    int[] fieldNumbers = new int[NUM_FIELDS];
+    for (int i = 0;i < NUM_FIELDS;i++) {
+      int number;
+      do {
+        number = numbers.equals("dense") ? i + 1 : 1 + random.nextInt(100_000);
+      } while (table.field(number) != null);
+      fieldNumbers[i] = number;
+      map.put(number, table.addField(number, ScalarType.INT64));
+    }
+    hashMap = new MessageType() {
+      @Override
+      public String name() {
+        return "Wide";
+      }
+      @Override
+      public Field field(int number) {
+        return map.get(number);
+      }
+    };
+    payload = Buffer.buffer();
+    ProtobufEncoder encoder = new ProtobufEncoder(payload);
+    for (int number : fieldNumbers) {
+      encoder.writeTag(number, 0);
+      encoder.writeVarInt64(random.nextInt(1 << 14));
+    }
+    visitor = new BlackholeVisitor();
+  }
+
+  @Benchmark
+  public void table(Blackhole blackhole) {
+    visitor.blackhole = blackhole;
+    ProtobufReader.parse(table, visitor, payload);
+  }
+
+  @Benchmark
+  public void hashMap(Blackhole blackhole) {
+    visitor.blackhole = blackhole;
+    ProtobufReader.parse(hashMap, visitor, payload);
+  }
+
+  private static class BlackholeVisitor implements ProtoVisitor {
+
+    private Blackhole blackhole;
+
+    @Override
+    public void init(MessageType type) {
+    }
+    @Override
+    public void destroy() {
+    }
+    @Override
+    public void visitInt32(Field field, int v) {
+    }
+    @Override
+    public void visitUInt32(Field field, int v) {
+    }
+    @Override
+    public void visitSInt32(Field field, int v) {
+    }
+    @Override
+    public void visitEnum(Field field, int number) {
+    }
+    @Override
+    public void visitInt64(Field field, long v) {
+      blackhole.consume(field);
+      blackhole.consume(v);
+    }
+    @Override
+    public void visitUInt64(Field field, long v) {
+    }
+    @Override
+    public void visitSInt64(Field field, long v) {
+    }
+    @Override
+    public void visitBool(Field field, boolean v) {
+    }
+    @Override
+    public void visitDouble(Field field, double d) {
+    }
+    @Override
+    public void visitFixed64(Field field, long v) {
+    }
+    @Override
+    public void visitSFixed64(Field field, long v) {
+    }
+    @Override
+    public void visitFloat(Field field, float f) {
+    }
+    @Override
+    public void visitFixed32(Field field, int v) {
+    }
+    @Override
+    public void visitSFixed32(Field field, int v) {
+    }
+    @Override
+    public void enter(Field field) {
+    }
+    @Override
+    public void leave(Field field) {
+    }
+    @Override
+    public void visitString(Field field, String s) {
+    }
+    @Override
+    public void visitBytes(Field field, byte[] bytes) {
+    }
+    @Override
+    public void enterPacked(Field field) {
+    }
+    @Override
+    public void leavePacked(Field field) {
+    }
+  }
+}
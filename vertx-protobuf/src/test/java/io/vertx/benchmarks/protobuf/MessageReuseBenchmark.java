@@ -0,0 +1,52 @@
+package io.vertx.benchmarks.protobuf;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.ProtobufReader;
+import io.vertx.tests.merge.Container;
+import io.vertx.tests.merge.MergeProto;
+import io.vertx.tests.merge.MessageLiteral;
+import io.vertx.tests.merge.ProtoReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+
+/**
+ * Decode a generated message into a new graph or into a cleared one, run it with {@code -prof gc} to compare the
+ * allocation per operation.
+ */
+@State(Scope.Thread)
+public class MessageReuseBenchmark extends BenchmarkBase {
+
+  private Buffer payload;
+  private ProtoReader reader;
+  private Container message;
+
+  @Setup
+  public void setup() {
+    payload = Buffer.buffer(MergeProto.Container.newBuilder()
+      .setInt32(1)
+      .setInt64(2L)
+      .addAllRepeatedInt32(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8))
+      .setNested(MergeProto.Nested.newBuilder().setInt32(3).addAllRepeatedInt32(Arrays.asList(1, 2, 3)))
+      .build()
+      .toByteArray());
+    reader = new ProtoReader();
+    message = new Container();
+  }
+
+  @Benchmark
+  public Container decode() {
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Container, reader, payload);
+    return (Container) reader.stack.pop();
+  }
+
+  @Benchmark
+  public Container decodeInto() {
+    ProtobufReader.parse(MessageLiteral.Container, reader.mergeInto(message.clear()), payload);
+    return (Container) reader.stack.pop();
+  }
+}
@@ -0,0 +1,82 @@
+package io.vertx.benchmarks.protobuf;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.buffer.BufferInternal;
+import io.vertx.protobuf.ProtobufDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Decode a sequence of {@code VARINT} fields, the same payload is decoded with {@link ProtobufDecoder} and
+ * {@link CodedInputStream}.
+ */
+@State(Scope.Thread)
+public class ProtobufDecodeBenchmark extends BenchmarkBase {
+
+  private static final int NUM_FIELDS = 1024;
+
+  /**
+   * Maximum encoded size of the values: small values fit in 1 or 2 bytes, large values in up to 10 bytes.
+   */
+  @Param({"small", "large"})
+  public String values;
+
+  private byte[] payload;
+  private Buffer heapBuffer;
+  private Buffer directBuffer;
+
+  @Setup
+  public void setup() throws IOException {
+    Random random = new Random(0);
+    byte[] tmp = new byte[NUM_FIELDS * 16];
+    CodedOutputStream cos = CodedOutputStream.newInstance(tmp);
+    for (int i = 0;i < NUM_FIELDS;i++) {
+      int number = 1 + random.nextInt(values.equals("small") ? 15 : 2047);
+      long value = values.equals("small") ? random.nextInt(1 << 14) : random.nextLong() >>> random.nextInt(64);
+      cos.writeUInt64(number, value);
+    }
+    cos.flush();
+    payload = new byte[cos.getTotalBytesWritten()];
+    System.arraycopy(tmp, 0, payload, 0, payload.length);
+    heapBuffer = Buffer.buffer(payload);
+    directBuffer = BufferInternal.buffer(Unpooled.directBuffer(payload.length).writeBytes(payload));
+  }
+
+  @Benchmark
+  public void heapBuffer(Blackhole blackhole) {
+    decode(new ProtobufDecoder(heapBuffer), blackhole);
+  }
+
+  @Benchmark
+  public void directBuffer(Blackhole blackhole) {
+    decode(new ProtobufDecoder(directBuffer), blackhole);
+  }
+
+  @Benchmark
+  public void codedInputStream(Blackhole blackhole) throws IOException {
+    CodedInputStream cis = CodedInputStream.newInstance(payload);
+    while (!cis.isAtEnd()) {
+      blackhole.consume(cis.readTag());
+      blackhole.consume(cis.readRawVarint64());
+    }
+  }
+
+  private static void decode(ProtobufDecoder decoder, Blackhole blackhole) {
+    while (decoder.isReadable()) {
+      decoder.readTag();
+      blackhole.consume(decoder.fieldNumber());
+      decoder.readVarInt64();
+      blackhole.consume(decoder.longValue());
+    }
+  }
+}
@@ -4,6 +4,10 @@ import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.NullValue;
 import com.google.protobuf.Struct;
 import com.google.protobuf.Value;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.buffer.BufferInternal;
 import io.vertx.core.json.JsonObject;
 import io.vertx.protobuf.ProtobufWriter;
 import io.vertx.protobuf.well_known_types.ProtoWriter;
@@ -12,6 +16,7 @@ import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 
 import java.io.ByteArrayOutputStream;
 
@@ -21,6 +26,7 @@ public class ProtobufEncodeBenchmark extends BenchmarkBase {
   private Struct struct;
   private io.vertx.protobuf.well_known_types.Struct vertxStruct;
   private JsonObject json;
+  private ByteBuf target;
 
   @Setup
   public void setup() {
@@ -59,6 +65,12 @@ public class ProtobufEncodeBenchmark extends BenchmarkBase {
     nested.getFields().put("the-boolean", new io.vertx.protobuf.well_known_types.Value().setKind(io.vertx.protobuf.well_known_types.Value.Kind.ofBoolValue(true)));
     nested.getFields().put("the-null", new io.vertx.protobuf.well_known_types.Value().setKind(io.vertx.protobuf.well_known_types.Value.Kind.ofNullValue(io.vertx.protobuf.well_known_types.NullValue.Enum.NULL_VALUE)));
     vertxStruct.getFields().put("the-object", new io.vertx.protobuf.well_known_types.Value().setKind(io.vertx.protobuf.well_known_types.Value.Kind.ofStructValue(nested)));
+    target = PooledByteBufAllocator.DEFAULT.directBuffer();
+  }
+
+  @TearDown
+  public void tearDown() {
+    target.release();
   }
 
   @Benchmark
@@ -84,6 +96,26 @@ public class ProtobufEncodeBenchmark extends BenchmarkBase {
     return ProtobufWriter.encodeToByteArray(visitor -> ProtoWriter.emit(vertxStruct, visitor));
   }
 
+  @Benchmark
+  public Buffer vertxStructToBuffer() {
+    return ProtobufWriter.encode(visitor -> ProtoWriter.emit(vertxStruct, visitor));
+  }
+
+  @Benchmark
+  public int vertxStructToPooledBuffer() {
+    Buffer buffer = ProtobufWriter.encode(visitor -> ProtoWriter.emit(vertxStruct, visitor), PooledByteBufAllocator.DEFAULT);
+    ByteBuf byteBuf = ((BufferInternal) buffer).unwrap();
+    int length = byteBuf.readableBytes();
+    byteBuf.release();
+    return length;
+  }
+
+  @Benchmark
+  public ByteBuf vertxStructToTarget() {
+    target.clear();
+    return ProtobufWriter.encodeTo(visitor -> ProtoWriter.emit(vertxStruct, visitor), target);
+  }
+
   @Benchmark
   public byte[] jsonObject() {
     return Json.encodeToByteArray(json);
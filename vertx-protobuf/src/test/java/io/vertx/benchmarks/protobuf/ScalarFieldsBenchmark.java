@@ -0,0 +1,64 @@
+package io.vertx.benchmarks.protobuf;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.ProtobufReader;
+import io.vertx.protobuf.ProtobufWriter;
+import io.vertx.tests.presence.Enumerated;
+import io.vertx.tests.presence.MessageLiteral;
+import io.vertx.tests.presence.Optional;
+import io.vertx.tests.presence.PresenceProto;
+import io.vertx.tests.presence.ProtoReader;
+import io.vertx.tests.presence.ProtoWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Decode and encode a generated message with explicit presence scalar fields, run it with {@code -prof gc} to
+ * compare the allocation per operation, the decoded message holds the scalars unboxed and the presence in a bitmask.
+ */
+@State(Scope.Thread)
+public class ScalarFieldsBenchmark extends BenchmarkBase {
+
+  private Buffer payload;
+  private Optional message;
+
+  @Setup
+  public void setup() {
+    byte[] bytes = PresenceProto.Optional.newBuilder()
+      .setInt32(1000)
+      .setInt64(100_000_000_000L)
+      .setUint32(3)
+      .setUint64(4)
+      .setSint32(-5)
+      .setSint64(-6)
+      .setBool(true)
+      .setEnum(PresenceProto.Enumerated.constant_1)
+      .setFixed64(7)
+      .setSfixed64(-8)
+      .setDouble(9.5D)
+      .setFixed32(10)
+      .setSfixed32(-11)
+      .setFloat(12.5F)
+      .build()
+      .toByteArray();
+    payload = Buffer.buffer(bytes);
+    message = decode();
+    if (message.getEnum() != Enumerated.constant_1) {
+      throw new AssertionError();
+    }
+  }
+
+  @Benchmark
+  public Optional decode() {
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Optional, reader, payload);
+    return (Optional) reader.stack.pop();
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return ProtobufWriter.encodeToByteArray(visitor -> ProtoWriter.emit(message, visitor));
+  }
+}
@@ -0,0 +1,79 @@
+package io.vertx.benchmarks.protobuf;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.buffer.BufferInternal;
+import io.vertx.protobuf.ProtobufReader;
+import io.vertx.protobuf.ProtobufSession;
+import io.vertx.protobuf.ProtobufWriter;
+import io.vertx.protobuf.well_known_types.MessageLiteral;
+import io.vertx.protobuf.well_known_types.ProtoReader;
+import io.vertx.protobuf.well_known_types.ProtoWriter;
+import io.vertx.protobuf.well_known_types.Struct;
+import io.vertx.protobuf.well_known_types.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Encode and decode a {@code Struct} nested {@code depth} times with the static writer and reader methods and with
+ * a reused {@link ProtobufSession}, run it with {@code -prof gc} to compare the allocation per operation.
+ */
+@State(Scope.Thread)
+public class SessionBenchmark extends BenchmarkBase {
+
+  @Param({"1", "16"})
+  public int depth;
+
+  private Struct struct;
+  private Buffer payload;
+  private Buffer target;
+  private ProtobufSession session;
+
+  @Setup
+  public void setup() {
+    struct = fields(new Struct());
+    for (int i = 1;i < depth;i++) {
+      Struct parent = fields(new Struct());
+      parent.getFields().put("the-object", new Value().setKind(Value.Kind.ofStructValue(struct)));
+      struct = parent;
+    }
+    payload = ProtobufWriter.encode(visitor -> ProtoWriter.emit(struct, visitor));
+    target = Buffer.buffer(payload.length());
+    session = new ProtobufSession();
+  }
+
+  private static Struct fields(Struct struct) {
+    struct.getFields().put("the-string", new Value().setKind(Value.Kind.ofStringValue("the-string-value")));
+    struct.getFields().put("the-number", new Value().setKind(Value.Kind.ofNumberValue(4D)));
+    struct.getFields().put("the-boolean", new Value().setKind(Value.Kind.ofBoolValue(true)));
+    return struct;
+  }
+
+  @Benchmark
+  public Buffer encodeTo() {
+    ((BufferInternal) target).unwrap().clear();
+    return ProtobufWriter.encodeTo(visitor -> ProtoWriter.emit(struct, visitor), target);
+  }
+
+  @Benchmark
+  public Buffer sessionEncodeTo() {
+    ((BufferInternal) target).unwrap().clear();
+    return session.encodeTo(visitor -> ProtoWriter.emit(struct, visitor), target);
+  }
+
+  @Benchmark
+  public Struct decode() {
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Struct, reader, payload);
+    return (Struct) reader.stack.pop();
+  }
+
+  @Benchmark
+  public Struct sessionDecode() {
+    ProtoReader reader = new ProtoReader();
+    session.parse(MessageLiteral.Struct, reader, payload);
+    return (Struct) reader.stack.pop();
+  }
+}
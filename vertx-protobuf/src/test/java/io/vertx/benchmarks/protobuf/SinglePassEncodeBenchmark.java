@@ -0,0 +1,54 @@
+package io.vertx.benchmarks.protobuf;
+
+import io.vertx.protobuf.ProtobufWriter;
+import io.vertx.protobuf.ProtobufWriterOptions;
+import io.vertx.protobuf.well_known_types.ProtoWriter;
+import io.vertx.protobuf.well_known_types.Struct;
+import io.vertx.protobuf.well_known_types.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Encode a {@code Struct} nested {@code depth} times with the two-phase writer and the single pass writer, each level
+ * of nesting adds three length delimited fields: the map entry, the value and the struct.
+ */
+@State(Scope.Thread)
+public class SinglePassEncodeBenchmark extends BenchmarkBase {
+
+  private static final ProtobufWriterOptions SINGLE_PASS = new ProtobufWriterOptions().setSinglePass(true);
+
+  @Param({"1", "16"})
+  public int depth;
+
+  private Struct struct;
+
+  @Setup
+  public void setup() {
+    struct = fields(new Struct());
+    for (int i = 1;i < depth;i++) {
+      Struct parent = fields(new Struct());
+      parent.getFields().put("the-object", new Value().setKind(Value.Kind.ofStructValue(struct)));
+      struct = parent;
+    }
+  }
+
+  private static Struct fields(Struct struct) {
+    struct.getFields().put("the-string", new Value().setKind(Value.Kind.ofStringValue("the-string-value")));
+    struct.getFields().put("the-number", new Value().setKind(Value.Kind.ofNumberValue(4D)));
+    struct.getFields().put("the-boolean", new Value().setKind(Value.Kind.ofBoolValue(true)));
+    return struct;
+  }
+
+  @Benchmark
+  public byte[] twoPhase() {
+    return ProtobufWriter.encodeToByteArray(visitor -> ProtoWriter.emit(struct, visitor));
+  }
+
+  @Benchmark
+  public byte[] singlePass() {
+    return ProtobufWriter.encodeToByteArray(visitor -> ProtoWriter.emit(struct, visitor), SINGLE_PASS);
+  }
+}
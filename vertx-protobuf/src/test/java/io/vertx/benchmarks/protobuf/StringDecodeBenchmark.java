@@ -0,0 +1,62 @@
+package io.vertx.benchmarks.protobuf;
+
+import io.vertx.protobuf.ProtobufDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decode a {@code string} field with {@link ProtobufDecoder#readString(int)} compared to the JDK decoder, which
+ * does not validate the input.
+ */
+@State(Scope.Thread)
+public class StringDecodeBenchmark extends BenchmarkBase {
+
+  @Param({"ascii", "latin1", "cjk", "emoji"})
+  public String text;
+
+  @Param({"16", "256"})
+  public int length;
+
+  private byte[] bytes;
+
+  @Setup
+  public void setup() {
+    String pattern;
+    switch (text) {
+      case "ascii":
+        pattern = "request_id-0123456789";
+        break;
+      case "latin1":
+        pattern = "caf\u00e9 cr\u00e8me br\u00fbl\u00e9e ";
+        break;
+      case "cjk":
+        pattern = "\u65e5\u672c\u8a9e\u306e\u6587\u7ae0\u4e2d\u6587";
+        break;
+      case "emoji":
+        pattern = "\ud83d\ude00\ud83c\udf89\ud83d\ude80\u2764\ufe0f";
+        break;
+      default:
+        throw new IllegalArgumentException();
+    }
+    StringBuilder sb = new StringBuilder();
+    while (sb.length() < length) {
+      sb.append(pattern);
+    }
+    bytes = sb.substring(0, length).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public String decoder() {
+    return ProtobufDecoder.create(bytes).readString(bytes.length);
+  }
+
+  @Benchmark
+  public String jdk() {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
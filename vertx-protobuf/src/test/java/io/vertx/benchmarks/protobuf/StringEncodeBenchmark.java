@@ -0,0 +1,86 @@
+package io.vertx.benchmarks.protobuf;
+
+import io.vertx.protobuf.ProtoVisitor;
+import io.vertx.protobuf.ProtobufWriter;
+import io.vertx.protobuf.ProtobufWriterOptions;
+import io.vertx.protobuf.schema.DefaultField;
+import io.vertx.protobuf.schema.DefaultMessageType;
+import io.vertx.protobuf.schema.DefaultSchema;
+import io.vertx.protobuf.schema.ScalarType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.function.Consumer;
+
+/**
+ * Encode a message of {@code string} fields with the two-phase writer, with and without the UTF-8 cache, and with the
+ * single pass writer.
+ */
+@State(Scope.Thread)
+public class StringEncodeBenchmark extends BenchmarkBase {
+
+  private static final ProtobufWriterOptions NO_CACHE = new ProtobufWriterOptions().setUtf8CacheThreshold(Integer.MAX_VALUE);
+  private static final ProtobufWriterOptions SINGLE_PASS = new ProtobufWriterOptions().setSinglePass(true);
+
+  @Param({"ascii", "latin1", "cjk", "emoji"})
+  public String text;
+
+  @Param({"16", "4096"})
+  public int length;
+
+  private Consumer<ProtoVisitor> consumer;
+
+  @Setup
+  public void setup() {
+    String pattern;
+    switch (text) {
+      case "ascii":
+        pattern = "request_id-0123456789";
+        break;
+      case "latin1":
+        pattern = "caf\u00e9 cr\u00e8me br\u00fbl\u00e9e ";
+        break;
+      case "cjk":
+        pattern = "\u65e5\u672c\u8a9e\u306e\u6587\u7ae0\u4e2d\u6587";
+        break;
+      case "emoji":
+        pattern = "\ud83d\ude00\ud83c\udf89\ud83d\ude80\u2764\ufe0f";
+        break;
+      default:
+        throw new IllegalArgumentException();
+    }
+    StringBuilder sb = new StringBuilder();
+    while (sb.length() < length) {
+      sb.append(pattern);
+    }
+    String s = sb.substring(0, length);
+    DefaultSchema schema = new DefaultSchema();
+    DefaultMessageType msg = schema.of("msg");
+    DefaultField field = msg.addField(builder -> builder.number(1).type(ScalarType.STRING).repeated(true));
+    consumer = visitor -> {
+      visitor.init(msg);
+      for (int i = 0;i < 8;i++) {
+        visitor.visitString(field, s);
+      }
+      visitor.destroy();
+    };
+  }
+
+  @Benchmark
+  public byte[] twoPhase() {
+    return ProtobufWriter.encodeToByteArray(consumer);
+  }
+
+  @Benchmark
+  public byte[] twoPhaseNoCache() {
+    return ProtobufWriter.encodeToByteArray(consumer, NO_CACHE);
+  }
+
+  @Benchmark
+  public byte[] singlePass() {
+    return ProtobufWriter.encodeToByteArray(consumer, SINGLE_PASS);
+  }
+}
@@ -0,0 +1,56 @@
+package io.vertx.benchmarks.protobuf;
+
+import io.vertx.protobuf.ProtoVisitor;
+import io.vertx.protobuf.ProtobufWriter;
+import io.vertx.protobuf.ProtobufWriterOptions;
+import io.vertx.protobuf.schema.DefaultField;
+import io.vertx.protobuf.schema.DefaultMessageType;
+import io.vertx.protobuf.schema.DefaultSchema;
+import io.vertx.protobuf.schema.ScalarType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.function.Consumer;
+
+/**
+ * Encode a message of {@code uint64} fields whose values are {@code size} bytes long once encoded as varint, with
+ * the two-phase and the single pass writers.
+ */
+@State(Scope.Thread)
+public class VarIntEncodeBenchmark extends BenchmarkBase {
+
+  private static final ProtobufWriterOptions SINGLE_PASS = new ProtobufWriterOptions().setSinglePass(true);
+
+  @Param({"1", "3", "5", "10"})
+  public int size;
+
+  private Consumer<ProtoVisitor> consumer;
+
+  @Setup
+  public void setup() {
+    long value = size == 10 ? -1L : (1L << (7 * size)) - 1;
+    DefaultSchema schema = new DefaultSchema();
+    DefaultMessageType msg = schema.of("msg");
+    DefaultField field = msg.addField(builder -> builder.number(1).type(ScalarType.UINT64).repeated(true));
+    consumer = visitor -> {
+      visitor.init(msg);
+      for (int i = 0;i < 64;i++) {
+        visitor.visitUInt64(field, value);
+      }
+      visitor.destroy();
+    };
+  }
+
+  @Benchmark
+  public byte[] twoPhase() {
+    return ProtobufWriter.encodeToByteArray(consumer);
+  }
+
+  @Benchmark
+  public byte[] singlePass() {
+    return ProtobufWriter.encodeToByteArray(consumer, SINGLE_PASS);
+  }
+}
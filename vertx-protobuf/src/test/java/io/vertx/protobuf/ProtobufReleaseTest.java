@@ -0,0 +1,90 @@
+package io.vertx.protobuf;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.buffer.BufferInternal;
+import io.vertx.protobuf.schema.DefaultMessageType;
+import io.vertx.protobuf.schema.ScalarType;
+import io.vertx.tests.protobuf.RecordingVisitor;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that a reused decoder drops the references to its input, in the same package to access the decoder storage.
+ */
+public class ProtobufReleaseTest {
+
+  private static final DefaultMessageType MSG = new DefaultMessageType("msg");
+
+  static {
+    MSG.addField(1, ScalarType.STRING);
+  }
+
+  private static final byte[] BYTES = { 10, 3, 'a', 'b', 'c' };
+
+  @Test
+  public void testSessionParseByteArray() {
+    ProtobufSession session = new ProtobufSession();
+    session.parse(MSG, new RecordingVisitor(), BYTES);
+    assertNotSame(BYTES, session.decoder().storage());
+    assertEquals(0, ((byte[]) session.decoder().storage()).length);
+  }
+
+  @Test
+  public void testSessionParseBuffer() {
+    ProtobufSession session = new ProtobufSession();
+    Buffer buffer = Buffer.buffer(BYTES);
+    session.parse(MSG, new RecordingVisitor(), buffer);
+    assertNotSame(((BufferInternal) buffer).unwrap(), session.decoder().storage());
+    assertEquals(0, ((ByteBuf) session.decoder().storage()).capacity());
+  }
+
+  @Test
+  public void testSessionParseBufferInterface() {
+    ProtobufSession session = new ProtobufSession();
+    Buffer buffer = proxy(Buffer.buffer(BYTES));
+    session.parse(MSG, new RecordingVisitor(), buffer);
+    assertNotSame(buffer, session.decoder().storage());
+    assertEquals(0, ((Buffer) session.decoder().storage()).length());
+  }
+
+  @Test
+  public void testReleaseByteBuffer() {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(BYTES.length);
+    buffer.put(BYTES).flip();
+    ProtobufDecoder decoder = ProtobufDecoder.create(buffer);
+    ProtobufReader.parse(MSG, new RecordingVisitor(), decoder);
+    decoder.release();
+    assertEquals(0, ((ByteBuffer) decoder.storage()).capacity());
+    assertEquals(0, decoder.len());
+  }
+
+  @Test
+  public void testReleaseByteBuf() {
+    Buffer buffer = Buffer.buffer(BYTES);
+    ProtobufDecoder decoder = ProtobufDecoder.create(buffer);
+    assertSame(((BufferInternal) buffer).unwrap(), decoder.storage());
+    decoder.release();
+    assertEquals(0, ((ByteBuf) decoder.storage()).capacity());
+  }
+
+  /**
+   * @return a {@link Buffer} that is not backed by a {@code ByteBuf}, it is read through the {@code Buffer} interface
+   */
+  private static Buffer proxy(Buffer buffer) {
+    return (Buffer) Proxy.newProxyInstance(Buffer.class.getClassLoader(), new Class<?>[] { Buffer.class }, (proxy, method, args) -> {
+      try {
+        return method.invoke(buffer, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    });
+  }
+}
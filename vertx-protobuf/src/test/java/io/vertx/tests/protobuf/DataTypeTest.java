@@ -1,16 +1,21 @@
 package io.vertx.tests.protobuf;
 
+import com.google.protobuf.ByteString;
 import com.google.protobuf.MessageLite;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.ProtobufDecoder;
 import io.vertx.protobuf.ProtobufReader;
+import io.vertx.protobuf.ProtobufReaderOptions;
 import io.vertx.protobuf.ProtobufWriter;
 import io.vertx.protobuf.schema.MessageType;
+import io.vertx.tests.protobuf.datatypes.DataTypesProto;
 import io.vertx.tests.protobuf.datatypes.EnumTypes;
 import io.vertx.tests.protobuf.datatypes.Enumerated;
 import io.vertx.tests.protobuf.datatypes.FieldLiteral;
 import io.vertx.tests.protobuf.datatypes.MessageLiteral;
 import io.vertx.tests.protobuf.datatypes.ProtoReader;
 import io.vertx.tests.protobuf.datatypes.ProtoWriter;
+import io.vertx.tests.protobuf.datatypes.ScalarTypes;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -60,4 +65,30 @@ public class DataTypeTest extends DataTypeTestBase {
     ProtobufReader.parse(MessageLiteral.EnumTypes, checker, res);
     assertTrue(checker.isEmpty());
   }
+
+  @Test
+  public void testReadBytesSlice() throws Exception {
+    testReadBytes(32, true);
+  }
+
+  @Test
+  public void testReadBytesCopy() throws Exception {
+    testReadBytes(128, false);
+  }
+
+  private void testReadBytes(int copyThreshold, boolean shared) throws Exception {
+    byte[] payload = new byte[64];
+    for (int i = 0;i < payload.length;i++) {
+      payload[i] = (byte) i;
+    }
+    byte[] bytes = DataTypesProto.ScalarTypes.newBuilder().setBytes(ByteString.copyFrom(payload)).build().toByteArray();
+    Buffer buffer = Buffer.buffer(bytes);
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.ScalarTypes, reader, ProtobufDecoder.create(buffer), new ProtobufReaderOptions().setCopyThreshold(copyThreshold));
+    ScalarTypes msg = (ScalarTypes) reader.stack.pop();
+    assertEquals(Buffer.buffer(payload), msg.getBytes());
+    assertEquals(Buffer.buffer(bytes), ProtobufWriter.encode(v -> ProtoWriter.emit(msg, v)));
+    buffer.setByte(bytes.length - 1, (byte) -1);
+    assertEquals(shared, msg.getBytes().getByte(payload.length - 1) == -1);
+  }
 }
@@ -0,0 +1,236 @@
+package io.vertx.tests.protobuf;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.protobuf.ProtobufReader;
+import io.vertx.protobuf.stream.Delimited;
+import io.vertx.tests.protobuf.datatypes.DataTypesProto;
+import io.vertx.tests.protobuf.datatypes.MessageLiteral;
+import io.vertx.tests.protobuf.datatypes.ProtoReader;
+import io.vertx.tests.protobuf.datatypes.ScalarTypes;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DelimitedStreamTest {
+
+  private static ScalarTypes decode(Buffer buffer) {
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.ScalarTypes, reader, buffer);
+    return (ScalarTypes) reader.stack.pop();
+  }
+
+  private static byte[] delimited(int count) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int i = 0;i < count;i++) {
+      DataTypesProto.ScalarTypes.newBuilder()
+        .setInt32(i)
+        .setString("message-" + i)
+        .build()
+        .writeDelimitedTo(out);
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testReadChunks() throws Exception {
+    byte[] bytes = delimited(10);
+    for (int chunkSize = 1;chunkSize <= bytes.length;chunkSize++) {
+      ChunkStream source = new ChunkStream();
+      List<ScalarTypes> messages = new ArrayList<>();
+      boolean[] ended = new boolean[1];
+      ReadStream<ScalarTypes> stream = Delimited.readStream(source, DelimitedStreamTest::decode);
+      stream.endHandler(v -> ended[0] = true);
+      stream.handler(messages::add);
+      for (int i = 0;i < bytes.length;i += chunkSize) {
+        source.write(Buffer.buffer(bytes).getBuffer(i, Math.min(bytes.length, i + chunkSize)));
+      }
+      source.end();
+      assertTrue(ended[0]);
+      assertEquals(10, messages.size());
+      for (int i = 0;i < 10;i++) {
+        assertEquals(i, (int) messages.get(i).getInt32());
+        assertEquals("message-" + i, messages.get(i).getString());
+      }
+    }
+  }
+
+  @Test
+  public void testFetch() throws Exception {
+    ChunkStream source = new ChunkStream();
+    List<ScalarTypes> messages = new ArrayList<>();
+    ReadStream<ScalarTypes> stream = Delimited.readStream(source, DelimitedStreamTest::decode);
+    stream.pause();
+    stream.handler(messages::add);
+    source.write(Buffer.buffer(delimited(3)));
+    assertTrue(source.paused);
+    assertEquals(0, messages.size());
+    stream.fetch(1);
+    assertEquals(1, messages.size());
+    assertTrue(source.paused);
+    stream.fetch(3);
+    assertEquals(3, messages.size());
+    assertFalse(source.paused);
+  }
+
+  @Test
+  public void testMaxFrameSize() throws Exception {
+    byte[] bytes = delimited(1);
+    ChunkStream source = new ChunkStream();
+    List<Throwable> failures = new ArrayList<>();
+    ReadStream<ScalarTypes> stream = Delimited.readStream(source, DelimitedStreamTest::decode, bytes.length - 2);
+    stream.exceptionHandler(failures::add);
+    stream.handler(msg -> fail());
+    source.write(Buffer.buffer(bytes));
+    assertEquals(1, failures.size());
+    assertTrue(failures.get(0) instanceof DecodeException);
+  }
+
+  @Test
+  public void testTruncatedFrame() throws Exception {
+    byte[] bytes = delimited(2);
+    ChunkStream source = new ChunkStream();
+    List<ScalarTypes> messages = new ArrayList<>();
+    List<Throwable> failures = new ArrayList<>();
+    ReadStream<ScalarTypes> stream = Delimited.readStream(source, DelimitedStreamTest::decode);
+    stream.exceptionHandler(failures::add);
+    stream.endHandler(v -> fail());
+    stream.handler(messages::add);
+    source.write(Buffer.buffer(bytes).getBuffer(0, bytes.length - 1));
+    source.end();
+    assertEquals(1, messages.size());
+    assertEquals(1, failures.size());
+    assertTrue(failures.get(0) instanceof DecodeException);
+  }
+
+  @Test
+  public void testWrite() throws Exception {
+    BufferStream sink = new BufferStream();
+    WriteStream<ScalarTypes> stream = Delimited.writeStream(sink, MessageLiteral.ScalarTypes);
+    for (int i = 0;i < 3;i++) {
+      ScalarTypes msg = new ScalarTypes();
+      msg.setInt32(i);
+      msg.setString("message-" + i);
+      assertTrue(stream.write(msg).succeeded());
+    }
+    assertEquals(3, sink.writes);
+    ByteArrayInputStream in = new ByteArrayInputStream(sink.buffer.getBytes());
+    for (int i = 0;i < 3;i++) {
+      DataTypesProto.ScalarTypes msg = DataTypesProto.ScalarTypes.parseDelimitedFrom(in);
+      assertEquals(i, msg.getInt32());
+      assertEquals("message-" + i, msg.getString());
+    }
+    assertNull(DataTypesProto.ScalarTypes.parseDelimitedFrom(in));
+  }
+
+  private static class ChunkStream implements ReadStream<Buffer> {
+
+    private final Deque<Buffer> pending = new ArrayDeque<>();
+    private Handler<Buffer> handler;
+    private Handler<Void> endHandler;
+    private boolean paused;
+
+    void write(Buffer chunk) {
+      pending.add(chunk);
+      deliver();
+    }
+
+    void end() {
+      assertTrue(pending.isEmpty());
+      endHandler.handle(null);
+    }
+
+    private void deliver() {
+      Buffer chunk;
+      while (!paused && (chunk = pending.poll()) != null) {
+        handler.handle(chunk);
+      }
+    }
+
+    @Override
+    public ReadStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> handler(Handler<Buffer> handler) {
+      this.handler = handler;
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> pause() {
+      paused = true;
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> resume() {
+      paused = false;
+      deliver();
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> fetch(long amount) {
+      paused = false;
+      deliver();
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> endHandler(Handler<Void> endHandler) {
+      this.endHandler = endHandler;
+      return this;
+    }
+  }
+
+  private static class BufferStream implements WriteStream<Buffer> {
+
+    private final Buffer buffer = Buffer.buffer();
+    private int writes;
+
+    @Override
+    public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+      return this;
+    }
+
+    @Override
+    public Future<Void> write(Buffer data) {
+      buffer.appendBuffer(data);
+      writes++;
+      return Future.succeededFuture();
+    }
+
+    @Override
+    public Future<Void> end() {
+      return Future.succeededFuture();
+    }
+
+    @Override
+    public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+      return this;
+    }
+
+    @Override
+    public boolean writeQueueFull() {
+      return false;
+    }
+
+    @Override
+    public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package io.vertx.tests.protobuf;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.FieldProjection;
+import io.vertx.protobuf.ProtobufDecoder;
+import io.vertx.protobuf.ProtobufReader;
+import io.vertx.protobuf.ProtobufWriter;
+import io.vertx.protobuf.schema.DefaultField;
+import io.vertx.protobuf.schema.DefaultMessageType;
+import io.vertx.protobuf.schema.ScalarType;
+import io.vertx.protobuf.schema.WireType;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FieldProjectionTest {
+
+  private final DefaultMessageType person = new DefaultMessageType("Person");
+  private final DefaultMessageType address = new DefaultMessageType("Address");
+  private final DefaultField nameField = person.addField(1, "name", ScalarType.STRING);
+  private final DefaultField idField = person.addField(2, "id", ScalarType.INT32);
+  private final DefaultField addressField = person.addField(3, "home_address", address);
+  private final DefaultField cityField = address.addField(1, "city", ScalarType.STRING);
+  private final DefaultField zipField = address.addField(2, "zip", ScalarType.STRING);
+
+  private Buffer encode() {
+    return ProtobufWriter.encode(visitor -> {
+      visitor.init(person);
+      visitor.visitString(nameField, "Julien");
+      visitor.visitInt32(idField, 4);
+      visitor.enter(addressField);
+      visitor.visitString(cityField, "Marseille");
+      visitor.visitString(zipField, "13000");
+      visitor.leave(addressField);
+      visitor.visitInt64(person.unknownField(9, WireType.VARINT), 5);
+      visitor.destroy();
+    });
+  }
+
+  @Test
+  public void testProjectNestedField() {
+    FieldProjection projection = FieldProjection.compile(person, "id", "home_address.city");
+    RecordingVisitor visitor = new RecordingVisitor();
+    ProtobufReader.parse(projection, visitor, ProtobufDecoder.create(encode()));
+    RecordingVisitor.Checker checker = visitor.checker();
+    checker.init(person);
+    checker.visitInt32(idField, 4);
+    checker.enter(addressField);
+    checker.visitString(cityField, "Marseille");
+    checker.leave(addressField);
+    checker.destroy();
+    assertTrue(checker.isEmpty());
+  }
+
+  @Test
+  public void testProjectWholeField() {
+    // JSON names are accepted and the whole field wins over its sub paths
+    FieldProjection projection = FieldProjection.compile(person, "homeAddress.zip", "homeAddress");
+    RecordingVisitor visitor = new RecordingVisitor();
+    ProtobufReader.parse(projection, visitor, ProtobufDecoder.create(encode()));
+    RecordingVisitor.Checker checker = visitor.checker();
+    checker.init(person);
+    checker.enter(addressField);
+    checker.visitString(cityField, "Marseille");
+    checker.visitString(zipField, "13000");
+    checker.leave(addressField);
+    checker.destroy();
+    assertTrue(checker.isEmpty());
+  }
+
+  @Test
+  public void testInvalidPath() {
+    try {
+      FieldProjection.compile(person, "home_address.country");
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      FieldProjection.compile(person, "name.first");
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
@@ -10,8 +10,12 @@ import io.vertx.tests.merge.MessageLiteral;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class MergeTest {
 
@@ -63,4 +67,63 @@ public class MergeTest {
     Integer i = msg.getOneOf().asOneOfInt32().get();
     assertEquals(4, (int)i);
   }
+
+  @Test
+  public void testMergeInto() {
+    Container msg = new Container()
+      .setInt32(1)
+      .setNested(new Nested().setInt32(3));
+    msg.getRepeatedInt32().add(1);
+    byte[] bytes = MergeProto.Container.newBuilder()
+      .setInt64(2L)
+      .addRepeatedInt32(2)
+      .setNested(MergeProto.Nested.newBuilder().setInt64(4L).build())
+      .build().toByteArray();
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Container, reader.mergeInto(msg), Buffer.buffer(bytes));
+    assertSame(msg, reader.stack.pop());
+    assertEquals(1, (int)msg.getInt32());
+    assertEquals(2L, (long)msg.getInt64());
+    assertEquals(Arrays.asList(1, 2), msg.getRepeatedInt32());
+    assertEquals(3, (int)msg.getNested().getInt32());
+    assertEquals(4L, (long)msg.getNested().getInt64());
+    // The target is only used once
+    ProtobufReader.parse(MessageLiteral.Container, reader, Buffer.buffer(bytes));
+    Container other = (Container) reader.stack.pop();
+    assertEquals(0, (int)other.getInt32());
+    assertEquals(Arrays.asList(2), other.getRepeatedInt32());
+  }
+
+  @Test
+  public void testClear() {
+    byte[] bytes = MergeProto.Container.newBuilder()
+      .setInt32(1)
+      .addRepeatedInt32(1)
+      .setNested(MergeProto.Nested.newBuilder().setInt32(3).addRepeatedInt32(3).build())
+      .setOneOfInt32(5)
+      .build().toByteArray();
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Container, reader, Buffer.buffer(bytes));
+    Container msg = (Container) reader.stack.pop();
+    List<Integer> repeated = msg.getRepeatedInt32();
+    Nested nested = msg.getNested();
+    assertSame(msg, msg.clear());
+    assertEquals(0, (int)msg.getInt32());
+    assertTrue(msg.getRepeatedInt32().isEmpty());
+    assertNull(msg.getNested());
+    assertNull(msg.getOneOf());
+    assertEquals(0, (int)nested.getInt32());
+    assertTrue(nested.getRepeatedInt32().isEmpty());
+    byte[] next = MergeProto.Container.newBuilder()
+      .addRepeatedInt32(2)
+      .setNested(MergeProto.Nested.newBuilder().setInt64(4L).build())
+      .build().toByteArray();
+    ProtobufReader.parse(MessageLiteral.Container, reader.mergeInto(msg), Buffer.buffer(next));
+    assertSame(msg, reader.stack.pop());
+    assertSame(repeated, msg.getRepeatedInt32());
+    assertEquals(Arrays.asList(2), repeated);
+    assertSame(nested, msg.getNested());
+    assertEquals(0, (int)nested.getInt32());
+    assertEquals(4L, (long)nested.getInt64());
+  }
 }
@@ -2,10 +2,13 @@ package io.vertx.tests.protobuf;
 
 import com.google.protobuf.ByteString;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.ProtobufReader;
 import io.vertx.protobuf.ProtobufWriter;
 import io.vertx.tests.presence.Default;
+import io.vertx.tests.presence.MessageLiteral;
 import io.vertx.tests.presence.Optional;
 import io.vertx.tests.presence.PresenceProto;
+import io.vertx.tests.presence.ProtoReader;
 import io.vertx.tests.presence.ProtoWriter;
 import io.vertx.tests.presence.Repeated;
 import io.vertx.tests.presence.Enumerated;
@@ -88,6 +91,32 @@ public class PresenceTest {
     assertEquals(expected.length, bytes.length);
   }
 
+  @Test
+  public void testOptionalPresenceBits() throws Exception {
+    Optional msg = new Optional();
+    assertFalse(msg.hasInt32());
+    assertFalse(msg.hasDouble());
+    assertFalse(msg.hasBool());
+    assertEquals(0, msg.getInt32());
+    msg.setInt32(0);
+    msg.setBool(false);
+    assertTrue(msg.hasInt32());
+    assertTrue(msg.hasBool());
+    assertFalse(msg.hasFloat());
+    byte[] bytes = ProtobufWriter.encodeToByteArray(visitor -> ProtoWriter.emit(msg, visitor));
+    PresenceProto.Optional decoded = PresenceProto.Optional.parseFrom(bytes);
+    assertTrue(decoded.hasInt32());
+    assertTrue(decoded.hasBool());
+    assertFalse(decoded.hasFloat());
+    assertFalse(decoded.hasInt64());
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Optional, reader, Buffer.buffer(bytes));
+    Optional read = (Optional) reader.stack.pop();
+    assertTrue(read.hasInt32());
+    assertTrue(read.hasBool());
+    assertFalse(read.hasFloat());
+  }
+
   @Test
   public void testRepeatedPresence() {
     Repeated msg = new Repeated();
@@ -1,11 +1,18 @@
 package io.vertx.tests.protobuf;
 
+import io.netty.buffer.Unpooled;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.buffer.BufferInternal;
+import io.vertx.core.json.DecodeException;
 import io.vertx.protobuf.ProtobufDecoder;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ProtobufDecoderTest {
 
@@ -49,4 +56,76 @@ public class ProtobufDecoderTest {
 //    assertEquals(18446744073709551615L, decoder.longValue());
 
   }
+
+  @Test
+  public void testReadTruncatedVarInt() {
+    byte[] data = { -1, -1 };
+    ProtobufDecoder decoder = new ProtobufDecoder(Buffer.buffer(data));
+    try {
+      decoder.readVarInt32();
+      fail();
+    } catch (DecodeException expected) {
+    }
+  }
+
+  @Test
+  public void testReadVarIntWithinLimit() {
+    byte[] data = { -71, 96, 1 };
+    ProtobufDecoder decoder = new ProtobufDecoder(Buffer.buffer(data));
+    decoder.len(1);
+    try {
+      decoder.readVarInt32();
+      fail();
+    } catch (DecodeException expected) {
+    }
+  }
+
+  @Test
+  public void testReadFromDirectBuffer() {
+    byte[] data = { 8, -71, 96, -27, 96, 1, 2, 3, 4 };
+    Buffer buffer = BufferInternal.buffer(Unpooled.directBuffer().writeBytes(data));
+    ProtobufDecoder decoder = new ProtobufDecoder(buffer);
+    assertTrue(decoder.readTag());
+    assertEquals(1, decoder.fieldNumber());
+    assertEquals(0, decoder.wireType());
+    assertTrue(decoder.readVarInt32());
+    assertEquals(12345, decoder.intValue());
+    assertTrue(decoder.readTag());
+    assertEquals(1548, decoder.fieldNumber());
+    assertEquals(5, decoder.wireType());
+    assertTrue(decoder.readI32());
+    assertEquals(0x04030201, decoder.intValue());
+    assertFalse(decoder.isReadable());
+  }
+
+  @Test
+  public void testReadString() {
+    String[] strings = { "", "identifier_1234567890", "caf\u00e9 cr\u00e8me", "\u65e5\u672c\u8a9e", "\ud83d\ude00 \ud83c\udf89" };
+    for (String s : strings) {
+      byte[] data = s.getBytes(StandardCharsets.UTF_8);
+      ProtobufDecoder decoder = ProtobufDecoder.create(data);
+      assertEquals(s, decoder.readString(data.length));
+      decoder = new ProtobufDecoder(BufferInternal.buffer(Unpooled.directBuffer().writeBytes(data)));
+      assertEquals(s, decoder.readString(data.length));
+    }
+  }
+
+  @Test
+  public void testReadInvalidString() {
+    byte[][] invalid = {
+      { (byte) 0x80 }, // Continuation byte
+      { 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', (byte) 0xC3 }, // Truncated
+      { (byte) 0xC0, (byte) 0xAF }, // Overlong
+      { (byte) 0xED, (byte) 0xA0, (byte) 0x80 }, // Surrogate
+      { (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80 } // Above U+10FFFF
+    };
+    for (byte[] data : invalid) {
+      ProtobufDecoder decoder = ProtobufDecoder.create(data);
+      try {
+        decoder.readString(data.length);
+        fail();
+      } catch (DecodeException expected) {
+      }
+    }
+  }
 }
@@ -1,12 +1,29 @@
 package io.vertx.tests.protobuf;
 
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.DecodeException;
+import io.vertx.protobuf.DiscardedBytesCounter;
+import io.vertx.protobuf.ProtobufDecoder;
+import io.vertx.protobuf.ProtobufParser;
 import io.vertx.protobuf.ProtobufReader;
+import io.vertx.protobuf.ProtobufReaderOptions;
+import io.vertx.protobuf.schema.DefaultField;
 import io.vertx.protobuf.schema.DefaultMessageType;
+import io.vertx.protobuf.schema.Field;
 import io.vertx.protobuf.schema.ScalarType;
+import io.vertx.protobuf.schema.WireType;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class ProtobufReaderTest {
@@ -23,6 +40,314 @@ public class ProtobufReaderTest {
     testInvalidInput(data);
   }
 
+  @Test
+  public void testReadInvalidLength() {
+    byte[] data = { 10, 5, 'h', 'e' };
+    testInvalidInput(data);
+  }
+
+  private static final byte[] MESSAGE = { 10, 5, 'h', 'e', 'l', 'l', 'o', 16, -71, 96, 25, 1, 2, 3, 4, 5, 6, 7, 8 };
+
+  @Test
+  public void testParseByteArray() {
+    testParse(ProtobufDecoder.create(MESSAGE));
+  }
+
+  @Test
+  public void testParseByteArrayRange() {
+    byte[] data = new byte[MESSAGE.length + 4];
+    System.arraycopy(MESSAGE, 0, data, 2, MESSAGE.length);
+    testParse(ProtobufDecoder.create(data, 2, MESSAGE.length));
+  }
+
+  @Test
+  public void testParseDirectByteBuffer() {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(MESSAGE.length);
+    buffer.put(MESSAGE).flip();
+    testParse(ProtobufDecoder.create(buffer));
+  }
+
+  @Test
+  public void testParseCompositeByteBuf() {
+    // Split at every position to cover varints and fixed values straddling components
+    for (int i = 1;i < MESSAGE.length;i++) {
+      for (int j = i + 1;j < MESSAGE.length;j++) {
+        CompositeByteBuf composite = Unpooled.compositeBuffer();
+        composite.addComponent(true, Unpooled.wrappedBuffer(Arrays.copyOfRange(MESSAGE, 0, i)));
+        composite.addComponent(true, Unpooled.directBuffer().writeBytes(MESSAGE, i, j - i));
+        composite.addComponent(true, Unpooled.wrappedBuffer(Arrays.copyOfRange(MESSAGE, j, MESSAGE.length)));
+        testParse(ProtobufDecoder.create(composite));
+      }
+    }
+  }
+
+  private void testParse(ProtobufDecoder decoder) {
+    DefaultMessageType msg = new DefaultMessageType("whatever");
+    DefaultField stringField = msg.addField(1, ScalarType.STRING);
+    DefaultField int32Field = msg.addField(2, ScalarType.INT32);
+    DefaultField fixed64Field = msg.addField(3, ScalarType.FIXED64);
+    RecordingVisitor visitor = new RecordingVisitor();
+    ProtobufReader.parse(msg, visitor, decoder);
+    RecordingVisitor.Checker checker = visitor.checker();
+    checker.init(msg);
+    checker.visitString(stringField, "hello");
+    checker.visitInt32(int32Field, 12345);
+    checker.visitFixed64(fixed64Field, 0x0807060504030201L);
+    checker.destroy();
+    assertTrue(checker.isEmpty());
+  }
+
+  @Test
+  public void testParseFieldsOutOfOrder() {
+    DefaultMessageType msg = new DefaultMessageType("whatever");
+    DefaultField int32Field = msg.addField(1, ScalarType.INT32);
+    DefaultField int64Field = msg.addField(builder -> builder.number(2).type(ScalarType.INT64).repeated(true).packed(false));
+    DefaultField stringField = msg.addField(3, ScalarType.STRING);
+    // Predicted fields, a repeated field, an unknown field and fields out of order
+    byte[] data = { 8, 1, 16, 2, 16, 3, 26, 1, 'a', 72, 4, 8, 5, 16, 6, 26, 1, 'b' };
+    RecordingVisitor visitor = new RecordingVisitor();
+    ProtobufReader.parse(msg, visitor, Buffer.buffer(data));
+    RecordingVisitor.Checker checker = visitor.checker();
+    checker.init(msg);
+    checker.visitInt32(int32Field, 1);
+    checker.visitInt64(int64Field, 2);
+    checker.visitInt64(int64Field, 3);
+    checker.visitString(stringField, "a");
+    checker.visitInt64(msg.unknownField(9, WireType.VARINT), 4);
+    checker.visitInt32(int32Field, 5);
+    checker.visitInt64(int64Field, 6);
+    checker.visitString(stringField, "b");
+    checker.destroy();
+    assertTrue(checker.isEmpty());
+  }
+
+  @Test
+  public void testDiscardUnknownFields() {
+    DefaultMessageType nested = new DefaultMessageType("nested");
+    DefaultField nestedField = nested.addField(1, ScalarType.INT32);
+    DefaultMessageType msg = new DefaultMessageType("whatever");
+    DefaultField int32Field = msg.addField(1, ScalarType.INT32);
+    DefaultField msgField = msg.addField(2, nested);
+    // Unknown varint, i64, len and i32 fields in the root message, an unknown varint field in the nested message
+    byte[] data = {
+      8, 1,
+      24, -128, 1,
+      33, 1, 2, 3, 4, 5, 6, 7, 8,
+      18, 5, 8, 2, -128, 1, 3,
+      42, 2, 'a', 'b',
+      53, 1, 2, 3, 4,
+      8, 4
+    };
+    DiscardedBytesCounter counter = new DiscardedBytesCounter();
+    ProtobufReaderOptions options = new ProtobufReaderOptions()
+      .setDiscardUnknownFields(true)
+      .setDiscardedBytesCounter(counter);
+    RecordingVisitor visitor = new RecordingVisitor();
+    ProtobufReader.parse(msg, visitor, ProtobufDecoder.create(data), options);
+    RecordingVisitor.Checker checker = visitor.checker();
+    checker.init(msg);
+    checker.visitInt32(int32Field, 1);
+    checker.enter(msgField);
+    checker.visitInt32(nestedField, 2);
+    checker.leave(msgField);
+    checker.visitInt32(int32Field, 4);
+    checker.destroy();
+    assertTrue(checker.isEmpty());
+    assertEquals(3 + 9 + 4 + 5, counter.bytes(msg));
+    assertEquals(3, counter.bytes(nested));
+    assertEquals(24, counter.total());
+  }
+
+  @Test
+  public void testDiscardUnknownFieldOverlongTag() {
+    DefaultMessageType msg = new DefaultMessageType("whatever");
+    DefaultField int32Field = msg.addField(1, ScalarType.INT32);
+    // Unknown varint field 3 with its tag encoded on 3 bytes instead of 1
+    byte[] data = {
+      8, 1,
+      -104, -128, 0, 5,
+      8, 2
+    };
+    DiscardedBytesCounter counter = new DiscardedBytesCounter();
+    ProtobufReaderOptions options = new ProtobufReaderOptions()
+      .setDiscardUnknownFields(true)
+      .setDiscardedBytesCounter(counter);
+    RecordingVisitor visitor = new RecordingVisitor();
+    ProtobufReader.parse(msg, visitor, ProtobufDecoder.create(data), options);
+    RecordingVisitor.Checker checker = visitor.checker();
+    checker.init(msg);
+    checker.visitInt32(int32Field, 1);
+    checker.visitInt32(int32Field, 2);
+    checker.destroy();
+    assertTrue(checker.isEmpty());
+    assertEquals(4, counter.bytes(msg));
+  }
+
+  @Test
+  public void testParseBulkPacked() {
+    DefaultMessageType msg = new DefaultMessageType("whatever");
+    DefaultField doubleField = msg.addField(builder -> builder.number(1).type(ScalarType.DOUBLE).repeated(true));
+    DefaultField sint64Field = msg.addField(builder -> builder.number(2).type(ScalarType.SINT64).repeated(true));
+    byte[] data = {
+      10, 16, 0, 0, 0, 0, 0, 0, -32, 63, 0, 0, 0, 0, 0, 0, 0, -64,
+      18, 4, 1, 2, -2, 3
+    };
+    List<Object> values = new ArrayList<>();
+    ProtobufReader.parse(msg, new RecordingVisitor() {
+      @Override
+      public void visitPackedDoubles(Field field, double[] array, int offset, int length) {
+        assertEquals(doubleField, field);
+        values.add(Arrays.copyOfRange(array, offset, offset + length));
+      }
+      @Override
+      public void visitPackedInt64s(Field field, long[] array, int offset, int length) {
+        assertEquals(sint64Field, field);
+        values.add(Arrays.copyOfRange(array, offset, offset + length));
+      }
+    }, Buffer.buffer(data));
+    assertEquals(2, values.size());
+    assertArrayEquals(new double[] { 0.5, -2 }, (double[]) values.get(0), 0);
+    assertArrayEquals(new long[] { -1, 1, 255 }, (long[]) values.get(1));
+  }
+
+  @Test
+  public void testParseBulkPackedFanOut() {
+    DefaultMessageType msg = new DefaultMessageType("whatever");
+    DefaultField fixed32Field = msg.addField(builder -> builder.number(1).type(ScalarType.FIXED32).repeated(true));
+    byte[] data = { 10, 8, 1, 0, 0, 0, 2, 0, 0, 0 };
+    RecordingVisitor visitor = new RecordingVisitor();
+    ProtobufReader.parse(msg, visitor, Buffer.buffer(data));
+    RecordingVisitor.Checker checker = visitor.checker();
+    checker.init(msg);
+    checker.enterPacked(fixed32Field);
+    checker.visitFixed32(fixed32Field, 1);
+    checker.visitFixed32(fixed32Field, 2);
+    checker.leavePacked(fixed32Field);
+    checker.destroy();
+    assertTrue(checker.isEmpty());
+  }
+
+  @Test
+  public void testParseInvalidPackedLength() {
+    DefaultMessageType msg = new DefaultMessageType("whatever");
+    msg.addField(builder -> builder.number(1).type(ScalarType.FIXED64).repeated(true));
+    try {
+      ProtobufReader.parse(msg, new RecordingVisitor(), Buffer.buffer(new byte[] { 10, 3, 1, 2, 3 }));
+      fail();
+    } catch (DecodeException expected) {
+    }
+  }
+
+  private static final byte[] NESTED_MESSAGE = {
+    10, 5, 'h', 'e', 'l', 'l', 'o',
+    34, 9, 13, 1, 2, 3, 4, 26, 2, 16, 7,
+    16, -71, 96,
+    25, 1, 2, 3, 4, 5, 6, 7, 8
+  };
+
+  @Test
+  public void testParserChunks() {
+    // Split at every position to cover headers and values straddling chunks
+    for (int i = 0;i <= NESTED_MESSAGE.length;i++) {
+      for (int j = i;j <= NESTED_MESSAGE.length;j++) {
+        NestedTypes types = new NestedTypes();
+        RecordingVisitor visitor = new RecordingVisitor();
+        ProtobufParser parser = ProtobufReader.parser(types.outer, visitor);
+        parser.handle(Buffer.buffer(Arrays.copyOfRange(NESTED_MESSAGE, 0, i)));
+        parser.handle(Buffer.buffer(Arrays.copyOfRange(NESTED_MESSAGE, i, j)));
+        parser.handle(Buffer.buffer(Arrays.copyOfRange(NESTED_MESSAGE, j, NESTED_MESSAGE.length)));
+        parser.end();
+        assertEquals(NESTED_MESSAGE.length, parser.position());
+        RecordingVisitor.Checker checker = visitor.checker();
+        checker.init(types.outer);
+        checker.visitString(types.stringField, "hello");
+        checker.enter(types.innerField);
+        checker.visitFixed32(types.fixed32Field, 0x04030201);
+        checker.enter(types.recursiveField);
+        checker.visitInt32(types.int32InnerField, 7);
+        checker.leave(types.recursiveField);
+        checker.leave(types.innerField);
+        checker.visitInt32(types.int32Field, 12345);
+        checker.visitFixed64(types.fixed64Field, 0x0807060504030201L);
+        checker.destroy();
+        assertTrue(checker.isEmpty());
+      }
+    }
+  }
+
+  @Test
+  public void testParserEmitsCompleteFields() {
+    NestedTypes types = new NestedTypes();
+    RecordingVisitor visitor = new RecordingVisitor();
+    ProtobufParser parser = ProtobufReader.parser(types.outer, visitor);
+    // Up to the first byte of the nested fixed32 value
+    parser.handle(Buffer.buffer(Arrays.copyOfRange(NESTED_MESSAGE, 0, 11)));
+    assertEquals(9, parser.position());
+    assertEquals(1, parser.depth());
+    RecordingVisitor.Checker checker = visitor.checker();
+    checker.init(types.outer);
+    checker.visitString(types.stringField, "hello");
+    checker.enter(types.innerField);
+    assertTrue(checker.isEmpty());
+  }
+
+  @Test
+  public void testParserTruncatedMessage() {
+    NestedTypes types = new NestedTypes();
+    ProtobufParser parser = ProtobufReader.parser(types.outer, new RecordingVisitor());
+    parser.handle(Buffer.buffer(Arrays.copyOfRange(NESTED_MESSAGE, 0, 12)));
+    try {
+      parser.end();
+      fail();
+    } catch (DecodeException expected) {
+    }
+  }
+
+  @Test
+  public void testParserFieldOverflowingNestedMessage() {
+    NestedTypes types = new NestedTypes();
+    ProtobufParser parser = ProtobufReader.parser(types.outer, new RecordingVisitor());
+    // The nested message length is shorter than its fixed32 field
+    byte[] data = { 34, 3, 13, 1, 2, 3, 4 };
+    try {
+      parser.handle(Buffer.buffer(data));
+      fail();
+    } catch (DecodeException expected) {
+    }
+  }
+
+  @Test
+  public void testParserSliceRetainsChunk() {
+    DefaultMessageType msg = new DefaultMessageType("whatever");
+    msg.addField(1, ScalarType.BYTES);
+    List<Buffer> slices = new ArrayList<>();
+    RecordingVisitor visitor = new RecordingVisitor() {
+      @Override
+      public void visitBytes(Field field, Buffer bytes) {
+        slices.add(bytes);
+      }
+    };
+    ProtobufParser parser = ProtobufReader.parser(msg, visitor, new ProtobufReaderOptions().setCopyThreshold(0));
+    Buffer chunk = Buffer.buffer(new byte[] { 10, 3, 1, 2, 3 });
+    parser.handle(chunk);
+    parser.end();
+    // The slice shares the chunk storage
+    chunk.setByte(4, (byte) 4);
+    assertEquals(Buffer.buffer(new byte[] { 1, 2, 4 }), slices.get(0));
+  }
+
+  private static class NestedTypes {
+    final DefaultMessageType outer = new DefaultMessageType("Outer");
+    final DefaultMessageType inner = new DefaultMessageType("Inner");
+    final DefaultField stringField = outer.addField(1, ScalarType.STRING);
+    final DefaultField int32Field = outer.addField(2, ScalarType.INT32);
+    final DefaultField fixed64Field = outer.addField(3, ScalarType.FIXED64);
+    final DefaultField innerField = outer.addField(4, inner);
+    final DefaultField fixed32Field = inner.addField(1, ScalarType.FIXED32);
+    final DefaultField int32InnerField = inner.addField(2, ScalarType.INT32);
+    final DefaultField recursiveField = inner.addField(3, inner);
+  }
+
   private void testInvalidInput(byte[] data) {
     DefaultMessageType msg = new DefaultMessageType("whatever");
     msg.addField(1, ScalarType.STRING);
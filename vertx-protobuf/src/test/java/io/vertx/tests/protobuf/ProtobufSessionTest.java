@@ -0,0 +1,125 @@
+package io.vertx.tests.protobuf;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.ProtoVisitor;
+import io.vertx.protobuf.ProtobufReaderOptions;
+import io.vertx.protobuf.ProtobufSession;
+import io.vertx.protobuf.ProtobufWriter;
+import io.vertx.protobuf.ProtobufWriterOptions;
+import io.vertx.protobuf.schema.DefaultField;
+import io.vertx.protobuf.schema.DefaultMessageType;
+import io.vertx.protobuf.schema.DefaultSchema;
+import io.vertx.protobuf.schema.ScalarType;
+import io.vertx.tests.repetition.FieldLiteral;
+import io.vertx.tests.repetition.MessageLiteral;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ProtobufSessionTest {
+
+  private static void emitPacked(ProtoVisitor visitor) {
+    visitor.init(MessageLiteral.Packed);
+    visitor.visitPackedInt32s(FieldLiteral.Packed_sint32, new int[] { -1, 0, 300 }, 0, 3);
+    visitor.visitPackedDoubles(FieldLiteral.Packed__double, new double[] { 0.5, -1.25 }, 0, 2);
+    visitor.destroy();
+  }
+
+  private static DefaultMessageType deepType() {
+    DefaultSchema schema = new DefaultSchema();
+    DefaultMessageType msg = schema.of("msg");
+    msg.addField(1, msg);
+    msg.addField(builder -> builder.number(2).type(ScalarType.STRING));
+    return msg;
+  }
+
+  private static Consumer<ProtoVisitor> deep(DefaultMessageType msg, int depth) {
+    DefaultField nestedField = msg.field(1);
+    DefaultField stringField = msg.field(2);
+    return visitor -> {
+      visitor.init(msg);
+      for (int i = 0;i < depth;i++) {
+        visitor.enter(nestedField);
+        visitor.visitString(stringField, "abc");
+      }
+      for (int i = 0;i < depth;i++) {
+        visitor.leave(nestedField);
+      }
+      visitor.destroy();
+    };
+  }
+
+  @Test
+  public void testEncodeReuse() {
+    DefaultMessageType msg = deepType();
+    List<Consumer<ProtoVisitor>> consumers = Arrays.asList(deep(msg, 100), ProtobufSessionTest::emitPacked, deep(msg, 3));
+    for (ProtobufSession session : Arrays.asList(new ProtobufSession(), new ProtobufSession(new ProtobufWriterOptions().setSinglePass(true), new ProtobufReaderOptions()))) {
+      for (int i = 0;i < 2;i++) {
+        for (Consumer<ProtoVisitor> consumer : consumers) {
+          Buffer expected = ProtobufWriter.encode(consumer);
+          assertEquals(expected, session.encode(consumer));
+          assertArrayEquals(expected.getBytes(), session.encodeToByteArray(consumer));
+          Buffer target = Buffer.buffer().appendByte((byte) 7);
+          assertSame(target, session.encodeTo(consumer, target));
+          assertSame(target, session.encodeDelimitedTo(consumer, target));
+          assertEquals(Buffer.buffer().appendByte((byte) 7).appendBuffer(expected).appendBuffer(ProtobufWriter.encodeDelimited(consumer)), target);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testParseReuse() {
+    DefaultMessageType msg = deepType();
+    ProtobufSession session = new ProtobufSession();
+    for (int i = 0;i < 2;i++) {
+      for (Consumer<ProtoVisitor> consumer : Arrays.asList(deep(msg, 100), deep(msg, 3))) {
+        RecordingVisitor visitor = new RecordingVisitor();
+        consumer.accept(visitor);
+        RecordingVisitor.Checker checker = visitor.checker();
+        session.parse(msg, checker, ProtobufWriter.encode(consumer));
+        assertTrue(checker.isEmpty());
+        checker = visitor.checker();
+        session.parse(msg, checker, ProtobufWriter.encodeToByteArray(consumer));
+        assertTrue(checker.isEmpty());
+      }
+    }
+  }
+
+  @Test
+  public void testReentrantEncode() {
+    ProtobufSession session = new ProtobufSession();
+    Consumer<ProtoVisitor> outer = visitor -> {
+      visitor.init(MessageLiteral.Packed);
+      visitor.visitBytes(FieldLiteral.Packed_sint32, session.encodeToByteArray(ProtobufSessionTest::emitPacked));
+      visitor.destroy();
+    };
+    Buffer expected = ProtobufWriter.encode(visitor -> {
+      visitor.init(MessageLiteral.Packed);
+      visitor.visitBytes(FieldLiteral.Packed_sint32, ProtobufWriter.encodeToByteArray(ProtobufSessionTest::emitPacked));
+      visitor.destroy();
+    });
+    assertEquals(expected, session.encode(outer));
+    assertEquals(ProtobufWriter.encode(ProtobufSessionTest::emitPacked), session.encode(ProtobufSessionTest::emitPacked));
+  }
+
+  @Test
+  public void testCurrent() throws Exception {
+    ProtobufSession session = ProtobufSession.current();
+    assertSame(session, ProtobufSession.current());
+    AtomicReference<ProtobufSession> other = new AtomicReference<>();
+    Thread thread = new Thread(() -> other.set(ProtobufSession.current()));
+    thread.start();
+    thread.join();
+    assertNotSame(session, other.get());
+  }
+}
@@ -1,14 +1,33 @@
 package io.vertx.tests.protobuf;
 
+import com.google.protobuf.CodedOutputStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.buffer.BufferInternal;
+import io.vertx.protobuf.ProtoVisitor;
+import io.vertx.protobuf.ProtobufEncoder;
 import io.vertx.protobuf.ProtobufWriter;
+import io.vertx.protobuf.ProtobufWriterOptions;
 import io.vertx.protobuf.schema.DefaultField;
 import io.vertx.protobuf.schema.DefaultMessageType;
 import io.vertx.protobuf.schema.DefaultSchema;
 import io.vertx.protobuf.schema.ScalarType;
+import io.vertx.tests.repetition.FieldLiteral;
+import io.vertx.tests.repetition.MessageLiteral;
+import io.vertx.tests.repetition.RepetitionProto;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class ProtobufWriterTest {
@@ -44,4 +63,214 @@ public class ProtobufWriterTest {
     });
     assertEquals(7, output.getByte(1));
   }
+
+  @Test
+  public void testWriteBulkPacked() throws Exception {
+    byte[] bytes = ProtobufWriter.encodeToByteArray(visitor -> {
+      visitor.init(MessageLiteral.Packed);
+      visitor.visitPackedInt32s(FieldLiteral.Packed_sint32, new int[] { 5, -1, 0, 300, 7 }, 1, 3);
+      visitor.visitPackedInt64s(FieldLiteral.Packed_fixed64, new long[] { 0, Long.MAX_VALUE, -1 }, 0, 3);
+      visitor.visitPackedDoubles(FieldLiteral.Packed__double, new double[] { 0.5, -1.25, Double.MIN_VALUE }, 0, 3);
+      visitor.visitPackedFloats(FieldLiteral.Packed__float, new float[] { 1.5f, -2f }, 0, 2);
+      visitor.visitPackedBools(FieldLiteral.Packed_bool, new boolean[] { true, false }, 0, 2);
+      visitor.destroy();
+    });
+    RepetitionProto.Packed packed = RepetitionProto.Packed.parseFrom(bytes);
+    assertEquals(Arrays.asList(-1, 0, 300), packed.getSint32List());
+    assertEquals(Arrays.asList(0L, Long.MAX_VALUE, -1L), packed.getFixed64List());
+    assertEquals(Arrays.asList(0.5, -1.25, Double.MIN_VALUE), packed.getDoubleList());
+    assertEquals(Arrays.asList(1.5f, -2f), packed.getFloatList());
+    assertEquals(Arrays.asList(true, false), packed.getBoolList());
+    assertEquals(packed.getSerializedSize(), bytes.length);
+  }
+
+  @Test
+  public void testSinglePass() {
+    DefaultSchema schema = new DefaultSchema();
+    DefaultMessageType msg = schema.of("msg");
+    DefaultField nestedField = msg.addField(1, msg);
+    DefaultField stringField = msg.addField(builder -> builder.number(2).type(ScalarType.STRING));
+    DefaultField sint32Field = msg.addField(builder -> builder.number(3).type(ScalarType.SINT32).repeated(true).packed(true));
+    DefaultField doubleField = msg.addField(builder -> builder.number(4).type(ScalarType.DOUBLE).repeated(true).packed(true));
+    // Nested lengths encoded with 1, 2 and 3 bytes
+    for (int length : new int[] { 10, 200, 20_000 }) {
+      String s = "a".repeat(length);
+      Consumer<ProtoVisitor> consumer = visitor -> {
+        visitor.init(msg);
+        for (int i = 0;i < 4;i++) {
+          visitor.enter(nestedField);
+          visitor.visitString(stringField, s);
+          visitor.visitString(stringField, "héllo");
+          visitor.visitPackedInt32s(sint32Field, new int[] { 1, -1, 300 }, 0, 3);
+          visitor.visitPackedDoubles(doubleField, new double[] { 0.5, -1.25 }, 0, 2);
+        }
+        for (int i = 0;i < 4;i++) {
+          visitor.leave(nestedField);
+        }
+        visitor.destroy();
+      };
+      ProtobufWriterOptions options = new ProtobufWriterOptions().setSinglePass(true);
+      assertEquals(ProtobufWriter.encode(consumer), ProtobufWriter.encode(consumer, options));
+      assertArrayEquals(ProtobufWriter.encodeToByteArray(consumer), ProtobufWriter.encodeToByteArray(consumer, options));
+      assertEquals(ProtobufWriter.encodeDelimited(consumer), ProtobufWriter.encodeDelimited(consumer, options));
+    }
+  }
+
+  @Test
+  public void testSinglePassRunsVisitorOnce() throws Exception {
+    int[] runs = new int[1];
+    byte[] bytes = ProtobufWriter.encodeToByteArray(visitor -> {
+      runs[0]++;
+      visitor.init(MessageLiteral.Packed);
+      visitor.visitPackedInt32s(FieldLiteral.Packed_sint32, new int[] { -1, 0, 300 }, 0, 3);
+      visitor.destroy();
+    }, new ProtobufWriterOptions().setSinglePass(true));
+    assertEquals(1, runs[0]);
+    assertEquals(Arrays.asList(-1, 0, 300), RepetitionProto.Packed.parseFrom(bytes).getSint32List());
+  }
+
+  @Test
+  public void testDeepNesting() {
+    DefaultSchema schema = new DefaultSchema();
+    DefaultMessageType msg = schema.of("msg");
+    DefaultField nestedField = msg.addField(1, msg);
+    DefaultField stringField = msg.addField(builder -> builder.number(2).type(ScalarType.STRING));
+    Consumer<ProtoVisitor> consumer = visitor -> {
+      visitor.init(msg);
+      for (int i = 0;i < 100;i++) {
+        visitor.enter(nestedField);
+        visitor.visitString(stringField, "abc");
+      }
+      for (int i = 0;i < 100;i++) {
+        visitor.leave(nestedField);
+      }
+      visitor.destroy();
+    };
+    Buffer output = ProtobufWriter.encode(consumer);
+    assertEquals(output, ProtobufWriter.encode(consumer, new ProtobufWriterOptions().setSinglePass(true)));
+    // The length of the outermost message needs 2 bytes
+    assertEquals(10, output.getByte(0));
+    assertEquals(output.length() - 3, (output.getByte(1) & 0x7F) | (output.getByte(2) << 7));
+  }
+
+  private static void emitPacked(ProtoVisitor visitor) {
+    visitor.init(MessageLiteral.Packed);
+    visitor.visitPackedInt32s(FieldLiteral.Packed_sint32, new int[] { -1, 0, 300 }, 0, 3);
+    visitor.visitPackedDoubles(FieldLiteral.Packed__double, new double[] { 0.5, -1.25 }, 0, 2);
+    visitor.destroy();
+  }
+
+  @Test
+  public void testEncodeTo() throws Exception {
+    byte[] expected = ProtobufWriter.encodeToByteArray(ProtobufWriterTest::emitPacked);
+    Buffer buffer = Buffer.buffer().appendByte((byte) 1);
+    assertSame(buffer, ProtobufWriter.encodeTo(ProtobufWriterTest::emitPacked, buffer));
+    assertEquals(Buffer.buffer().appendByte((byte) 1).appendBytes(expected), buffer);
+    ByteBuf byteBuf = Unpooled.buffer();
+    assertSame(byteBuf, ProtobufWriter.encodeTo(ProtobufWriterTest::emitPacked, byteBuf));
+    ProtobufWriter.encodeDelimitedTo(ProtobufWriterTest::emitPacked, BufferInternal.buffer(byteBuf));
+    Buffer delimited = ProtobufWriter.encodeDelimited(ProtobufWriterTest::emitPacked);
+    assertEquals(Buffer.buffer(expected).appendBuffer(delimited), BufferInternal.buffer(byteBuf));
+  }
+
+  @Test
+  public void testEncodePooled() {
+    Buffer buffer = ProtobufWriter.encode(ProtobufWriterTest::emitPacked, PooledByteBufAllocator.DEFAULT);
+    ByteBuf byteBuf = ((BufferInternal) buffer).unwrap();
+    try {
+      assertTrue(byteBuf.isDirect());
+      assertEquals(byteBuf.readableBytes(), byteBuf.capacity());
+      assertEquals(ProtobufWriter.encode(ProtobufWriterTest::emitPacked), buffer);
+    } finally {
+      byteBuf.release();
+    }
+  }
+
+  @Test
+  public void testWriteUtf8() {
+    DefaultSchema schema = new DefaultSchema();
+    DefaultMessageType msg = schema.of("msg");
+    DefaultField stringField = msg.addField(builder -> builder.number(1).type(ScalarType.STRING));
+    DefaultMessageType raw = schema.of("raw");
+    DefaultField bytesField = raw.addField(builder -> builder.number(1).type(ScalarType.BYTES));
+    List<ProtobufWriterOptions> options = Arrays.asList(
+      new ProtobufWriterOptions(),
+      new ProtobufWriterOptions().setUtf8CacheThreshold(0),
+      new ProtobufWriterOptions().setUtf8CacheThreshold(Integer.MAX_VALUE),
+      new ProtobufWriterOptions().setSinglePass(true));
+    // Unpaired surrogates are encoded as '?' like String#getBytes does
+    for (String s : Arrays.asList("", "ascii", "héllo", "\u00ff\u0100\u07ff\u0800\uffff", "a\ud83d\ude00b", "\ud800", "x\udc00y", "end\ud83d", "é".repeat(2000))) {
+      byte[] expected = s.getBytes(StandardCharsets.UTF_8);
+      assertEquals(expected.length, ProtobufWriter.utf8Length(s));
+      Buffer buffer = Buffer.buffer();
+      new ProtobufEncoder(buffer).writeString(s).writeLengthDelimitedString(s);
+      Buffer delimited = Buffer.buffer();
+      new ProtobufEncoder(delimited).writeVarInt32(expected.length).writeBytes(expected);
+      assertEquals(Buffer.buffer(expected).appendBuffer(delimited), buffer);
+      Consumer<ProtoVisitor> consumer = visitor -> {
+        visitor.init(msg);
+        visitor.visitString(stringField, s);
+        visitor.visitString(stringField, "héllo");
+        visitor.visitString(stringField, s);
+        visitor.destroy();
+      };
+      Buffer output = ProtobufWriter.encode(visitor -> {
+        visitor.init(raw);
+        visitor.visitBytes(bytesField, expected);
+        visitor.visitBytes(bytesField, "héllo".getBytes(StandardCharsets.UTF_8));
+        visitor.visitBytes(bytesField, expected);
+        visitor.destroy();
+      });
+      assertEquals(output, ProtobufWriter.encode(consumer));
+      for (ProtobufWriterOptions option : options) {
+        assertEquals(output, ProtobufWriter.encode(consumer, option));
+      }
+    }
+  }
+
+  @Test
+  public void testWriteVarInts() throws Exception {
+    long[] values = { 0L, 1L, 127L, 128L, 300L, -1L, 1L << 35, 1L << 56, (1L << 63) - 1, Long.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE };
+    for (long value : values) {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      CodedOutputStream cos = CodedOutputStream.newInstance(baos);
+      cos.writeUInt64NoTag(value);
+      cos.writeUInt32NoTag((int) value);
+      cos.flush();
+      byte[] expected = baos.toByteArray();
+      // Heap, direct and exactly sized buffers, the latter leaves less than 8 writable bytes
+      for (ByteBuf byteBuf : Arrays.asList(Unpooled.buffer(), Unpooled.directBuffer(), Unpooled.buffer(expected.length, expected.length))) {
+        Buffer buffer = BufferInternal.buffer(byteBuf);
+        new ProtobufEncoder(buffer).writeVarInt64(value).writeVarInt32((int) value);
+        assertEquals(Buffer.buffer(expected), buffer);
+      }
+    }
+  }
+
+  @Test
+  public void testWriteTag() {
+    DefaultSchema schema = new DefaultSchema();
+    DefaultMessageType msg = schema.of("msg");
+    DefaultField stringField = msg.addField(builder -> builder.number(262144).type(ScalarType.STRING));
+    DefaultField uint64Field = msg.addField(builder -> builder.number(536870911).type(ScalarType.UINT64).repeated(true));
+    assertEquals(262144 << 3 | 2, stringField.tag());
+    assertEquals(536870911 << 3, uint64Field.tag());
+    Buffer expected = Buffer.buffer();
+    new ProtobufEncoder(expected).writeTag(536870911, 2).writeTag(536870911, 0);
+    Buffer buffer = Buffer.buffer();
+    new ProtobufEncoder(buffer).writeTag(uint64Field, 2).writeTag(uint64Field, 0);
+    assertEquals(expected, buffer);
+    Consumer<ProtoVisitor> consumer = visitor -> {
+      visitor.init(msg);
+      visitor.visitString(stringField, "a".repeat(200));
+      visitor.enterPacked(uint64Field);
+      for (int i = 0;i < 64;i++) {
+        visitor.visitUInt64(uint64Field, -1L >>> i);
+      }
+      visitor.leavePacked(uint64Field);
+      visitor.visitUInt64(uint64Field, 1L << 49);
+      visitor.destroy();
+    };
+    assertEquals(ProtobufWriter.encode(consumer), ProtobufWriter.encode(consumer, new ProtobufWriterOptions().setSinglePass(true)));
+  }
 }
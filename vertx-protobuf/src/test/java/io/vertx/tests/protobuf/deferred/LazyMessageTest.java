@@ -0,0 +1,135 @@
+package io.vertx.tests.protobuf.deferred;
+
+import com.google.protobuf.UnknownFieldSet;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.DiscardedBytesCounter;
+import io.vertx.protobuf.ProtobufDecoder;
+import io.vertx.protobuf.ProtobufParser;
+import io.vertx.protobuf.ProtobufReader;
+import io.vertx.protobuf.ProtobufReaderOptions;
+import io.vertx.protobuf.ProtobufWriter;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LazyMessageTest {
+
+  private static final byte[] BYTES = DeferredProto.Envelope.newBuilder()
+    .setId("the-id")
+    .setPayload(DeferredProto.Payload.newBuilder().setText("hello").addAllValues(Arrays.asList(1, 2, 3)))
+    .build()
+    .toByteArray();
+
+  private static Envelope parse(Buffer buffer, ProtobufReaderOptions options) {
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Envelope, reader, ProtobufDecoder.create(buffer), options);
+    return (Envelope) reader.stack.pop();
+  }
+
+  @Test
+  public void testDecodeOnAccess() {
+    Envelope msg = parse(Buffer.buffer(BYTES), new ProtobufReaderOptions());
+    assertEquals("the-id", msg.getId());
+    assertTrue(msg.hasPayload());
+    assertNull(msg.payload);
+    assertNotNull(msg._payloadBytes);
+    Payload payload = msg.getPayload();
+    assertEquals("hello", payload.getText());
+    assertEquals(Arrays.asList(1, 2, 3), payload.getValues());
+    assertNull(msg._payloadBytes);
+    assertSame(payload, msg.getPayload());
+  }
+
+  @Test
+  public void testReencodeUntouched() {
+    Envelope msg = parse(Buffer.buffer(BYTES), new ProtobufReaderOptions());
+    assertEquals(Buffer.buffer(BYTES), ProtobufWriter.encode(v -> ProtoWriter.emit(msg, v)));
+    assertNotNull(msg._payloadBytes);
+  }
+
+  @Test
+  public void testReencodeDecoded() throws Exception {
+    Envelope msg = parse(Buffer.buffer(BYTES), new ProtobufReaderOptions());
+    msg.getPayload().setText("world");
+    DeferredProto.Envelope expected = DeferredProto.Envelope.parseFrom(BYTES).toBuilder()
+      .setPayload(DeferredProto.Payload.newBuilder().setText("world").addAllValues(Arrays.asList(1, 2, 3)))
+      .build();
+    assertEquals(expected, DeferredProto.Envelope.parseFrom(ProtobufWriter.encodeToByteArray(v -> ProtoWriter.emit(msg, v))));
+  }
+
+  @Test
+  public void testSlice() {
+    Buffer buffer = Buffer.buffer(BYTES);
+    Envelope msg = parse(buffer, new ProtobufReaderOptions().setCopyThreshold(0));
+    assertNotNull(msg._payloadBytes);
+    // Shares the input storage
+    buffer.setByte(buffer.length() - 1, (byte) 4);
+    assertEquals(Arrays.asList(1, 2, 4), msg.getPayload().getValues());
+  }
+
+  @Test
+  public void testMerge() {
+    byte[] bytes = Buffer.buffer()
+      .appendBytes(BYTES)
+      .appendBytes(DeferredProto.Envelope.newBuilder()
+        .setPayload(DeferredProto.Payload.newBuilder().addValues(4))
+        .build()
+        .toByteArray())
+      .getBytes();
+    Envelope msg = parse(Buffer.buffer(bytes), new ProtobufReaderOptions());
+    Payload payload = msg.getPayload();
+    assertEquals("hello", payload.getText());
+    assertEquals(Arrays.asList(1, 2, 3, 4), payload.getValues());
+  }
+
+  @Test
+  public void testSetPayload() throws Exception {
+    Envelope msg = parse(Buffer.buffer(BYTES), new ProtobufReaderOptions());
+    msg.setPayload(new Payload().setText("other"));
+    assertNull(msg._payloadBytes);
+    assertEquals("other", DeferredProto.Envelope.parseFrom(ProtobufWriter.encodeToByteArray(v -> ProtoWriter.emit(msg, v))).getPayload().getText());
+    msg.setPayload(null);
+    assertFalse(msg.hasPayload());
+  }
+
+  @Test
+  public void testReaderOptions() {
+    DeferredProto.Payload payload = DeferredProto.Payload.newBuilder()
+      .setText("hello")
+      .setUnknownFields(UnknownFieldSet.newBuilder()
+        .addField(15, UnknownFieldSet.Field.newBuilder().addVarint(1).build())
+        .build())
+      .build();
+    byte[] bytes = DeferredProto.Envelope.newBuilder().setPayload(payload).build().toByteArray();
+    DiscardedBytesCounter counter = new DiscardedBytesCounter();
+    ProtobufReaderOptions options = new ProtobufReaderOptions().setDiscardUnknownFields(true).setDiscardedBytesCounter(counter);
+    Envelope msg = parse(Buffer.buffer(bytes), options);
+    assertEquals(0, counter.bytes(MessageLiteral.Payload));
+    assertEquals("hello", msg.getPayload().getText());
+    assertEquals(2, counter.bytes(MessageLiteral.Payload));
+    // The second occurrence is merged with the reader options as well
+    msg = parse(Buffer.buffer().appendBytes(bytes).appendBytes(bytes), options);
+    assertEquals(4, counter.bytes(MessageLiteral.Payload));
+    assertEquals("hello", msg.getPayload().getText());
+    assertEquals(6, counter.bytes(MessageLiteral.Payload));
+  }
+
+  @Test
+  public void testParser() {
+    ProtoReader reader = new ProtoReader();
+    ProtobufParser parser = ProtobufReader.parser(MessageLiteral.Envelope, reader);
+    for (byte b : BYTES) {
+      parser.handle(Buffer.buffer(new byte[] { b }));
+    }
+    parser.end();
+    Envelope msg = (Envelope) reader.stack.pop();
+    assertEquals("the-id", msg.getId());
+    assertNull(msg.payload);
+    assertNotNull(msg._payloadBytes);
+    Payload payload = msg.getPayload();
+    assertEquals("hello", payload.getText());
+    assertEquals(Arrays.asList(1, 2, 3), payload.getValues());
+  }
+}
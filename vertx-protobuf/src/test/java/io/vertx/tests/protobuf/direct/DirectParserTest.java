@@ -0,0 +1,133 @@
+package io.vertx.tests.protobuf.direct;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.ProtobufDecoder;
+import io.vertx.protobuf.ProtobufReader;
+import io.vertx.protobuf.ProtobufWriter;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class DirectParserTest {
+
+  private static final DirectProto.Scalars SCALARS = DirectProto.Scalars.newBuilder()
+    .setI32(-1)
+    .setI64(Long.MAX_VALUE)
+    .setU32(-2)
+    .setU64(3L)
+    .setS32(-4)
+    .setS64(Long.MIN_VALUE)
+    .setFlag(true)
+    .setColor(DirectProto.Color.BLUE)
+    .setF64(5L)
+    .setSf64(-6L)
+    .setD(7.5D)
+    .setF32(8)
+    .setSf32(-9)
+    .setF(10.5F)
+    .setText("héllo")
+    .setData(ByteString.copyFrom(new byte[] { 1, 2, 3 }))
+    .build();
+
+  private static final DirectProto.Container CONTAINER = DirectProto.Container.newBuilder()
+    .setScalars(SCALARS)
+    .addAllPacked(Arrays.asList(1, -1, 300))
+    .addAllUnpacked(Arrays.asList(-1L, 2L))
+    .addAllStrings(Arrays.asList("a", "b"))
+    .addMessages(SCALARS)
+    .addMessages(DirectProto.Scalars.newBuilder().setI32(4))
+    .putCounts("one", 1)
+    .putCounts("two", 2)
+    .putEntries(3, SCALARS)
+    .setNested(DirectProto.Scalars.newBuilder().setText("nested"))
+    .setOpt(0)
+    .addAllColors(Arrays.asList(DirectProto.Color.GREEN, DirectProto.Color.RED))
+    .addAllDoubles(Arrays.asList(0.5D, -0.5D))
+    .build();
+
+  private static DirectProto.Container encode(Container msg) throws Exception {
+    return DirectProto.Container.parseFrom(ProtobufWriter.encodeToByteArray(v -> ProtoWriter.emit(msg, v)));
+  }
+
+  @Test
+  public void testParseFrom() throws Exception {
+    Container msg = Container.parseFrom(ProtobufDecoder.create(CONTAINER.toByteArray()));
+    Scalars scalars = msg.getScalars();
+    assertEquals(-1, scalars.getI32());
+    assertEquals(Long.MIN_VALUE, scalars.getS64());
+    assertTrue(scalars.getFlag());
+    assertEquals(Color.BLUE, scalars.getColor());
+    assertEquals(10.5F, scalars.getF(), 0F);
+    assertEquals("héllo", scalars.getText());
+    assertEquals(Buffer.buffer(new byte[] { 1, 2, 3 }), scalars.getData());
+    assertEquals(Arrays.asList(1, -1, 300), msg.getPacked());
+    assertEquals(Arrays.asList(-1L, 2L), msg.getUnpacked());
+    assertEquals(2, msg.getMessages().size());
+    assertEquals(2, (int) msg.getCounts().get("two"));
+    assertEquals("héllo", msg.getEntries().get(3).getText());
+    assertEquals("nested", msg.getChoice().asNested().get().getText());
+    assertTrue(msg.hasOpt());
+    assertEquals(Arrays.asList(Color.GREEN, Color.RED), msg.getColors());
+    assertEquals(CONTAINER, encode(msg));
+  }
+
+  @Test
+  public void testSameAsVisitor() throws Exception {
+    byte[] bytes = CONTAINER.toByteArray();
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Container, reader, bytes);
+    Container expected = (Container) reader.stack.pop();
+    assertEquals(encode(expected), encode(Container.parseFrom(ProtobufDecoder.create(bytes))));
+  }
+
+  @Test
+  public void testMerge() throws Exception {
+    DirectProto.Container other = DirectProto.Container.newBuilder()
+      .setScalars(DirectProto.Scalars.newBuilder().setI64(4L))
+      .addPacked(5)
+      .setLabel("label")
+      .build();
+    byte[] bytes = Buffer.buffer(CONTAINER.toByteArray()).appendBytes(other.toByteArray()).getBytes();
+    Container msg = Container.parseFrom(ProtobufDecoder.create(bytes));
+    assertEquals(CONTAINER.toBuilder().mergeFrom(other).build(), encode(msg));
+  }
+
+  @Test
+  public void testUnknownFields() throws Exception {
+    DirectProto.Scalars withUnknown = SCALARS.toBuilder()
+      .setUnknownFields(UnknownFieldSet.newBuilder()
+        .addField(100, UnknownFieldSet.Field.newBuilder().addVarint(42).build())
+        .addField(101, UnknownFieldSet.Field.newBuilder().addLengthDelimited(ByteString.copyFromUtf8("Hello")).build())
+        .build())
+      .build();
+    Scalars msg = Scalars.parseFrom(ProtobufDecoder.create(withUnknown.toByteArray()));
+    DirectProto.Scalars encoded = DirectProto.Scalars.parseFrom(ProtobufWriter.encodeToByteArray(v -> ProtoWriter.emit(msg, v)));
+    assertEquals(withUnknown, encoded);
+  }
+
+  @Test
+  public void testUnknownFieldOverlongTag() throws Exception {
+    // Varint field 100 with its tag encoded on 3 bytes instead of 2
+    byte[] bytes = Buffer.buffer(SCALARS.toByteArray()).appendBytes(new byte[] { (byte) 0xA0, (byte) 0x86, 0x00, 42 }).getBytes();
+    Scalars msg = Scalars.parseFrom(ProtobufDecoder.create(bytes));
+    DirectProto.Scalars encoded = DirectProto.Scalars.parseFrom(ProtobufWriter.encodeToByteArray(v -> ProtoWriter.emit(msg, v)));
+    DirectProto.Scalars expected = SCALARS.toBuilder()
+      .setUnknownFields(UnknownFieldSet.newBuilder()
+        .addField(100, UnknownFieldSet.Field.newBuilder().addVarint(42).build())
+        .build())
+      .build();
+    assertEquals(expected, encoded);
+  }
+
+  @Test
+  public void testMergeInto() throws Exception {
+    Container msg = new Container().setOpt(3);
+    ProtoReader.merge(ProtobufDecoder.create(DirectProto.Container.newBuilder().addPacked(1).build().toByteArray()), msg);
+    assertEquals(3, msg.getOpt());
+    assertEquals(Arrays.asList(1), msg.getPacked());
+  }
+}
@@ -0,0 +1,108 @@
+package io.vertx.tests.protobuf.direct;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.ProtobufDecoder;
+import io.vertx.protobuf.ProtobufEncoder;
+import io.vertx.protobuf.ProtobufWriter;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class DirectWriterTest {
+
+  private static final DirectProto.Scalars SCALARS = DirectProto.Scalars.newBuilder()
+    .setI32(1)
+    .setI64(Long.MAX_VALUE)
+    .setU32(2)
+    .setU64(3L)
+    .setS32(-4)
+    .setS64(Long.MIN_VALUE)
+    .setFlag(true)
+    .setColor(DirectProto.Color.BLUE)
+    .setF64(5L)
+    .setSf64(-6L)
+    .setD(7.5D)
+    .setF32(8)
+    .setSf32(-9)
+    .setF(10.5F)
+    .setText("héllo")
+    .setData(ByteString.copyFrom(new byte[] { 1, 2, 3 }))
+    .build();
+
+  private static final DirectProto.Container CONTAINER = DirectProto.Container.newBuilder()
+    .setScalars(SCALARS)
+    .addAllPacked(Arrays.asList(1, 2, 300))
+    .addAllUnpacked(Arrays.asList(-1L, 2L))
+    .addAllStrings(Arrays.asList("a", "b"))
+    .addMessages(SCALARS)
+    .addMessages(DirectProto.Scalars.newBuilder().setI32(4))
+    .putCounts("one", 1)
+    .putCounts("two", 2)
+    .putEntries(3, SCALARS)
+    .setNested(DirectProto.Scalars.newBuilder().setText("nested"))
+    .setOpt(0)
+    .addAllColors(Arrays.asList(DirectProto.Color.GREEN, DirectProto.Color.RED))
+    .addAllDoubles(Arrays.asList(0.5D, -0.5D))
+    .build();
+
+  private static Buffer encodeWithVisitor(Container msg) {
+    return ProtobufWriter.encode(v -> ProtoWriter.emit(msg, v));
+  }
+
+  @Test
+  public void testEncode() throws Exception {
+    Container msg = Container.parseFrom(ProtobufDecoder.create(CONTAINER.toByteArray()));
+    Buffer encoded = msg.encode();
+    assertEquals(CONTAINER, DirectProto.Container.parseFrom(encoded.getBytes()));
+    assertEquals(encodeWithVisitor(msg), encoded);
+    assertEquals(encoded.length(), msg.serializedSize());
+  }
+
+  @Test
+  public void testWriteTo() throws Exception {
+    Container msg = Container.parseFrom(ProtobufDecoder.create(CONTAINER.toByteArray()));
+    Buffer buffer = Buffer.buffer().appendByte((byte) 0xFF);
+    msg.writeTo(new ProtobufEncoder(buffer));
+    assertEquals(msg.encode(), buffer.slice(1, buffer.length()));
+  }
+
+  @Test
+  public void testSetterInvalidatesSize() {
+    Scalars scalars = new Scalars().setI32(1);
+    assertEquals(2, scalars.serializedSize());
+    assertEquals(2, ProtoWriter.serializedSize(scalars));
+    scalars.setI32(300);
+    assertEquals(3, ProtoWriter.serializedSize(scalars));
+    scalars.clear();
+    assertEquals(0, ProtoWriter.serializedSize(scalars));
+  }
+
+  @Test
+  public void testNestedMutation() throws Exception {
+    Scalars nested = new Scalars().setText("a");
+    Container msg = new Container().setScalars(nested);
+    msg.encode();
+    nested.setText("a longer text");
+    msg.getStrings().add("b");
+    DirectProto.Container expected = DirectProto.Container.newBuilder()
+      .setScalars(DirectProto.Scalars.newBuilder().setText("a longer text"))
+      .addStrings("b")
+      .build();
+    assertEquals(expected, DirectProto.Container.parseFrom(msg.encode().getBytes()));
+  }
+
+  @Test
+  public void testUnknownFields() throws Exception {
+    DirectProto.Scalars withUnknown = SCALARS.toBuilder()
+      .setUnknownFields(UnknownFieldSet.newBuilder()
+        .addField(100, UnknownFieldSet.Field.newBuilder().addVarint(42).build())
+        .build())
+      .build();
+    Scalars msg = Scalars.parseFrom(ProtobufDecoder.create(withUnknown.toByteArray()));
+    assertEquals(withUnknown, DirectProto.Scalars.parseFrom(msg.encode().getBytes()));
+  }
+}
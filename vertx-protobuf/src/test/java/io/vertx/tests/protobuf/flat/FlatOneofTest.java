@@ -0,0 +1,85 @@
+package io.vertx.tests.protobuf.flat;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.ProtobufReader;
+import io.vertx.protobuf.ProtobufWriter;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FlatOneofTest {
+
+  private static Container parse(byte[] bytes) {
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Container, reader, Buffer.buffer(bytes));
+    return (Container) reader.stack.pop();
+  }
+
+  private static FlatProto.Container write(Container msg) throws Exception {
+    return FlatProto.Container.parseFrom(ProtobufWriter.encodeToByteArray(v -> ProtoWriter.emit(msg, v)));
+  }
+
+  @Test
+  public void testReadWrite() throws Exception {
+    byte[] bytes = FlatProto.Container.newBuilder()
+      .setBanana(FlatProto.Banana.newBuilder().setWeight(15))
+      .setDouble(2.5D)
+      .build()
+      .toByteArray();
+    Container msg = parse(bytes);
+    assertEquals(Container.FruitDiscriminant.BANANA, msg.getFruitCase());
+    assertTrue(msg.hasBanana());
+    assertFalse(msg.hasApple());
+    assertNull(msg.getApple());
+    assertEquals(15, msg.getBanana().getWeight());
+    assertEquals(Container.ScalarDiscriminant.DOUBLE, msg.getScalarCase());
+    assertEquals(2.5D, msg.getDouble(), 0D);
+    assertEquals(0, msg.getInteger());
+    assertEquals(Buffer.buffer(bytes), ProtobufWriter.encode(v -> ProtoWriter.emit(msg, v)));
+  }
+
+  @Test
+  public void testScalars() throws Exception {
+    Container msg = new Container();
+    assertNull(msg.getScalarCase());
+    assertFalse(write(msg).hasInteger());
+    msg.setInteger(-4);
+    assertEquals(-4, msg.getInteger());
+    assertEquals(-4, write(msg).getInteger());
+    msg.setBool(true);
+    assertTrue(msg.getBool());
+    assertEquals(0, msg.getInteger());
+    assertTrue(write(msg).getBool());
+    msg.setFloat(-1.5F);
+    assertEquals(-1.5F, msg.getFloat(), 0F);
+    assertEquals(-1.5F, write(msg).getFloat(), 0F);
+    msg.setLong(Long.MIN_VALUE);
+    assertEquals(Long.MIN_VALUE, msg.getLong());
+    assertEquals(Long.MIN_VALUE, write(msg).getLong());
+    msg.setString("s");
+    assertEquals("s", msg.getString());
+    assertEquals(0L, msg.getLong());
+    assertEquals("s", write(msg).getString());
+    msg.setColor(Color.GREEN);
+    assertEquals("", msg.getString());
+    assertEquals(FlatProto.Color.GREEN, write(msg).getColor());
+    // The default value is encoded when the field is set
+    msg.setInteger(0);
+    assertTrue(write(msg).hasInteger());
+    msg.clearScalar();
+    assertNull(msg.getScalarCase());
+    assertEquals(FlatProto.Container.ScalarCase.SCALAR_NOT_SET, write(msg).getScalarCase());
+  }
+
+  @Test
+  public void testLastFieldWins() {
+    byte[] bytes = Buffer.buffer()
+      .appendBytes(FlatProto.Container.newBuilder().setString("s").build().toByteArray())
+      .appendBytes(FlatProto.Container.newBuilder().setInteger(4).build().toByteArray())
+      .getBytes();
+    Container msg = parse(bytes);
+    assertEquals(Container.ScalarDiscriminant.INTEGER, msg.getScalarCase());
+    assertEquals(4, msg.getInteger());
+    assertEquals("", msg.getString());
+  }
+}
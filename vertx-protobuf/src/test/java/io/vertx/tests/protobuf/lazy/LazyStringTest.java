@@ -0,0 +1,88 @@
+package io.vertx.tests.protobuf.lazy;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.protobuf.ProtobufDecoder;
+import io.vertx.protobuf.ProtobufReader;
+import io.vertx.protobuf.ProtobufReaderOptions;
+import io.vertx.protobuf.ProtobufWriter;
+import io.vertx.protobuf.Utf8String;
+import io.vertx.tests.protobuf.RecordingVisitor;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LazyStringTest {
+
+  private static final ProtobufReaderOptions LAZY_STRINGS = new ProtobufReaderOptions().setLazyStrings(true);
+
+  private static Message parse(Buffer buffer) {
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Message, reader, ProtobufDecoder.create(buffer), LAZY_STRINGS);
+    return (Message) reader.stack.pop();
+  }
+
+  @Test
+  public void testReadWrite() throws Exception {
+    byte[] bytes = LazyProto.Message.newBuilder()
+      .setValue("Hello")
+      .setOptionalValue("")
+      .addAllValues(Arrays.asList("a", "b"))
+      .setNumber(4)
+      .build()
+      .toByteArray();
+    Message msg = parse(Buffer.buffer(bytes));
+    assertEquals("Hello", msg.getValue());
+    assertEquals("", msg.getOptionalValue());
+    assertEquals(Arrays.asList("a", "b"), msg.getValues());
+    assertEquals(4, (int) msg.getNumber());
+    assertEquals(Buffer.buffer(bytes), ProtobufWriter.encode(v -> ProtoWriter.emit(msg, v)));
+  }
+
+  @Test
+  public void testPassThrough() throws Exception {
+    // Malformed UTF-8 bytes are not decoded and written back unchanged
+    byte[] value = { 'a', (byte) 0xC3, 'b' };
+    byte[] bytes = LazyProto.Message.newBuilder()
+      .setValueBytes(com.google.protobuf.ByteString.copyFrom(value))
+      .build()
+      .toByteArray();
+    Message msg = parse(Buffer.buffer(bytes));
+    assertEquals(Buffer.buffer(bytes), ProtobufWriter.encode(v -> ProtoWriter.emit(msg, v)));
+    try {
+      msg.getValue();
+      fail();
+    } catch (DecodeException expected) {
+    }
+  }
+
+  @Test
+  public void testSetString() throws Exception {
+    Message msg = new Message().setValue("Hello").setOptionalValue("\u00e9t\u00e9");
+    byte[] bytes = ProtobufWriter.encode(v -> ProtoWriter.emit(msg, v)).getBytes();
+    LazyProto.Message expected = LazyProto.Message.newBuilder().setValue("Hello").setOptionalValue("\u00e9t\u00e9").build();
+    assertEquals(expected, LazyProto.Message.parseFrom(bytes));
+  }
+
+  @Test
+  public void testVisitLazyString() {
+    byte[] bytes = LazyProto.Message.newBuilder().setValue("Hello").build().toByteArray();
+    RecordingVisitor visitor = new RecordingVisitor() {
+      @Override
+      public void visitString(io.vertx.protobuf.schema.Field field, Utf8String s) {
+        assertFalse(s.isEmpty());
+        assertEquals(5, s.utf8Length());
+        assertEquals(Buffer.buffer("Hello"), s.utf8());
+        super.visitString(field, s);
+      }
+    };
+    ProtobufReader.parse(MessageLiteral.Message, visitor, ProtobufDecoder.create(bytes), LAZY_STRINGS);
+    RecordingVisitor.Checker checker = visitor.checker();
+    checker.init(MessageLiteral.Message);
+    checker.visitString(FieldLiteral.Message_value, "Hello");
+    checker.destroy();
+    assertTrue(checker.isEmpty());
+  }
+}
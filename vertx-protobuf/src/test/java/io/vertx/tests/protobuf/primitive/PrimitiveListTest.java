@@ -0,0 +1,112 @@
+package io.vertx.tests.protobuf.primitive;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.protobuf.ProtobufReader;
+import io.vertx.protobuf.ProtobufWriter;
+import io.vertx.protobuf.lang.DoubleList;
+import io.vertx.protobuf.lang.IntList;
+import io.vertx.protobuf.lang.LongList;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveListTest {
+
+  @Test
+  public void testReadWritePacked() throws Exception {
+    byte[] bytes = PrimitiveProto.Packed.newBuilder()
+      .addAllInt32(Arrays.asList(0, 1, -1, Integer.MAX_VALUE))
+      .addAllInt64(Arrays.asList(0L, Long.MIN_VALUE))
+      .addAllSint32(Arrays.asList(-2, 2))
+      .addAllFixed64(Arrays.asList(3L, 4L, 5L))
+      .addAllFloat(Arrays.asList(0.5F, 1.5F))
+      .addAllDouble(Arrays.asList(0.25D, 1.25D))
+      .addAllBool(Arrays.asList(true, false, true))
+      .addAllString(Arrays.asList("a", "b"))
+      .build()
+      .toByteArray();
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Packed, reader, Buffer.buffer(bytes));
+    Packed msg = (Packed) reader.stack.pop();
+    IntList int32 = msg.getInt32();
+    assertEquals(4, int32.size());
+    assertEquals(Integer.MAX_VALUE, int32.getInt(3));
+    assertArrayEquals(new int[] { 0, 1, -1, Integer.MAX_VALUE }, int32.toIntArray());
+    assertArrayEquals(new long[] { 0L, Long.MIN_VALUE }, msg.getInt64().toLongArray());
+    assertArrayEquals(new int[] { -2, 2 }, msg.getSint32().toIntArray());
+    assertArrayEquals(new long[] { 3L, 4L, 5L }, msg.getFixed64().toLongArray());
+    assertArrayEquals(new float[] { 0.5F, 1.5F }, msg.getFloat().toFloatArray(), 0F);
+    assertArrayEquals(new double[] { 0.25D, 1.25D }, msg.getDouble().toDoubleArray(), 0D);
+    assertTrue(msg.getBool().getBoolean(2));
+    assertEquals(Arrays.asList("a", "b"), msg.getString());
+    assertEquals(Buffer.buffer(bytes), ProtobufWriter.encode(v -> ProtoWriter.emit(msg, v)));
+  }
+
+  @Test
+  public void testReadWriteUnpacked() throws Exception {
+    byte[] bytes = PrimitiveProto.Unpacked.newBuilder()
+      .addAllUint32(Arrays.asList(0, -1))
+      .addAllSfixed32(Arrays.asList(Integer.MIN_VALUE, 7))
+      .addAllDouble(Arrays.asList(-0.5D, 2D))
+      .addAllBool(Arrays.asList(false, true))
+      .build()
+      .toByteArray();
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Unpacked, reader, Buffer.buffer(bytes));
+    Unpacked msg = (Unpacked) reader.stack.pop();
+    assertArrayEquals(new int[] { 0, -1 }, msg.getUint32().toIntArray());
+    assertArrayEquals(new int[] { Integer.MIN_VALUE, 7 }, msg.getSfixed32().toIntArray());
+    assertArrayEquals(new double[] { -0.5D, 2D }, msg.getDouble().toDoubleArray(), 0D);
+    assertArrayEquals(new boolean[] { false, true }, msg.getBool().toBooleanArray());
+    assertEquals(Buffer.buffer(bytes), ProtobufWriter.encode(v -> ProtoWriter.emit(msg, v)));
+  }
+
+  @Test
+  public void testListView() throws Exception {
+    Packed msg = new Packed();
+    msg.setInt32(Arrays.asList(1, 2, 3));
+    msg.getInt64().add(4L);
+    msg.getInt64().add(0, 5L);
+    msg.setDouble(DoubleList.of(0.5D));
+    List<Integer> int32 = msg.getInt32();
+    assertEquals(Arrays.asList(1, 2, 3), int32);
+    assertEquals(Arrays.asList(5L, 4L), msg.getInt64());
+    assertEquals(2, (int) int32.remove(1));
+    assertEquals(Arrays.asList(1, 3), int32);
+    byte[] bytes = ProtobufWriter.encode(v -> ProtoWriter.emit(msg, v)).getBytes();
+    PrimitiveProto.Packed expected = PrimitiveProto.Packed.newBuilder()
+      .addAllInt32(Arrays.asList(1, 3))
+      .addAllInt64(Arrays.asList(5L, 4L))
+      .addDouble(0.5D)
+      .build();
+    assertEquals(expected, PrimitiveProto.Packed.parseFrom(bytes));
+  }
+
+  @Test
+  public void testGrowth() {
+    LongList list = new LongList();
+    long[] values = new long[100];
+    for (int i = 0;i < values.length;i++) {
+      values[i] = i;
+    }
+    list.addAll(values, 10, 50);
+    list.addAll(values, 0, 10);
+    assertEquals(60, list.size());
+    assertEquals(10L, list.getLong(0));
+    assertEquals(9L, list.getLong(59));
+    try {
+      list.getLong(60);
+      fail();
+    } catch (IndexOutOfBoundsException expected) {
+    }
+    try {
+      list.addAll(values, 90, 20);
+      fail();
+    } catch (IndexOutOfBoundsException expected) {
+    }
+    assertEquals(60, list.size());
+  }
+}
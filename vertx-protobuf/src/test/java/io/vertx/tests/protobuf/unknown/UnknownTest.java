@@ -14,6 +14,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.*;
@@ -111,6 +112,70 @@ public class UnknownTest {
     assertEquals("Hello", stringUtf8);
   }
 
+  @Test
+  public void testPassThrough() throws Exception {
+    UnknownFieldSet unknownFields = UnknownFieldSet.newBuilder()
+      .addField(2, UnknownFieldSet.Field.newBuilder().addLengthDelimited(ByteString.copyFromUtf8("Hello")).build())
+      .addField(4, UnknownFieldSet.Field.newBuilder().addFixed64(15L).build())
+      .addField(5, UnknownFieldSet.Field.newBuilder().addFixed32(17).build())
+      .addField(6, UnknownFieldSet.Field.newBuilder().addVarint(18L).build())
+      .build();
+    byte[] bytes = UnknownProto.Message.newBuilder()
+      .setValue(4)
+      .setUnknownFields(unknownFields)
+      .build().toByteArray();
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Message, reader, Buffer.buffer(bytes));
+    Message msg = (Message) reader.stack.pop();
+    assertEquals(4, (int) msg.getValue());
+    assertEquals(Buffer.buffer(unknownFields.toByteArray()), msg.unknownFieldsBytes());
+    assertEquals(Collections.singletonList(17), msg.unknownField(MessageLiteral.Message.unknownField(5, WireType.I32)));
+    assertArrayEquals(bytes, ProtobufWriter.encodeToByteArray(visitor -> ProtoWriter.emit(msg, visitor)));
+  }
+
+  @Test
+  public void testPassThroughOverlongTag() throws Exception {
+    // Field 2 of wire type LEN with its tag encoded on 3 bytes instead of 1
+    byte[] unknownField = { (byte) 0x92, (byte) 0x80, 0x00, 5, 'H', 'e', 'l', 'l', 'o' };
+    byte[] bytes = Buffer.buffer().appendByte((byte) 0x08).appendByte((byte) 4).appendBytes(unknownField).getBytes();
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Message, reader, Buffer.buffer(bytes));
+    Message msg = (Message) reader.stack.pop();
+    assertEquals(4, (int) msg.getValue());
+    assertEquals(Buffer.buffer(unknownField), msg.unknownFieldsBytes());
+    assertArrayEquals(bytes, ProtobufWriter.encodeToByteArray(visitor -> ProtoWriter.emit(msg, visitor)));
+  }
+
+  @Test
+  public void testModifyUnknownField() throws Exception {
+    byte[] bytes = UnknownProto.Message.newBuilder()
+      .setValue(4)
+      .setUnknownFields(UnknownFieldSet.newBuilder()
+        .addField(5, UnknownFieldSet.Field.newBuilder().addFixed32(17).build())
+        .build())
+      .build().toByteArray();
+    ProtoReader reader = new ProtoReader();
+    ProtobufReader.parse(MessageLiteral.Message, reader, Buffer.buffer(bytes));
+    Message msg = (Message) reader.stack.pop();
+    Field uf5 = MessageLiteral.Message.unknownField(5, WireType.I32);
+    List<Object> values = msg.unknownField(uf5);
+    assertSame(values, msg.unknownField(uf5));
+    values.add(21);
+    msg.unknownField(MessageLiteral.Message.unknownField(6, WireType.VARINT)).add(18L);
+    UnknownProto.Message protoMsg = UnknownProto.Message.parseFrom(ProtobufWriter.encodeToByteArray(visitor -> ProtoWriter.emit(msg, visitor)));
+    assertEquals(4, protoMsg.getValue());
+    assertEquals(Arrays.asList(17, 21), protoMsg.getUnknownFields().getField(5).getFixed32List());
+    assertEquals(Collections.singletonList(18L), protoMsg.getUnknownFields().getField(6).getVarintList());
+  }
+
+  @Test
+  public void testAddUnknownField() throws Exception {
+    Message msg = new Message();
+    msg.unknownField(MessageLiteral.Message.unknownField(2, WireType.LEN)).add(Buffer.buffer("Hello"));
+    UnknownProto.Message protoMsg = UnknownProto.Message.parseFrom(ProtobufWriter.encodeToByteArray(visitor -> ProtoWriter.emit(msg, visitor)));
+    assertEquals("Hello", protoMsg.getUnknownFields().getField(2).getLengthDelimitedList().get(0).toStringUtf8());
+  }
+
   private static <K, V> Map<K, V> toMap(Iterable<Map.Entry<K, V>> entries) {
     Map<K, V> map = new HashMap<>();
     entries.forEach(entry -> {
@@ -20,6 +20,7 @@ open module io.vertx.tests {
   requires com.google.protobuf.util;
   requires jmh.core;
   requires io.netty.codec.http;
+  requires io.netty.buffer;
   requires com.google.common;
   requires com.fasterxml.jackson.core;
 }